@@ -0,0 +1,45 @@
+package pl.rafzab.movielibraryservice.benchmark;
+
+import pl.rafzab.movielibraryservice.client.DigiKatMovieData;
+import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
+import pl.rafzab.movielibraryservice.repository.MovieListingRow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic test data, the same seed gives every run and every fork identical input
+ */
+final class BenchmarkData {
+    private static final long SEED = 42L;
+
+    private BenchmarkData() {
+    }
+
+    static List<MovieListingRow> listingRows(int count) {
+        var random = new SplittableRandom(SEED);
+        var rows = new ArrayList<MovieListingRow>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new MovieListingRow((long) i + 1, "Movie title " + i, "Director " + random.nextInt(500),
+                    1950 + random.nextInt(75), random.nextInt(400), RankingStatus.DONE,
+                    random.nextLong(1, 1L << 30)));
+        }
+        return rows;
+    }
+
+    static List<MovieDTO> movies(int count) {
+        return listingRows(count).stream().map(MovieListingRow::toDTO).toList();
+    }
+
+    static DigiKatMovieData digiKatMovieData() {
+        return new DigiKatMovieData("Inception", 1, List.of("hbo", "netflix", "disney"), "wybitny", "2025-01-01T10:00:00Z");
+    }
+
+    static byte[] bytes(int size) {
+        var data = new byte[size];
+        new SplittableRandom(SEED).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,49 @@
+package pl.rafzab.movielibraryservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import pl.rafzab.movielibraryservice.client.DigiKatMovieData;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of a DigiKat response and the predicates the ranking is calculated from
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DigiKatMovieDataBenchmark {
+    private static final String RESPONSE = """
+            {"tytul":"Inception","produkcja":1,"dostepnosc":["hbo","netflix","disney"],\
+            "ocenaUzytkwonikow":"wybitny","ostaniaAktualizacja":"2025-01-01T10:00:00Z"}""";
+
+    private ObjectReader reader;
+    private byte[] response;
+    private DigiKatMovieData movieData;
+
+    @Setup
+    public void setUp() {
+        reader = Jackson2ObjectMapperBuilder.json().build().readerFor(DigiKatMovieData.class);
+        response = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        movieData = BenchmarkData.digiKatMovieData();
+    }
+
+    @Benchmark
+    public DigiKatMovieData deserialize() throws IOException {
+        return reader.readValue(response);
+    }
+
+    @Benchmark
+    public void predicates(Blackhole blackhole) {
+        blackhole.consume(movieData.isPolishProduction());
+        blackhole.consume(movieData.isAvailableOnNetflix());
+        blackhole.consume(movieData.hasOutstandingUserRating());
+    }
+}
@@ -0,0 +1,86 @@
+package pl.rafzab.movielibraryservice.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+import pl.rafzab.movielibraryservice.service.file.FileStorageService;
+import pl.rafzab.movielibraryservice.service.file.StoredFile;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.LocalStorageProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.StripedLocalStorageBackend;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write and read throughput of {@link FileStorageService} for a range of file sizes. Files are written
+ * to a temporary directory, results depend on the disk the benchmark runs on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FileStorageBenchmark {
+
+    @Param({"65536", "1048576", "16777216"})
+    private int fileSize;
+
+    private Path directory;
+    private FileStorageService fileStorageService;
+    private byte[] content;
+    private String storedFile;
+    private String writtenFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("file-storage-benchmark");
+        var uploadProperties = new UploadProperties();
+        uploadProperties.setDirectory(directory.toString());
+        uploadProperties.setMaxFileSize(Long.MAX_VALUE);
+        var localStorageProperties = new LocalStorageProperties();
+        localStorageProperties.setMinFreeSpaceBytes(0L);
+        var meterRegistry = new SimpleMeterRegistry();
+        fileStorageService = new FileStorageService(
+                new StripedLocalStorageBackend(localStorageProperties, uploadProperties, meterRegistry), meterRegistry);
+
+        content = BenchmarkData.bytes(fileSize);
+        storedFile = fileStorageService.trySaveStream("read.mp4", new ByteArrayInputStream(content), Long.MAX_VALUE).filePath();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    /**
+     * Every write creates a new file, it is removed after the invocation so the directory does not grow
+     */
+    @TearDown(Level.Invocation)
+    public void removeWrittenFile() throws IOException {
+        if (writtenFile != null) {
+            Files.deleteIfExists(Path.of(writtenFile));
+            writtenFile = null;
+        }
+    }
+
+    @Benchmark
+    public StoredFile write() {
+        var stored = fileStorageService.trySaveStream("write.mp4", new ByteArrayInputStream(content), Long.MAX_VALUE);
+        writtenFile = stored.filePath();
+        return stored;
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        try (InputStream in = fileStorageService.loadFile(storedFile).getInputStream()) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
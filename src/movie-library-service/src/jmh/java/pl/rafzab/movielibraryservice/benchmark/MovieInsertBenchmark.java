@@ -0,0 +1,109 @@
+package pl.rafzab.movielibraryservice.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.rafzab.movielibraryservice.MovieLibraryServiceApplication;
+import pl.rafzab.movielibraryservice.entity.Movie;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to insert 100k movies of one user through JPA, the way a bulk import saves them. Batch size 1 sends
+ * a statement per row, like the identity ids did before movie ids were allocated from a pooled sequence.
+ * Runs against a real database: the one from docker-compose, or {@code SPRING_DATASOURCE_URL}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class MovieInsertBenchmark {
+    private static final int MOVIES = 100_000;
+    private static final int FLUSH_INTERVAL = 1_000;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    @Param({"false", "true"})
+    private boolean reWriteBatchedInserts;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private TransactionTemplate transaction;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(MovieLibraryServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=" + reWriteBatchedInserts)
+                .run();
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void createUser() {
+        user = new User();
+        user.setEmail("insert-benchmark-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("benchmark");
+        transaction.executeWithoutResult(status -> entityManager.persist(user));
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteUser() {
+        transaction.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM Movie m WHERE m.user.userId = :userId")
+                    .setParameter("userId", user.getUserId())
+                    .executeUpdate();
+            entityManager.createQuery("DELETE FROM User u WHERE u.userId = :userId")
+                    .setParameter("userId", user.getUserId())
+                    .executeUpdate();
+        });
+    }
+
+    @Benchmark
+    public void insertMovies() {
+        transaction.executeWithoutResult(status -> {
+            for (int i = 0; i < MOVIES; i++) {
+                entityManager.persist(movie(i));
+                if ((i + 1) % FLUSH_INTERVAL == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+    }
+
+    private Movie movie(int index) {
+        return Movie.builder()
+                .user(user)
+                .title("Movie title " + index)
+                .director("Director " + index % 500)
+                .yearOfProduction(1950 + index % 75)
+                .ranking(0)
+                .size(1024L)
+                .filePath("/movies/benchmark/" + index + ".mp4")
+                .fileName(index + ".mp4")
+                .rankingStatus(RankingStatus.DONE)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package pl.rafzab.movielibraryservice.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
+import pl.rafzab.movielibraryservice.dto.response.MovieListDTO;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+import pl.rafzab.movielibraryservice.repository.MovieListingRow;
+import pl.rafzab.movielibraryservice.repository.MovieRepository;
+import pl.rafzab.movielibraryservice.service.movie.MovieProperties;
+import pl.rafzab.movielibraryservice.service.movie.MovieService;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link MovieService} listing on top of the repository: page and cursor handling and DTO mapping.
+ * The repository is an in-memory stub returning prepared rows, the database is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MovieListingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int limit;
+
+    private MovieService movieService;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        List<MovieDTO> movies = BenchmarkData.movies(limit);
+        List<MovieListingRow> rows = BenchmarkData.listingRows(limit + 1);
+        var repository = (MovieRepository) Proxy.newProxyInstance(
+                MovieRepository.class.getClassLoader(),
+                new Class<?>[]{MovieRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findMovieDTOsByUser" -> new PageImpl<>(movies, (Pageable) args[1], 100_000L);
+                    case "findListingRows" -> rows;
+                    case "countByUser" -> 100_000L;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        var movieProperties = new MovieProperties();
+        movieProperties.setSmallFileSize(209_715_200L);
+        movieProperties.setMaxPageLimit(1_000);
+        movieService = new MovieService(repository, null, null, null, null, event -> { }, movieProperties, new SimpleMeterRegistry());
+
+        user = new User();
+        user.setUserId(1L);
+    }
+
+    @Benchmark
+    public MovieListDTO findUserMovies() {
+        return movieService.findUserMovies(user, 3, limit, MovieFieldSort.RANKING, Sort.Direction.DESC);
+    }
+
+    @Benchmark
+    public MovieListDTO findUserMoviesByCursor() {
+        return movieService.findUserMoviesByCursor(user, null, limit, MovieFieldSort.ALL, Sort.Direction.DESC, false);
+    }
+}
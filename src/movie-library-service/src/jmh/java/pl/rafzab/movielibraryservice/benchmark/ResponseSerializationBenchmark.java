@@ -0,0 +1,55 @@
+package pl.rafzab.movielibraryservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import pl.rafzab.movielibraryservice.configuration.response.ResponseMaker;
+import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
+import pl.rafzab.movielibraryservice.dto.response.MovieListDTO;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of listing responses as returned by the controllers through {@link ResponseMaker},
+ * with an object mapper configured the way Spring MVC configures its message converter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int movies;
+
+    private ObjectWriter writer;
+    private MovieDTO movie;
+    private MovieListDTO movieList;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        var dtos = BenchmarkData.movies(movies);
+        movie = dtos.get(0);
+        movieList = MovieListDTO.builder()
+                .currentPage(0)
+                .limit(dtos.size())
+                .totalItems(100_000L)
+                .totalPages(100_000 / dtos.size())
+                .movies(dtos)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializeMovie() throws JsonProcessingException {
+        return writer.writeValueAsBytes(ResponseMaker.ok(movie).getBody());
+    }
+
+    @Benchmark
+    public byte[] serializeMovieList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(ResponseMaker.ok(movieList).getBody());
+    }
+}
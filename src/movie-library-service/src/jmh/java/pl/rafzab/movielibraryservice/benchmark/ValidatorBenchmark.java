@@ -0,0 +1,55 @@
+package pl.rafzab.movielibraryservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+import pl.rafzab.movielibraryservice.dto.request.MovieModificationDTO;
+import pl.rafzab.movielibraryservice.validation.FileType;
+import pl.rafzab.movielibraryservice.validation.FileTypeValidator;
+import pl.rafzab.movielibraryservice.validation.MaxFileSize;
+import pl.rafzab.movielibraryservice.validation.MultipartMaxFileSizeValidator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validators of the uploaded file, initialized from the constraints declared on {@link MovieModificationDTO}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ValidatorBenchmark {
+
+    private FileTypeValidator fileTypeValidator;
+    private MultipartMaxFileSizeValidator maxFileSizeValidator;
+    private MockMultipartFile videoFile;
+    private MockMultipartFile textFile;
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        var fileField = MovieModificationDTO.class.getDeclaredField("file");
+        fileTypeValidator = new FileTypeValidator();
+        fileTypeValidator.initialize(fileField.getAnnotation(FileType.class));
+        maxFileSizeValidator = new MultipartMaxFileSizeValidator();
+        maxFileSizeValidator.initialize(fileField.getAnnotation(MaxFileSize.class));
+
+        videoFile = new MockMultipartFile("file", "movie.mp4", "video/mp4", BenchmarkData.bytes(1024));
+        textFile = new MockMultipartFile("file", "notes.txt", "text/plain", BenchmarkData.bytes(1024));
+    }
+
+    @Benchmark
+    public boolean fileTypeAccepted() {
+        return fileTypeValidator.isValid(videoFile, null);
+    }
+
+    @Benchmark
+    public boolean fileTypeRejected() {
+        return fileTypeValidator.isValid(textFile, null);
+    }
+
+    @Benchmark
+    public boolean maxFileSize() {
+        return maxFileSizeValidator.isValid(videoFile, null);
+    }
+}
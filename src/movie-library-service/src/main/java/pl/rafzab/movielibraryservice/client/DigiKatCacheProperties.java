@@ -0,0 +1,50 @@
+package pl.rafzab.movielibraryservice.client;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.digikat.cache")
+public class DigiKatCacheProperties {
+    @NotNull
+    @Positive
+    private Long maxEntries;
+
+    @NotNull
+    @Positive
+    private Long maxWeightBytes;
+
+    /**
+     * Used when DigiKat does not report a parsable last update date
+     */
+    @NotNull
+    private Duration defaultTtl;
+
+    @NotNull
+    private Duration minTtl;
+
+    @NotNull
+    private Duration maxTtl;
+
+    /**
+     * Part of the time since the last DigiKat update an entry stays fresh, data that has not changed
+     * for a long time is likely to stay unchanged for a while
+     */
+    @NotNull
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private Double lastUpdatedAgeFraction;
+
+    @NotNull
+    private Duration notFoundTtl;
+}
@@ -1,20 +1,39 @@
 package pl.rafzab.movielibraryservice.client;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestClientResponseException;
 import pl.rafzab.movielibraryservice.exception.DigiKatClientException;
+import pl.rafzab.movielibraryservice.exception.DigiKatNotFoundException;
 import pl.rafzab.movielibraryservice.exception.DigiKatServerException;
+import pl.rafzab.movielibraryservice.exception.DigiKatUnavailableException;
 
 import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Slf4j
 @Component
@@ -22,24 +41,153 @@ public class DigiKatClient {
 
     private final RestClient restClient;
     private final DigiKatProperties properties;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, CompletableFuture<DigiKatMovieData>> inFlightLookups = new ConcurrentHashMap<>();
 
-    public DigiKatClient(DigiKatProperties properties) {
+    public DigiKatClient(DigiKatProperties properties, CircuitBreaker digiKatCircuitBreaker, Bulkhead digiKatBulkhead,
+                         MeterRegistry meterRegistry) {
         this.properties = properties;
+        this.circuitBreaker = digiKatCircuitBreaker;
+        this.bulkhead = digiKatBulkhead;
+        this.meterRegistry = meterRegistry;
         this.restClient = createRestClient();
     }
 
+    /**
+     * JDK HttpClient keeps connections alive and reuses them between calls, negotiating HTTP/2 when DigiKat supports it
+     */
     RestClient createRestClient() {
+        var httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(properties.getConnectionTimeoutMs()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        var requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(properties.getReadTimeoutMs()));
+
         return RestClient.builder()
                 .baseUrl(properties.getBaseUrl())
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-                .requestFactory(new SimpleClientHttpRequestFactory())
+                .requestFactory(requestFactory)
+                .requestInterceptor(meteringInterceptor())
                 .build();
     }
 
+    /**
+     * Records every HTTP exchange with DigiKat, retries included, in {@code digikat.requests}
+     * tagged with the response status class, or IO_ERROR when no response was received
+     */
+    ClientHttpRequestInterceptor meteringInterceptor() {
+        return (HttpRequest request, byte[] body, ClientHttpRequestExecution execution) -> {
+            var sample = Timer.start(meterRegistry);
+            String status = "IO_ERROR";
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                status = response.getStatusCode().value() / 100 + "xx";
+                return response;
+            } finally {
+                sample.stop(Timer.builder("digikat.requests")
+                        .description("HTTP requests sent to DigiKat")
+                        .tag("status", status)
+                        .register(meterRegistry));
+            }
+        };
+    }
+
+    /**
+     * Concurrent lookups of the same normalized title share one remote call, every caller
+     * gets its result or its failure.
+     */
     public DigiKatMovieData getMovieData(String title) {
         validateTitle(title);
 
+        var key = normalizeTitle(title);
+        var lookup = new CompletableFuture<DigiKatMovieData>();
+        var inFlight = inFlightLookups.putIfAbsent(key, lookup);
+        if (inFlight != null) {
+            log.debug("Joining in-flight lookup for movie: {}", title);
+            return await(inFlight);
+        }
+
+        try {
+            var response = downloadThroughCircuitBreaker(title);
+            lookup.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            lookup.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLookups.remove(key, lookup);
+        }
+    }
+
+    public static String normalizeTitle(String title) {
+        return title == null ? "" : title.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private DigiKatMovieData await(CompletableFuture<DigiKatMovieData> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new DigiKatClientException("DigiKat API communication error");
+        }
+    }
+
+    private DigiKatMovieData downloadThroughCircuitBreaker(String title) {
+        try {
+            return circuitBreaker.executeSupplier(() -> downloadWithRetries(title));
+        } catch (CallNotPermittedException e) {
+            log.warn("DigiKat circuit breaker is {}, skipping lookup of movie: {}", circuitBreaker.getState(), title);
+            throw new DigiKatUnavailableException("DigiKat is unavailable");
+        }
+    }
+
+    /**
+     * Server errors are retried up to maxRetries times with full jitter exponential backoff,
+     * client errors are returned right away
+     */
+    private DigiKatMovieData downloadWithRetries(String title) {
+        int retry = 0;
+        while (true) {
+            try {
+                return downloadMovieData(title);
+            } catch (DigiKatServerException e) {
+                if (retry >= properties.getMaxRetries()) {
+                    throw e;
+                }
+                retry++;
+                log.warn("DigiKat server error for movie {}, retry {}/{}: {}", title, retry, properties.getMaxRetries(), e.getMessage());
+                sleepBeforeRetry(retry);
+            }
+        }
+    }
+
+    private void sleepBeforeRetry(int retry) {
+        long backoffMs = Math.min(properties.getRetryMaxBackoffMs(), (long) properties.getRetryInitialBackoffMs() << Math.min(retry - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DigiKatClientException("Interrupted while waiting to retry DigiKat request");
+        }
+    }
+
+    private DigiKatMovieData downloadMovieData(String title) {
+        try {
+            return bulkhead.executeSupplier(() -> requestMovieData(title));
+        } catch (BulkheadFullException e) {
+            log.warn("DigiKat connection limit reached, skipping lookup of movie: {}", title);
+            throw new DigiKatUnavailableException("DigiKat connection limit reached");
+        }
+    }
+
+    private DigiKatMovieData requestMovieData(String title) {
         try {
             log.debug("Downloading movie data: {}", title);
 
@@ -73,6 +221,10 @@ public class DigiKatClient {
     }
 
     private void handleClientError(HttpRequest request, ClientHttpResponse response) throws IOException {
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND)) {
+            log.debug("Movie not found in DigiKat for request: {}", request.getURI());
+            throw new DigiKatNotFoundException("Movie not found in DigiKat");
+        }
         log.warn("Customer error 4xx: {} for request: {}", response.getStatusCode(), request.getURI());
         throw new DigiKatClientException("Customer error: " + response.getStatusCode());
     }
@@ -0,0 +1,138 @@
+package pl.rafzab.movielibraryservice.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pl.rafzab.movielibraryservice.exception.DigiKatNotFoundException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * In-heap, title-keyed cache in front of {@link DigiKatClient}. Entries expire based on DigiKat's last update date,
+ * titles unknown to DigiKat are cached as well, so repeated lookups of a missing title do not reach the API.
+ */
+@Slf4j
+@Component
+public class DigiKatMovieDataCache {
+    static final String CACHE_NAME = "digikat";
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final DigiKatClient digiKatClient;
+    private final DigiKatCacheProperties properties;
+    private final Cache<String, CachedMovieData> cache;
+
+    public DigiKatMovieDataCache(DigiKatClient digiKatClient, DigiKatCacheProperties properties, MeterRegistry meterRegistry) {
+        this.digiKatClient = digiKatClient;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxWeightBytes())
+                .weigher((String title, CachedMovieData value) -> weigh(title, value))
+                .expireAfter(Expiry.creating((String title, CachedMovieData value) -> timeToLive(value.data(), Instant.now())))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * The entry is loaded outside of the cache instead of through {@code cache.get(key, loader)}: Caffeine runs
+     * the loader inside a synchronized map bin, which would pin a virtual thread for the whole HTTP call.
+     * Concurrent misses of the same title are still coalesced by {@link DigiKatClient}.
+     */
+    public DigiKatMovieData getMovieData(String title) {
+        var key = DigiKatClient.normalizeTitle(title);
+        var cached = cache.getIfPresent(key);
+        if (cached == null) {
+            cached = load(title);
+            cache.put(key, cached);
+        }
+        if (cached.data() == null) {
+            throw new DigiKatNotFoundException("Movie not found in DigiKat: " + title);
+        }
+        return cached.data();
+    }
+
+    private CachedMovieData load(String title) {
+        try {
+            return new CachedMovieData(digiKatClient.getMovieData(title));
+        } catch (DigiKatNotFoundException e) {
+            log.debug("Caching missing DigiKat entry for title: {}", title);
+            return new CachedMovieData(null);
+        }
+    }
+
+    Duration timeToLive(DigiKatMovieData data, Instant now) {
+        if (data == null) {
+            return properties.getNotFoundTtl();
+        }
+        var lastUpdated = parseLastUpdated(data.getLastUpdated());
+        if (lastUpdated == null || lastUpdated.isAfter(now)) {
+            return properties.getDefaultTtl();
+        }
+
+        var age = Duration.between(lastUpdated, now);
+        var ttl = Duration.ofMillis((long) (age.toMillis() * properties.getLastUpdatedAgeFraction()));
+        if (ttl.compareTo(properties.getMinTtl()) < 0) {
+            return properties.getMinTtl();
+        }
+        if (ttl.compareTo(properties.getMaxTtl()) > 0) {
+            return properties.getMaxTtl();
+        }
+        return ttl;
+    }
+
+    private Instant parseLastUpdated(String lastUpdated) {
+        if (lastUpdated == null || lastUpdated.isBlank()) {
+            return null;
+        }
+        var value = lastUpdated.strip();
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException ignored) {
+        }
+        try {
+            return LocalDate.parse(value).atStartOfDay().toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            log.debug("Unsupported DigiKat last update date: {}", value);
+            return null;
+        }
+    }
+
+    /**
+     * Caffeine bounds the cache either by count or by weight, every entry weighs at least
+     * maxWeightBytes / maxEntries, so the weight bound also caps the number of entries.
+     */
+    private int weigh(String title, CachedMovieData value) {
+        long estimated = ENTRY_OVERHEAD_BYTES + 2L * title.length();
+        var data = value.data();
+        if (data != null) {
+            estimated += 2L * (length(data.getTitle()) + length(data.getRating()) + length(data.getLastUpdated()));
+            if (data.getAvailability() != null) {
+                for (String platform : data.getAvailability()) {
+                    estimated += ENTRY_OVERHEAD_BYTES / 4 + 2L * length(platform);
+                }
+            }
+        }
+        long minimum = Math.ceilDiv(properties.getMaxWeightBytes(), properties.getMaxEntries());
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(estimated, minimum));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private record CachedMovieData(DigiKatMovieData data) {}
+}
@@ -3,6 +3,7 @@ package pl.rafzab.movielibraryservice.client;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -25,4 +26,17 @@ public class DigiKatProperties {
 
     @NotNull
     private int maxRetries;
+
+    /**
+     * Bulkhead size: upper bound of concurrent requests, and so of pooled HTTP/1.1 connections to DigiKat
+     */
+    @NotNull
+    @Positive
+    private int maxConnections;
+
+    @NotNull
+    private int retryInitialBackoffMs;
+
+    @NotNull
+    private int retryMaxBackoffMs;
 }
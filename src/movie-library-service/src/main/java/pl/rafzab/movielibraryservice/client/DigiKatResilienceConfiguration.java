@@ -0,0 +1,60 @@
+package pl.rafzab.movielibraryservice.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.rafzab.movielibraryservice.exception.DigiKatNotFoundException;
+import pl.rafzab.movielibraryservice.exception.DigiKatUnavailableException;
+
+import java.time.Duration;
+
+@Configuration
+public class DigiKatResilienceConfiguration {
+    static final String DIGIKAT = "digikat";
+
+    /**
+     * Opens on a high failure or slow call rate and probes DigiKat with a few calls in half-open state.
+     * A title missing in DigiKat is a valid answer, not a failure.
+     */
+    @Bean
+    public CircuitBreaker digiKatCircuitBreaker(DigiKatResilienceProperties properties, MeterRegistry meterRegistry) {
+        var config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slowCallRateThreshold(properties.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(properties.getSlowCallDuration())
+                .slidingWindowSize(properties.getSlidingWindowSize())
+                .minimumNumberOfCalls(properties.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(properties.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(properties.getPermittedCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .ignoreExceptions(DigiKatNotFoundException.class, DigiKatUnavailableException.class,
+                        BulkheadFullException.class, IllegalArgumentException.class)
+                .build();
+        var registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker(DIGIKAT);
+    }
+
+    /**
+     * Limits concurrent DigiKat requests, also bounding the number of pooled connections
+     */
+    @Bean
+    public Bulkhead digiKatBulkhead(DigiKatProperties properties, MeterRegistry meterRegistry) {
+        var config = BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getMaxConnections())
+                .maxWaitDuration(Duration.ofMillis(properties.getConnectionTimeoutMs()))
+                .build();
+        var registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(DIGIKAT);
+    }
+}
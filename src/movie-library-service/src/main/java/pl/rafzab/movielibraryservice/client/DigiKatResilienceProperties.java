@@ -0,0 +1,45 @@
+package pl.rafzab.movielibraryservice.client;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.digikat.resilience")
+public class DigiKatResilienceProperties {
+    @NotNull
+    @Positive
+    @Max(100)
+    private Float failureRateThreshold;
+
+    @NotNull
+    @Positive
+    @Max(100)
+    private Float slowCallRateThreshold;
+
+    @NotNull
+    private Duration slowCallDuration;
+
+    @NotNull
+    @Positive
+    private Integer slidingWindowSize;
+
+    @NotNull
+    @Positive
+    private Integer minimumNumberOfCalls;
+
+    @NotNull
+    private Duration waitDurationInOpenState;
+
+    @NotNull
+    @Positive
+    private Integer permittedCallsInHalfOpenState;
+}
@@ -0,0 +1,37 @@
+package pl.rafzab.movielibraryservice.configuration.async;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import pl.rafzab.movielibraryservice.service.ranking.RankingProperties;
+
+@Slf4j
+@Configuration
+@EnableAsync
+public class AsyncConfiguration {
+    public static final String RANKING_EXECUTOR = "rankingExecutor";
+
+    /**
+     * Bounded pool for ranking calculation. When the queue is full the task is dropped,
+     * the movie stays PENDING and is picked up again by the stale ranking sweep.
+     * In virtual thread mode the pool keeps its bounds but its workers are virtual threads.
+     */
+    @Bean(RANKING_EXECUTOR)
+    public ThreadPoolTaskExecutor rankingExecutor(RankingProperties rankingProperties, Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+        executor.setThreadNamePrefix("ranking-");
+        executor.setCorePoolSize(rankingProperties.getCorePoolSize());
+        executor.setMaxPoolSize(rankingProperties.getMaxPoolSize());
+        executor.setQueueCapacity(rankingProperties.getQueueCapacity());
+        executor.setRejectedExecutionHandler((task, pool) ->
+                log.warn("Ranking queue is full, task will be retried by the stale ranking sweep"));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -12,6 +12,10 @@ public class ResponseMaker {
         return response(HttpStatus.CREATED, null, ApiMessage.CREATED);
     }
 
+    public static <T> ResponseEntity<ApiData<T>> created(T dto) {
+        return response(HttpStatus.CREATED, dto, ApiMessage.CREATED);
+    }
+
     public static ResponseEntity<ApiData<Void>> updated() {
         return response(HttpStatus.NO_CONTENT, null, ApiMessage.UPDATED);
     }
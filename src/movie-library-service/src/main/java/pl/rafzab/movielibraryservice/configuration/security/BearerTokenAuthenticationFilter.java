@@ -0,0 +1,51 @@
+package pl.rafzab.movielibraryservice.configuration.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+import pl.rafzab.movielibraryservice.service.auth.AuthTokenService;
+
+import java.io.IOException;
+
+/**
+ * Authenticates requests carrying an access token issued by {@link AuthTokenService}. Requests without
+ * a bearer token continue to HTTP Basic, an invalid token leaves the request unauthenticated.
+ * The request is authenticated with a {@link PreAuthenticatedAuthenticationToken}, so endpoints that need
+ * the password, like issuing a new token, can tell it apart from HTTP Basic.
+ * Token verification time is recorded in {@code auth.duration} with {@code method=bearer}.
+ */
+@RequiredArgsConstructor
+public class BearerTokenAuthenticationFilter extends OncePerRequestFilter {
+    private static final String BEARER_PREFIX = AuthTokenService.TOKEN_TYPE + " ";
+
+    private final AuthTokenService authTokenService;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        var header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            var sample = Timer.start(meterRegistry);
+            var user = authTokenService.verifyToken(header.substring(BEARER_PREFIX.length()).trim());
+            sample.stop(meterRegistry.timer(MeteredAuthenticationProvider.METRIC_NAME,
+                    "method", "bearer", "result", user.isPresent() ? "success" : "failure"));
+            user.ifPresent(owner -> {
+                var principal = new CustomUserDetails(owner);
+                var authentication = new PreAuthenticatedAuthenticationToken(principal, null, principal.getAuthorities());
+                var context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+            });
+        }
+        filterChain.doFilter(request, response);
+    }
+}
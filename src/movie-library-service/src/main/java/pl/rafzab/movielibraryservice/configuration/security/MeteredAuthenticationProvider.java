@@ -0,0 +1,40 @@
+package pl.rafzab.movielibraryservice.configuration.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Records the time of username and password authentication (user lookup and BCrypt check)
+ * in {@code auth.duration} with {@code method=basic}
+ */
+@RequiredArgsConstructor
+public class MeteredAuthenticationProvider implements AuthenticationProvider {
+    static final String METRIC_NAME = "auth.duration";
+
+    private final AuthenticationProvider delegate;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        var sample = Timer.start(meterRegistry);
+        String result = "failure";
+        try {
+            var authenticated = delegate.authenticate(authentication);
+            if (authenticated != null) {
+                result = "success";
+            }
+            return authenticated;
+        } finally {
+            sample.stop(meterRegistry.timer(METRIC_NAME, "method", "basic", "result", result));
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
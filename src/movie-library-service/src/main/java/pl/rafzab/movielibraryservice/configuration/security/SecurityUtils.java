@@ -2,6 +2,7 @@ package pl.rafzab.movielibraryservice.configuration.security;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 import pl.rafzab.movielibraryservice.entity.User;
 import pl.rafzab.movielibraryservice.exception.UnauthorizedException;
 
@@ -14,4 +15,15 @@ public class SecurityUtils {
         }
         throw new UnauthorizedException("Unauthorized");
     }
+
+    /**
+     * The current user of a request authenticated with a password, a request authenticated with an access token
+     * by {@link BearerTokenAuthenticationFilter} is rejected
+     */
+    public static User getPasswordAuthenticatedUser() {
+        if (SecurityContextHolder.getContext().getAuthentication() instanceof PreAuthenticatedAuthenticationToken) {
+            throw new UnauthorizedException("Password authentication required");
+        }
+        return getCurrentUser();
+    }
 }
@@ -14,6 +14,7 @@ import org.springframework.context.annotation.Configuration;
 @OpenAPIDefinition
 public class SwaggerConfig {
     private static final String SCHEME_NAME = "basicAuth";
+    private static final String BEARER_SCHEME_NAME = "bearerAuth";
 
     @Bean
     OpenAPI customOpenApi(
@@ -27,8 +28,10 @@ public class SwaggerConfig {
                         .description(description)
                         .version(version))
                 .addSecurityItem(new SecurityRequirement().addList(SCHEME_NAME))
+                .addSecurityItem(new SecurityRequirement().addList(BEARER_SCHEME_NAME))
                 .components(new Components()
-                        .addSecuritySchemes(SCHEME_NAME, createBasicScheme()));
+                        .addSecuritySchemes(SCHEME_NAME, createBasicScheme())
+                        .addSecuritySchemes(BEARER_SCHEME_NAME, createBearerScheme()));
     }
 
     private SecurityScheme createBasicScheme() {
@@ -36,4 +39,10 @@ public class SwaggerConfig {
                 .type(SecurityScheme.Type.HTTP)
                 .scheme("basic");
     }
+
+    private SecurityScheme createBearerScheme() {
+        return new SecurityScheme()
+                .type(SecurityScheme.Type.HTTP)
+                .scheme("bearer");
+    }
 }
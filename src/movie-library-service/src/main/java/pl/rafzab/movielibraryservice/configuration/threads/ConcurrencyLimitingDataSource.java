@@ -0,0 +1,98 @@
+package pl.rafzab.movielibraryservice.configuration.threads;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of connections borrowed at once. With virtual threads every request gets its own thread,
+ * so thousands of them may reach the pool together; they queue here in arrival order and fail after
+ * a bounded wait instead of piling up inside the pool. The permit is returned when the connection is closed.
+ */
+public class ConcurrencyLimitingDataSource extends DelegatingDataSource {
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+
+    public ConcurrencyLimitingDataSource(DataSource targetDataSource, int maxConcurrency, Duration acquireTimeout) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquirePermit();
+        return borrow(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquirePermit();
+        return borrow(() -> super.getConnection(username, password));
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void acquirePermit() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "No JDBC connection available within " + acquireTimeout.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a JDBC connection", e);
+        }
+    }
+
+    private Connection borrow(ConnectionSupplier supplier) throws SQLException {
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return releasingOnClose(connection);
+    }
+
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName())) {
+                        if (released.compareAndSet(false, true)) {
+                            try {
+                                connection.close();
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
@@ -0,0 +1,46 @@
+package pl.rafzab.movielibraryservice.configuration.threads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Extras of the virtual thread mode ({@code spring.threads.virtual.enabled=true}). Spring Boot itself moves
+ * Tomcat request handling, {@code @Async} and {@code @Scheduled} tasks to virtual threads,
+ * the ranking executor follows the same flag in {@code AsyncConfiguration}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(VirtualThreadProperties properties, MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(properties, meterRegistry);
+    }
+
+    /**
+     * Static, so the post processor is registered before the data source is created
+     */
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiter(ObjectProvider<VirtualThreadProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitingDataSource)) {
+                    var limits = properties.getObject();
+                    log.info("Limiting data source '{}' to {} concurrent connections", beanName, limits.getJdbcMaxConcurrency());
+                    return new ConcurrencyLimitingDataSource(dataSource, limits.getJdbcMaxConcurrency(), limits.getJdbcAcquireTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
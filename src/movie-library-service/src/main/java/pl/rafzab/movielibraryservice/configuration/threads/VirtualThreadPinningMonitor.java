@@ -0,0 +1,66 @@
+package pl.rafzab.movielibraryservice.configuration.threads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.stream.Collectors;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event, which the JVM emits when a virtual thread blocks
+ * while it cannot unmount from its carrier (inside {@code synchronized} or a native frame).
+ * Every pinned section is recorded in the {@code jvm.threads.virtual.pinned} timer and logged with its top frames.
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor {
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final RecordingStream recordingStream;
+    private final Timer pinnedTimer;
+
+    public VirtualThreadPinningMonitor(VirtualThreadProperties properties, MeterRegistry meterRegistry) {
+        this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent blocked while pinned to their carrier thread")
+                .register(meterRegistry);
+        this.recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT)
+                .withThreshold(properties.getPinnedThreshold())
+                .withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        log.info("Virtual thread pinning monitor started, threshold: {}", properties.getPinnedThreshold());
+    }
+
+    @PreDestroy
+    public void close() {
+        recordingStream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration());
+        log.warn("Virtual thread {} pinned for {} ms at:\n{}",
+                event.getThread() != null ? event.getThread().getJavaName() : "?",
+                event.getDuration().toMillis(),
+                topFrames(event));
+    }
+
+    private String topFrames(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "\t<no stack trace>";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(LOGGED_FRAMES)
+                .map(this::formatFrame)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private String formatFrame(RecordedFrame frame) {
+        return "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + "(line " + frame.getLineNumber() + ")";
+    }
+}
@@ -0,0 +1,38 @@
+package pl.rafzab.movielibraryservice.configuration.threads;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Settings used only when virtual threads are enabled with {@code spring.threads.virtual.enabled}
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.threads.virtual")
+public class VirtualThreadProperties {
+    /**
+     * Pinned sections lasting longer than this are logged and counted
+     */
+    @NotNull
+    private Duration pinnedThreshold;
+
+    /**
+     * Maximum number of JDBC connections held at once, should not exceed the connection pool size
+     */
+    @NotNull
+    @Positive
+    private Integer jdbcMaxConcurrency;
+
+    /**
+     * How long a thread waits for a JDBC permit before the request fails
+     */
+    @NotNull
+    private Duration jdbcAcquireTimeout;
+}
@@ -0,0 +1,41 @@
+package pl.rafzab.movielibraryservice.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import pl.rafzab.movielibraryservice.configuration.response.ApiData;
+import pl.rafzab.movielibraryservice.configuration.response.ResponseMaker;
+import pl.rafzab.movielibraryservice.configuration.security.SecurityUtils;
+import pl.rafzab.movielibraryservice.dto.response.AuthTokenDTO;
+import pl.rafzab.movielibraryservice.service.auth.AuthTokenService;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/auth")
+public class AuthController {
+
+    private final AuthTokenService authTokenService;
+
+    @Tag(name = "Auth", description = "Access tokens")
+    @Operation(
+            summary = "Issue an access token",
+            description = "Exchanges HTTP Basic credentials for a signed access token. Sending it as " +
+                    "'Authorization: Bearer <token>' authenticates later requests without a password check. " +
+                    "A request authenticated with an access token cannot issue a new one",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Access token issued successfully"),
+                    @ApiResponse(responseCode = "401", description = "User is unauthorized or authenticated with an access token")
+            }
+    )
+    @PostMapping("/token")
+    public ResponseEntity<ApiData<AuthTokenDTO>> issueToken(){
+        var user = SecurityUtils.getPasswordAuthenticatedUser();
+        var responseData = authTokenService.issueToken(user);
+        return ResponseMaker.ok(responseData);
+    }
+}
@@ -7,34 +7,66 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import pl.rafzab.movielibraryservice.configuration.response.ApiData;
 import pl.rafzab.movielibraryservice.configuration.response.ResponseMaker;
 import pl.rafzab.movielibraryservice.configuration.security.SecurityUtils;
 import pl.rafzab.movielibraryservice.dto.request.MovieModificationDTO;
+import pl.rafzab.movielibraryservice.dto.request.MovieSearchDTO;
 import pl.rafzab.movielibraryservice.dto.response.MovieListDTO;
+import pl.rafzab.movielibraryservice.enums.ExportFormat;
 import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+import pl.rafzab.movielibraryservice.enums.PaginationMode;
+import pl.rafzab.movielibraryservice.service.file.PartialContentWriter;
+import pl.rafzab.movielibraryservice.service.movie.ListingQuery;
+import pl.rafzab.movielibraryservice.service.movie.MovieExportService;
+import pl.rafzab.movielibraryservice.service.movie.MovieImportService;
+import pl.rafzab.movielibraryservice.service.movie.MovieListingCache;
 import pl.rafzab.movielibraryservice.service.movie.MovieService;
+import pl.rafzab.movielibraryservice.service.upload.StreamingUploadParser;
+
+import java.io.IOException;
+import java.util.Locale;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/movies")
 public class MovieController {
+    /**
+     * Responses are per user, clients may keep them but have to revalidate them with the entity tag
+     */
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
 
     private final MovieService movieService;
+    private final MovieListingCache movieListingCache;
+    private final MovieImportService movieImportService;
+    private final MovieExportService movieExportService;
+    private final StreamingUploadParser streamingUploadParser;
+    private final PartialContentWriter partialContentWriter;
 
     @Tag(name = "Movies", description = "Operations related to user movies")
     @Operation(
             summary = "Get user movies",
-            description = "Returns a list of movies associated with the logged-in user with pagination and sorting",
+            description = "Returns a list of movies associated with the logged-in user with pagination and sorting. " +
+                    "In CURSOR mode the response contains nextCursor to request the following page. " +
+                    "Pages carry a weak ETag and Last-Modified of the user's library, revalidating with " +
+                    "If-None-Match or If-Modified-Since answers 304 while the library is unchanged",
             responses = {
                     @ApiResponse(responseCode = "200", description = "The list of movies was returned successfully"),
+                    @ApiResponse(responseCode = "304", description = "The library has not changed since the given version"),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor"),
                     @ApiResponse(responseCode = "401", description = "User is unauthorized")
             }
     )
@@ -66,12 +98,77 @@ public class MovieController {
                     description = "Sort direction: ASC (ascending) or DESC (descending), default is DESC",
                     schema = @Schema(implementation = Sort.Direction.class, defaultValue = "DESC")
             )
-            @RequestParam(value = "direction", defaultValue = "DESC") Sort.Direction sortDirection){
+            @RequestParam(value = "direction", defaultValue = "DESC") Sort.Direction sortDirection,
+
+            @Parameter(
+                    in = ParameterIn.QUERY,
+                    description = "Pagination mode: OFFSET (page numbers) or CURSOR (continuation tokens, constant cost per page), default is OFFSET",
+                    schema = @Schema(implementation = PaginationMode.class, defaultValue = "OFFSET")
+            )
+            @RequestParam(value = "paging", defaultValue = "OFFSET") PaginationMode paginationMode,
+
+            @Parameter(
+                    in = ParameterIn.QUERY,
+                    description = "Continuation token returned as nextCursor by the previous page, implies CURSOR mode. " +
+                            "The token keeps the sort of the first page, sort and direction are then ignored"
+            )
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(
+                    in = ParameterIn.QUERY,
+                    description = "Whether to return totalItems and totalPages in CURSOR mode, default is true",
+                    schema = @Schema(type = "boolean", defaultValue = "true")
+            )
+            @RequestParam(defaultValue = "true") boolean count,
+
+            ServletWebRequest webRequest){
         var user = SecurityUtils.getCurrentUser();
-        var responseData = movieService.findUserMovies(user, page, limit, sortBy, sortDirection);
+        var library = movieService.findLibraryVersion(user);
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        if (webRequest.checkNotModified(library.entityTag(), library.modifiedAt().toEpochMilli())) {
+            return null;
+        }
+        var responseData = cursor != null || paginationMode == PaginationMode.CURSOR
+                ? movieListingCache.get(library, ListingQuery.cursor(cursor, limit, sortBy, sortDirection, count),
+                        () -> movieService.findUserMoviesByCursor(user, cursor, limit, sortBy, sortDirection, count))
+                : movieListingCache.get(library, ListingQuery.offset(page, limit, sortBy, sortDirection),
+                        () -> movieService.findUserMovies(user, page, limit, sortBy, sortDirection));
         return ResponseMaker.ok(responseData);
     }
 
+    @Tag(name = "Movies", description = "Operations related to user movies")
+    @Operation(
+            summary = "Search user movies",
+            description = "Searches the titles and directors of the logged-in user's movies. All words of the query " +
+                    "have to match, the last one as a prefix for typeahead; misspelled words are matched by similarity. " +
+                    "Results are ordered by relevance, then by ranking, and can be filtered by year of production and ranking",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "The matching movies were returned successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid search query"),
+                    @ApiResponse(responseCode = "401", description = "User is unauthorized")
+            }
+    )
+    @GetMapping("/search")
+    public ResponseEntity<ApiData<MovieListDTO>> searchMovies(
+            @ParameterObject @Valid MovieSearchDTO search,
+
+            @Parameter(
+                    in = ParameterIn.QUERY,
+                    description = "Page number for pagination (0-indexed), default is 0",
+                    schema = @Schema(type = "integer", defaultValue = "0")
+            )
+            @RequestParam(defaultValue = "0") int page,
+
+            @Parameter(
+                    in = ParameterIn.QUERY,
+                    description = "Number of items per page, default is 20",
+                    schema = @Schema(type = "integer", defaultValue = "20")
+            )
+            @RequestParam(defaultValue = "20") int limit){
+        var user = SecurityUtils.getCurrentUser();
+        return ResponseMaker.ok(movieService.searchMovies(user, search, page, limit));
+    }
+
     @Tag(name = "Movies", description = "Operations related to user movies")
     @Operation(
             summary = "Save a new movie",
@@ -89,6 +186,113 @@ public class MovieController {
         return ResponseMaker.created();
     }
 
+    @Tag(name = "Movies", description = "Operations related to user movies")
+    @Operation(
+            summary = "Save a new movie with a streamed upload",
+            description = "Saves a new movie for the logged-in user. The multipart body (fields: file, title, director, " +
+                    "yearOfProduction) is parsed incrementally and the file is written to storage in a single pass",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    content = @Content(
+                            mediaType = MediaType.MULTIPART_FORM_DATA_VALUE,
+                            schema = @Schema(implementation = MovieModificationDTO.class)
+                    )
+            ),
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Movie created successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data"),
+                    @ApiResponse(responseCode = "401", description = "User is unauthorized")
+            }
+    )
+    @PostMapping(value = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiData<Void>> saveMovieStreaming(HttpServletRequest request){
+        var user = SecurityUtils.getCurrentUser();
+        var upload = streamingUploadParser.parse(request);
+        movieService.saveMovie(user, upload);
+        return ResponseMaker.created();
+    }
+
+    @Tag(name = "Movies", description = "Operations related to user movies")
+    @Operation(
+            summary = "Import movies in bulk",
+            description = "Imports movies listed in an NDJSON manifest, one object per line with title, director, " +
+                    "yearOfProduction and the uploadId of a completed chunked upload. The manifest is processed in " +
+                    "batches as it is received; the response streams one NDJSON result per manifest line " +
+                    "(line, uploadId, status IMPORTED with movieId or FAILED with error) after every batch",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)
+            ),
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Manifest processed, per-line results streamed",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)
+                    ),
+                    @ApiResponse(responseCode = "401", description = "User is unauthorized")
+            }
+    )
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importMovies(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        var user = SecurityUtils.getCurrentUser();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        movieImportService.importMovies(user, request.getInputStream(), response.getOutputStream());
+    }
+
+    @Tag(name = "Movies", description = "Operations related to user movies")
+    @Operation(
+            summary = "Export all user movies",
+            description = "Streams the whole library of the logged-in user as NDJSON or CSV in the order of the listing, " +
+                    "read with a single query. The response is gzip-compressed when the client accepts it",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "The library is streamed",
+                            content = {
+                                    @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE),
+                                    @Content(mediaType = "text/csv")
+                            }
+                    ),
+                    @ApiResponse(responseCode = "401", description = "User is unauthorized")
+            }
+    )
+    @GetMapping("/export")
+    public void exportMovies(
+            @Parameter(
+                    in = ParameterIn.QUERY,
+                    description = "Export format: NDJSON or CSV, default is NDJSON",
+                    schema = @Schema(implementation = ExportFormat.class, defaultValue = "NDJSON")
+            )
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+
+            @Parameter(
+                    in = ParameterIn.QUERY,
+                    description = "Field to sort by. Possible values: ALL, RANKING, SIZE",
+                    schema = @Schema(implementation = MovieFieldSort.class, defaultValue = "ALL")
+            )
+            @RequestParam(value = "sort", defaultValue = "ALL") MovieFieldSort sortBy,
+
+            @Parameter(
+                    in = ParameterIn.QUERY,
+                    description = "Sort direction: ASC (ascending) or DESC (descending), default is DESC",
+                    schema = @Schema(implementation = Sort.Direction.class, defaultValue = "DESC")
+            )
+            @RequestParam(value = "direction", defaultValue = "DESC") Sort.Direction sortDirection,
+
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        var user = SecurityUtils.getCurrentUser();
+        boolean gzip = acceptsGzip(request);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(format.getMediaType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("movies." + format.getExtension()).build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        movieExportService.exportMovies(user, format, sortBy, sortDirection, response.getOutputStream(), gzip);
+    }
+
     @Tag(name = "Movies", description = "Operations related to user movies")
     @Operation(
             summary = "Update an existing movie",
@@ -110,7 +314,9 @@ public class MovieController {
     @Tag(name = "Movies", description = "Operations related to user movies")
     @Operation(
             summary = "Download a movie file",
-            description = "Allows the logged-in user to download the file of a specific movie by its ID",
+            description = "Allows the logged-in user to download the file of a specific movie by its ID. " +
+                    "Supports byte range requests (Range, If-Range) so players can seek and downloads can be resumed. " +
+                    "The file carries a strong ETag, a matching If-None-Match or If-Modified-Since answers 304",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
@@ -120,16 +326,49 @@ public class MovieController {
                                     schema = @Schema(type = "string", format = "binary")
                             )
                     ),
+                    @ApiResponse(
+                            responseCode = "206",
+                            description = "Requested byte ranges of the movie file",
+                            content = @Content(
+                                    mediaType = "application/octet-stream",
+                                    schema = @Schema(type = "string", format = "binary")
+                            )
+                    ),
+                    @ApiResponse(responseCode = "304", description = "The movie file has not changed"),
                     @ApiResponse(responseCode = "401", description = "User is unauthorized"),
-                    @ApiResponse(responseCode = "404", description = "Movie file not found")
+                    @ApiResponse(responseCode = "404", description = "Movie file not found"),
+                    @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
             }
     )
     @GetMapping("/{movieId}/download")
-    public ResponseEntity<Resource> downloadMovie(@PathVariable Long movieId){
+    public void downloadMovie(@PathVariable Long movieId, HttpServletRequest request, HttpServletResponse response) throws IOException {
         var user = SecurityUtils.getCurrentUser();
-        Resource file = movieService.downloadMovie(user, movieId);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFilename() + "\"")
-                .body(file);
+        var download = movieService.downloadMovie(user, movieId);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        partialContentWriter.write(download.file(), download.entityTag(), request, response);
+    }
+
+    /**
+     * gzip is accepted when listed without q=0, a wildcard is not taken as a request for compression
+     */
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        var acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            var parameters = coding.split(";");
+            if (!parameters[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parameters.length; i++) {
+                var parameter = parameters[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=") && parameter.substring(2).matches("0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
     }
 }
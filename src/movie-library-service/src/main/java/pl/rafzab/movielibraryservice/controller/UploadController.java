@@ -0,0 +1,102 @@
+package pl.rafzab.movielibraryservice.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pl.rafzab.movielibraryservice.configuration.response.ApiData;
+import pl.rafzab.movielibraryservice.configuration.response.ResponseMaker;
+import pl.rafzab.movielibraryservice.configuration.security.SecurityUtils;
+import pl.rafzab.movielibraryservice.dto.request.MovieMetadataDTO;
+import pl.rafzab.movielibraryservice.dto.request.UploadSessionRequestDTO;
+import pl.rafzab.movielibraryservice.dto.response.UploadProgressDTO;
+import pl.rafzab.movielibraryservice.service.upload.ChunkedUploadService;
+
+import java.io.IOException;
+import java.util.UUID;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/uploads")
+public class UploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @Tag(name = "Uploads", description = "Resumable chunked upload of movie files")
+    @Operation(
+            summary = "Create an upload session",
+            description = "Starts a resumable upload. The response contains the chunk size and number of chunks " +
+                    "the file has to be split into; chunk N starts at offset N * chunkSize",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Upload session created successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data"),
+                    @ApiResponse(responseCode = "401", description = "User is unauthorized")
+            }
+    )
+    @PostMapping
+    public ResponseEntity<ApiData<UploadProgressDTO>> createSession(@Valid @RequestBody UploadSessionRequestDTO requestData){
+        var user = SecurityUtils.getCurrentUser();
+        var responseData = chunkedUploadService.createSession(user, requestData);
+        return ResponseMaker.created(responseData);
+    }
+
+    @Tag(name = "Uploads", description = "Resumable chunked upload of movie files")
+    @Operation(
+            summary = "Upload a chunk",
+            description = "Writes the raw request body as the chunk with the given index. Chunks can be sent " +
+                    "in any order and in parallel; re-sending a chunk overwrites it",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Chunk stored, current progress returned"),
+                    @ApiResponse(responseCode = "400", description = "Invalid chunk index or length"),
+                    @ApiResponse(responseCode = "401", description = "User is unauthorized"),
+                    @ApiResponse(responseCode = "404", description = "Upload session not found")
+            }
+    )
+    @PutMapping(value = "/{uploadId}/chunks/{chunkIndex}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ApiData<UploadProgressDTO>> uploadChunk(@PathVariable UUID uploadId, @PathVariable int chunkIndex,
+                                                                  HttpServletRequest request) throws IOException {
+        var user = SecurityUtils.getCurrentUser();
+        var responseData = chunkedUploadService.writeChunk(user, uploadId, chunkIndex, request.getInputStream());
+        return ResponseMaker.ok(responseData);
+    }
+
+    @Tag(name = "Uploads", description = "Resumable chunked upload of movie files")
+    @Operation(
+            summary = "Get upload progress",
+            description = "Returns the chunks received so far, so an interrupted upload can be resumed",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Progress returned successfully"),
+                    @ApiResponse(responseCode = "401", description = "User is unauthorized"),
+                    @ApiResponse(responseCode = "404", description = "Upload session not found")
+            }
+    )
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<ApiData<UploadProgressDTO>> getProgress(@PathVariable UUID uploadId){
+        var user = SecurityUtils.getCurrentUser();
+        var responseData = chunkedUploadService.getProgress(user, uploadId);
+        return ResponseMaker.ok(responseData);
+    }
+
+    @Tag(name = "Uploads", description = "Resumable chunked upload of movie files")
+    @Operation(
+            summary = "Complete an upload",
+            description = "Creates the movie from a fully uploaded file",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Movie created successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data or upload incomplete"),
+                    @ApiResponse(responseCode = "401", description = "User is unauthorized"),
+                    @ApiResponse(responseCode = "404", description = "Upload session not found")
+            }
+    )
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<ApiData<Void>> completeUpload(@PathVariable UUID uploadId, @Valid @RequestBody MovieMetadataDTO requestData){
+        var user = SecurityUtils.getCurrentUser();
+        chunkedUploadService.completeUpload(user, uploadId, requestData);
+        return ResponseMaker.created();
+    }
+}
@@ -0,0 +1,24 @@
+package pl.rafzab.movielibraryservice.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import pl.rafzab.movielibraryservice.validation.YearMaxCurrent;
+
+import java.util.UUID;
+
+/**
+ * Line of a bulk import manifest, the file is a completed chunked upload
+ */
+public record MovieImportItemDTO(
+        @NotNull @NotBlank @Size(max = 255) String title,
+        @NotNull @NotBlank @Size(max = 255) String director,
+        @NotNull @Positive @YearMaxCurrent Integer yearOfProduction,
+        @NotNull UUID uploadId
+) {
+
+    public MovieMetadataDTO metadata() {
+        return new MovieMetadataDTO(title, director, yearOfProduction);
+    }
+}
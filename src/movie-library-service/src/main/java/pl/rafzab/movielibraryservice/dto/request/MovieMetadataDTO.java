@@ -0,0 +1,13 @@
+package pl.rafzab.movielibraryservice.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import pl.rafzab.movielibraryservice.validation.YearMaxCurrent;
+
+public record MovieMetadataDTO(
+        @NotNull @NotBlank @Size(max = 255) String title,
+        @NotNull @NotBlank @Size(max = 255) String director,
+        @NotNull @Positive @YearMaxCurrent Integer yearOfProduction
+) {}
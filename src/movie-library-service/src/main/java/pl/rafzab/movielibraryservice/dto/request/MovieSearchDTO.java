@@ -0,0 +1,17 @@
+package pl.rafzab.movielibraryservice.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public record MovieSearchDTO(
+        @Schema(description = "Words of the title or director, the last word may be incomplete (typeahead). " +
+                "Misspelled words are matched by similarity")
+        @NotNull @NotBlank @Size(min = 2, max = 255) String query,
+        @Schema(description = "Lowest year of production") @Positive Integer yearFrom,
+        @Schema(description = "Highest year of production") @Positive Integer yearTo,
+        @Schema(description = "Lowest ranking") Integer rankingFrom,
+        @Schema(description = "Highest ranking") Integer rankingTo
+) {}
@@ -0,0 +1,12 @@
+package pl.rafzab.movielibraryservice.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public record UploadSessionRequestDTO(
+        @NotNull @NotBlank @Size(max = 200) String fileName,
+        @NotNull @NotBlank @Size(max = 255) String contentType,
+        @NotNull @Positive Long totalSize
+) {}
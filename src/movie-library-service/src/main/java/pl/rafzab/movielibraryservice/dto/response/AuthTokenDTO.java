@@ -0,0 +1,5 @@
+package pl.rafzab.movielibraryservice.dto.response;
+
+import java.time.Instant;
+
+public record AuthTokenDTO(String accessToken, String tokenType, Instant expiresAt) {}
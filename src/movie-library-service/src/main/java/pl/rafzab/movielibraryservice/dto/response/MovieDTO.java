@@ -1,10 +1,13 @@
 package pl.rafzab.movielibraryservice.dto.response;
 
 import pl.rafzab.movielibraryservice.entity.Movie;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
 
-public record MovieDTO(Long movieId, String title, String director, Integer yearOfProduction, Integer ranking) {
+public record MovieDTO(Long movieId, String title, String director, Integer yearOfProduction, Integer ranking,
+                       RankingStatus rankingStatus) {
 
     public MovieDTO(Movie movie){
-        this(movie.getMovieId(), movie.getTitle(), movie.getDirector(), movie.getYearOfProduction(), movie.getRanking());
+        this(movie.getMovieId(), movie.getTitle(), movie.getDirector(), movie.getYearOfProduction(), movie.getRanking(),
+                movie.getRankingStatus());
     }
 }
@@ -0,0 +1,25 @@
+package pl.rafzab.movielibraryservice.dto.response;
+
+import pl.rafzab.movielibraryservice.enums.ImportStatus;
+
+import java.util.UUID;
+
+/**
+ * Result of a single manifest line, {@code line} is its 1-based number
+ */
+public record MovieImportResultDTO(
+        Integer line,
+        UUID uploadId,
+        ImportStatus status,
+        Long movieId,
+        String error
+) {
+
+    public static MovieImportResultDTO imported(int line, UUID uploadId, Long movieId) {
+        return new MovieImportResultDTO(line, uploadId, ImportStatus.IMPORTED, movieId, null);
+    }
+
+    public static MovieImportResultDTO failed(int line, UUID uploadId, String error) {
+        return new MovieImportResultDTO(line, uploadId, ImportStatus.FAILED, null, error);
+    }
+}
@@ -12,4 +12,5 @@ import java.util.List;
 @AllArgsConstructor
 public class MovieListDTO extends PaginationDTO {
     private List<MovieDTO> movies;
+    private String nextCursor;
 }
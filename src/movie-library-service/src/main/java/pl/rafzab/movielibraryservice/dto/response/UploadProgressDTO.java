@@ -0,0 +1,16 @@
+package pl.rafzab.movielibraryservice.dto.response;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record UploadProgressDTO(
+        UUID uploadId,
+        Long totalSize,
+        Long chunkSize,
+        Integer totalChunks,
+        List<Integer> receivedChunks,
+        Long receivedBytes,
+        Boolean complete,
+        Instant expiresAt
+) {}
@@ -3,7 +3,9 @@ package pl.rafzab.movielibraryservice.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
 
+import java.time.Instant;
 import java.util.Objects;
 
 @Getter
@@ -14,8 +16,12 @@ import java.util.Objects;
 @AllArgsConstructor
 @Table(name = "movies")
 public class Movie {
+    /**
+     * Allocated in blocks from the sequence, so inserts of new movies can be sent as JDBC batches
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movies_movie_id_seq")
+    @SequenceGenerator(name = "movies_movie_id_seq", sequenceName = "movies_movie_id_seq", allocationSize = 50)
     @Column(name = "movie_id")
     private Long movieId;
 
@@ -48,16 +54,30 @@ public class Movie {
     @Column(name = "file_path")
     private String filePath;
 
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column
+    private String checksum;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ranking_status")
+    private RankingStatus rankingStatus;
+
+    @Column(name = "ranking_requested_at")
+    private Instant rankingRequestedAt;
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         Movie movie = (Movie) o;
-        return Objects.equals(movieId, movie.movieId) && Objects.equals(user, movie.user) && Objects.equals(title, movie.title) && Objects.equals(director, movie.director) && Objects.equals(yearOfProduction, movie.yearOfProduction) && Objects.equals(ranking, movie.ranking) && Objects.equals(size, movie.size) && Objects.equals(filePath, movie.filePath);
+        return Objects.equals(movieId, movie.movieId) && Objects.equals(user, movie.user) && Objects.equals(title, movie.title) && Objects.equals(director, movie.director) && Objects.equals(yearOfProduction, movie.yearOfProduction) && Objects.equals(ranking, movie.ranking) && Objects.equals(size, movie.size) && Objects.equals(filePath, movie.filePath) && Objects.equals(fileName, movie.fileName) && Objects.equals(checksum, movie.checksum) && rankingStatus == movie.rankingStatus && Objects.equals(rankingRequestedAt, movie.rankingRequestedAt);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(movieId, user, title, director, yearOfProduction, ranking, size, filePath);
+        return Objects.hash(movieId, user, title, director, yearOfProduction, ranking, size, filePath, fileName, checksum, rankingStatus, rankingRequestedAt);
     }
 
     @Override
@@ -71,6 +91,10 @@ public class Movie {
                 ", ranking=" + ranking +
                 ", size=" + size +
                 ", filePath='" + filePath + '\'' +
+                ", fileName='" + fileName + '\'' +
+                ", checksum='" + checksum + '\'' +
+                ", rankingStatus=" + rankingStatus +
+                ", rankingRequestedAt=" + rankingRequestedAt +
                 '}';
     }
 }
@@ -0,0 +1,76 @@
+package pl.rafzab.movielibraryservice.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "upload_sessions")
+public class UploadSession {
+    @Id
+    @Column(name = "upload_id")
+    private UUID uploadId;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @NotNull
+    @Column(name = "file_name")
+    private String fileName;
+
+    @NotNull
+    @Column(name = "content_type")
+    private String contentType;
+
+    @NotNull
+    @Column(name = "total_size")
+    private Long totalSize;
+
+    @NotNull
+    @Column(name = "chunk_size")
+    private Long chunkSize;
+
+    @NotNull
+    @Column(name = "part_path")
+    private String partPath;
+
+    @NotNull
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @NotNull
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+    public int getTotalChunks() {
+        return (int) Math.max(1, (totalSize + chunkSize - 1) / chunkSize);
+    }
+
+    public long getChunkLength(int chunkIndex) {
+        return Math.min(chunkSize, totalSize - chunkIndex * chunkSize);
+    }
+
+    @Override
+    public String toString() {
+        return "UploadSession{" +
+                "uploadId=" + uploadId +
+                ", fileName='" + fileName + '\'' +
+                ", contentType='" + contentType + '\'' +
+                ", totalSize=" + totalSize +
+                ", chunkSize=" + chunkSize +
+                ", partPath='" + partPath + '\'' +
+                ", createdAt=" + createdAt +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -15,8 +16,12 @@ import java.util.Set;
 @NoArgsConstructor
 @Table(name = "users")
 public class User {
+    /**
+     * Allocated in blocks from the sequence, like movie ids, so inserts of new users can be sent as JDBC batches
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_user_id_seq")
+    @SequenceGenerator(name = "users_user_id_seq", sequenceName = "users_user_id_seq", allocationSize = 50)
     @Column(name = "user_id")
     private Long userId;
 
@@ -28,6 +33,15 @@ public class User {
     @Column
     private String password;
 
+    /**
+     * Maintained by a trigger on the movies table, bumped whenever a listed movie column of this user changes
+     */
+    @Column(name = "library_version", insertable = false, updatable = false)
+    private Long libraryVersion;
+
+    @Column(name = "library_modified_at", insertable = false, updatable = false)
+    private Instant libraryModifiedAt;
+
     @OneToMany(mappedBy = "user", fetch = FetchType.LAZY, cascade = { CascadeType.REMOVE, CascadeType.PERSIST, CascadeType.MERGE }, orphanRemoval = true)
     private Set<Movie> movies = new HashSet<>();
 }
@@ -0,0 +1,24 @@
+package pl.rafzab.movielibraryservice.enums;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+@Getter
+public enum ExportFormat {
+    /**
+     * One JSON object per movie and line
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE, "ndjson"),
+    /**
+     * A header line followed by one RFC 4180 record per movie
+     */
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+}
@@ -0,0 +1,6 @@
+package pl.rafzab.movielibraryservice.enums;
+
+public enum ImportStatus {
+    IMPORTED,
+    FAILED
+}
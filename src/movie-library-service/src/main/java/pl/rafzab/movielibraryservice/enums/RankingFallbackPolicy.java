@@ -0,0 +1,12 @@
+package pl.rafzab.movielibraryservice.enums;
+
+public enum RankingFallbackPolicy {
+    /**
+     * Movie stays PENDING and is ranked again by the stale ranking sweep
+     */
+    DEFER,
+    /**
+     * Movie gets the configured fallback ranking with FAILED status
+     */
+    FIXED
+}
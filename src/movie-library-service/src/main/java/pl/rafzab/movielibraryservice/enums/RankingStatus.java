@@ -0,0 +1,7 @@
+package pl.rafzab.movielibraryservice.enums;
+
+public enum RankingStatus {
+    PENDING,
+    DONE,
+    FAILED
+}
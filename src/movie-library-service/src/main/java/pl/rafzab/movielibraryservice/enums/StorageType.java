@@ -0,0 +1,12 @@
+package pl.rafzab.movielibraryservice.enums;
+
+public enum StorageType {
+    /**
+     * Movie files are striped over local directories, usually mount points of separate disks
+     */
+    LOCAL,
+    /**
+     * Movie files are kept in an S3-compatible object store
+     */
+    S3
+}
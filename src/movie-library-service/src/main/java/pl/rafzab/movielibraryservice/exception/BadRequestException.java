@@ -0,0 +1,7 @@
+package pl.rafzab.movielibraryservice.exception;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package pl.rafzab.movielibraryservice.exception;
+
+public class DigiKatNotFoundException extends DigiKatClientException {
+    public DigiKatNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package pl.rafzab.movielibraryservice.exception;
+
+public class DigiKatUnavailableException extends RuntimeException {
+    public DigiKatUnavailableException(String message) {
+        super(message);
+    }
+}
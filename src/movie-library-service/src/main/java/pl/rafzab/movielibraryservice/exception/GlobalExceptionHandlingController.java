@@ -1,5 +1,6 @@
 package pl.rafzab.movielibraryservice.exception;
 
+import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.catalina.connector.ClientAbortException;
 import org.springframework.http.HttpStatus;
@@ -60,7 +61,8 @@ public class GlobalExceptionHandlingController {
     /**
      * It catches all exceptions from @Valid
      */
-    @ExceptionHandler(value = {MethodArgumentNotValidException.class, HttpMessageNotReadableException.class})
+    @ExceptionHandler(value = {MethodArgumentNotValidException.class, HttpMessageNotReadableException.class,
+            ConstraintViolationException.class, BadRequestException.class})
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
     public ResponseEntity<ApiData<ApiResponseException>> handlerApiRequestBadRequestValidException(Exception e) {
         ZonedDateTime zonedDateTime = ZonedDateTime.now(ZoneId.of("Z"));
@@ -0,0 +1,14 @@
+package pl.rafzab.movielibraryservice.repository;
+
+import java.time.Instant;
+
+/**
+ * Version of a user's movie library, any change to a listed movie column yields a new version.
+ * The weak entity tag identifies every listing page of that version, the request URL tells the pages apart.
+ */
+public record LibraryVersion(Long userId, Long version, Instant modifiedAt) {
+
+    public String entityTag() {
+        return "W/\"" + userId + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,25 @@
+package pl.rafzab.movielibraryservice.repository;
+
+import org.springframework.data.domain.Sort;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface MovieListingRepository {
+    /**
+     * Returns up to {@code limit} listing rows of the user ordered by the sort fields and movieId,
+     * starting after the row identified by {@code after} (sort field values and movieId), or from
+     * the beginning when it is empty
+     */
+    List<MovieListingRow> findListingRows(User user, MovieFieldSort sortBy, Sort.Direction direction,
+                                          Map<String, Object> after, int limit);
+
+    /**
+     * Streams every listing row of the user, with size, in the order of the listing. Rows are fetched
+     * {@code fetchSize} at a time through a forward-only cursor, which PostgreSQL only does inside a transaction.
+     */
+    Stream<MovieListingRow> streamListingRows(User user, MovieFieldSort sortBy, Sort.Direction direction, int fetchSize);
+}
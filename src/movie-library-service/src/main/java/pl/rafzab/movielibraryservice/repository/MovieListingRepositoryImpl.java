@@ -0,0 +1,100 @@
+package pl.rafzab.movielibraryservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.sqm.NodeBuilder;
+import org.hibernate.query.sqm.tree.expression.SqmExpression;
+import org.hibernate.query.sqm.tree.expression.SqmTuple;
+import org.springframework.data.domain.Sort;
+import pl.rafzab.movielibraryservice.entity.Movie;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+class MovieListingRepositoryImpl implements MovieListingRepository {
+    private static final String MOVIE_ID = "movieId";
+    private static final String SIZE = "size";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<MovieListingRow> findListingRows(User user, MovieFieldSort sortBy, Sort.Direction direction,
+                                                 Map<String, Object> after, int limit) {
+        var keys = sortKeys(sortBy);
+        return entityManager.createQuery(listingQuery(user, keys, direction, after, keys.contains(SIZE)))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<MovieListingRow> streamListingRows(User user, MovieFieldSort sortBy, Sort.Direction direction,
+                                                     int fetchSize) {
+        return entityManager.createQuery(listingQuery(user, sortKeys(sortBy), direction, Map.of(), true))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private List<String> sortKeys(MovieFieldSort sortBy) {
+        var keys = new ArrayList<>(Arrays.asList(sortBy.getValues()));
+        keys.add(MOVIE_ID);
+        return keys;
+    }
+
+    private CriteriaQuery<MovieListingRow> listingQuery(User user, List<String> keys, Sort.Direction direction,
+                                                        Map<String, Object> after, boolean selectSize) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(MovieListingRow.class);
+        var movie = query.from(Movie.class);
+
+        query.select(cb.construct(MovieListingRow.class,
+                movie.get(MOVIE_ID),
+                movie.get("title"),
+                movie.get("director"),
+                movie.get("yearOfProduction"),
+                movie.get("ranking"),
+                movie.get("rankingStatus"),
+                selectSize ? movie.get(SIZE) : cb.nullLiteral(Long.class)));
+
+        var userPredicate = cb.equal(movie.get("user"), user);
+        query.where(after.isEmpty() ? userPredicate : cb.and(userPredicate, afterPredicate(cb, movie, keys, direction, after)));
+
+        List<Order> orders = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            orders.add(direction.isAscending() ? cb.asc(movie.get(key)) : cb.desc(movie.get(key)));
+        }
+        query.orderBy(orders);
+        return query;
+    }
+
+    /**
+     * Builds the row value comparison (k1, k2, ...) &gt; (v1, v2, ...), &lt; for descending order. PostgreSQL uses
+     * it as the start of the index scan, so a page costs the same at any depth, while the equivalent
+     * (k1 &gt; v1) or (k1 = v1 and ...) is only applied as a filter after scanning the user's rows from the start.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate afterPredicate(CriteriaBuilder cb, Root<Movie> movie, List<String> keys,
+                                     Sort.Direction direction, Map<String, Object> after) {
+        var nodeBuilder = (NodeBuilder) cb;
+        List<SqmExpression<?>> columns = new ArrayList<>(keys.size());
+        List<SqmExpression<?>> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            columns.add((SqmExpression<?>) movie.get(key));
+            values.add((SqmExpression<?>) nodeBuilder.value(after.get(key)));
+        }
+        SqmTuple row = new SqmTuple<>(columns, nodeBuilder);
+        SqmTuple cursor = new SqmTuple<>(values, nodeBuilder);
+        return direction.isAscending() ? nodeBuilder.greaterThan(row, cursor) : nodeBuilder.lessThan(row, cursor);
+    }
+}
@@ -0,0 +1,16 @@
+package pl.rafzab.movielibraryservice.repository;
+
+import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
+
+/**
+ * Listing row selected straight from the movies table. {@code size} is only selected when it is a sort key,
+ * so the remaining columns can be served from the covering listing indexes.
+ */
+public record MovieListingRow(Long movieId, String title, String director, Integer yearOfProduction, Integer ranking,
+                              RankingStatus rankingStatus, Long size) {
+
+    public MovieDTO toDTO() {
+        return new MovieDTO(movieId, title, director, yearOfProduction, ranking, rankingStatus);
+    }
+}
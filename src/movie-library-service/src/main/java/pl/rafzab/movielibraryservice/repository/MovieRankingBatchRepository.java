@@ -0,0 +1,100 @@
+package pl.rafzab.movielibraryservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access for the ranking recompute job: keyset reads and batched updates
+ * without loading entities into the persistence context.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MovieRankingBatchRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<RankingCandidate> findRankingCandidates(long afterMovieId, long minSize, int limit) {
+        return jdbcTemplate.query(
+                "SELECT movie_id, title FROM movies " +
+                        "WHERE movie_id > ? AND size >= ? AND ranking_status <> 'PENDING' " +
+                        "ORDER BY movie_id LIMIT ?",
+                (rs, rowNum) -> new RankingCandidate(rs.getLong("movie_id"), rs.getString("title")),
+                afterMovieId, minSize, limit);
+    }
+
+    /**
+     * Movies queued for asynchronous ranking in the meantime are left to the ranking worker
+     */
+    public void updateRankings(List<RankingUpdate> updates) {
+        jdbcTemplate.batchUpdate(
+                "UPDATE movies SET ranking = ?, ranking_status = 'DONE' " +
+                        "WHERE movie_id = ? AND ranking_status <> 'PENDING'",
+                updates,
+                updates.size(),
+                (ps, update) -> {
+                    ps.setInt(1, update.ranking());
+                    ps.setLong(2, update.movieId());
+                });
+    }
+
+    /**
+     * Runs the job while holding a session-level advisory lock named after it, so one instance at a time runs it.
+     * The lock lives on a connection kept for the whole run and goes away with that connection if the instance dies.
+     *
+     * @return {@code false} without running the job when another instance holds the lock
+     */
+    public boolean runExclusively(String jobName, Runnable job) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(hashtext(?))", jobName)) {
+                return false;
+            }
+            try {
+                job.run();
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(hashtext(?))", jobName);
+            }
+            return true;
+        }));
+    }
+
+    public Optional<Long> findCheckpoint(String jobName) {
+        return jdbcTemplate.query(
+                        "SELECT last_movie_id FROM ranking_recompute_checkpoints WHERE job_name = ?",
+                        (rs, rowNum) -> rs.getLong("last_movie_id"),
+                        jobName)
+                .stream()
+                .findFirst();
+    }
+
+    public void saveCheckpoint(String jobName, long lastMovieId) {
+        jdbcTemplate.update(
+                "INSERT INTO ranking_recompute_checkpoints (job_name, last_movie_id, updated_at) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (job_name) DO UPDATE SET last_movie_id = EXCLUDED.last_movie_id, updated_at = EXCLUDED.updated_at",
+                jobName, lastMovieId, Timestamp.from(Instant.now()));
+    }
+
+    public void deleteCheckpoint(String jobName) {
+        jdbcTemplate.update("DELETE FROM ranking_recompute_checkpoints WHERE job_name = ?", jobName);
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql, String jobName) throws SQLException {
+        try (var statement = connection.prepareStatement(sql)) {
+            statement.setString(1, jobName);
+            try (var resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    public record RankingCandidate(long movieId, String title) {}
+
+    public record RankingUpdate(long movieId, int ranking) {}
+}
@@ -1,17 +1,61 @@
 package pl.rafzab.movielibraryservice.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
 import pl.rafzab.movielibraryservice.entity.Movie;
 import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface MovieRepository extends JpaRepository<Movie, Long> {
-    Page<Movie> findAllByUser(User user, Pageable pageable);
+public interface MovieRepository extends JpaRepository<Movie, Long>, MovieListingRepository {
     Optional<Movie> findByMovieIdAndUser(Long movieId, User user);
+    long countByUser(User user);
+
+    /**
+     * Listing page projected straight into DTOs, without loading entities into the persistence context
+     */
+    @Query(value = "select new pl.rafzab.movielibraryservice.dto.response.MovieDTO(" +
+            "m.movieId, m.title, m.director, m.yearOfProduction, m.ranking, m.rankingStatus) " +
+            "from Movie m where m.user = :user",
+            countQuery = "select count(m) from Movie m where m.user = :user")
+    Page<MovieDTO> findMovieDTOsByUser(@Param("user") User user, Pageable pageable);
+
+    List<Movie> findByRankingStatusAndRankingRequestedAtBefore(RankingStatus rankingStatus, Instant requestedBefore, Limit limit);
+
+    /**
+     * Stores the result of a ranking request, unless the movie has been re-ranked since it was issued
+     */
+    @Transactional
+    @Modifying
+    @Query("update Movie m set m.ranking = :ranking, m.rankingStatus = :rankingStatus " +
+            "where m.movieId = :movieId and m.rankingRequestedAt = :requestedAt")
+    int updateRanking(@Param("movieId") Long movieId, @Param("requestedAt") Instant requestedAt,
+                      @Param("ranking") Integer ranking, @Param("rankingStatus") RankingStatus rankingStatus);
+
+    @Transactional
+    @Modifying
+    @Query("update Movie m set m.rankingStatus = :rankingStatus " +
+            "where m.movieId = :movieId and m.rankingRequestedAt = :requestedAt")
+    int updateRankingStatus(@Param("movieId") Long movieId, @Param("requestedAt") Instant requestedAt,
+                            @Param("rankingStatus") RankingStatus rankingStatus);
+
+    @Transactional
+    @Modifying
+    @Query("update Movie m set m.rankingRequestedAt = :renewedAt " +
+            "where m.movieId = :movieId and m.rankingRequestedAt = :requestedAt and m.rankingStatus = 'PENDING'")
+    int renewRankingRequest(@Param("movieId") Long movieId, @Param("requestedAt") Instant requestedAt,
+                            @Param("renewedAt") Instant renewedAt);
 }
 
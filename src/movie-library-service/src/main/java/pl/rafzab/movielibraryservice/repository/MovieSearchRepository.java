@@ -0,0 +1,90 @@
+package pl.rafzab.movielibraryservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import pl.rafzab.movielibraryservice.dto.request.MovieSearchDTO;
+import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search over the titles and directors of a user's movies, served by the per-user GIN indexes of V0015.
+ * A movie matches the text search query or is similar to the searched text by trigrams, so misspelled
+ * words are still found. Results are ordered by relevance, then by ranking.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MovieSearchRepository {
+    /**
+     * Has to stay the indexed expression of idx_movies_user_search_vector
+     */
+    private static final String SEARCH_VECTOR =
+            "(setweight(to_tsvector('simple', title), 'A') || setweight(to_tsvector('simple', director), 'B'))";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * @param textQuery the searched words as a {@code tsquery} in the 'simple' configuration
+     */
+    public MovieSearchResult search(Long userId, MovieSearchDTO search, String textQuery, int offset, int limit) {
+        var parameters = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("text", search.query())
+                .addValue("textQuery", textQuery)
+                .addValue("offset", offset)
+                .addValue("limit", limit);
+        var where = where(search, parameters);
+
+        long[] totalItems = {0};
+        List<MovieDTO> movies = jdbcTemplate.query(
+                "SELECT movie_id, title, director, year_of_production, ranking, ranking_status, count(*) OVER () AS total " +
+                        "FROM movies, to_tsquery('simple', :textQuery) AS text_query " +
+                        where +
+                        " ORDER BY ts_rank(" + SEARCH_VECTOR + ", text_query) " +
+                        "+ greatest(word_similarity(:text, title), word_similarity(:text, director)) DESC, " +
+                        "ranking DESC, movie_id DESC " +
+                        "LIMIT :limit OFFSET :offset",
+                parameters,
+                (rs, rowNum) -> {
+                    totalItems[0] = rs.getLong("total");
+                    return new MovieDTO(rs.getLong("movie_id"), rs.getString("title"), rs.getString("director"),
+                            rs.getInt("year_of_production"), rs.getInt("ranking"),
+                            RankingStatus.valueOf(rs.getString("ranking_status")));
+                });
+
+        if (movies.isEmpty() && offset > 0) {
+            // past the last page the window count has no row to come with
+            totalItems[0] = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM movies, to_tsquery('simple', :textQuery) AS text_query " + where,
+                    parameters, Long.class);
+        }
+        return new MovieSearchResult(movies, totalItems[0]);
+    }
+
+    private String where(MovieSearchDTO search, MapSqlParameterSource parameters) {
+        List<String> conditions = new ArrayList<>();
+        conditions.add("user_id = :userId");
+        conditions.add("(" + SEARCH_VECTOR + " @@ text_query OR :text <% title OR :text <% director)");
+        if (search.yearFrom() != null) {
+            conditions.add("year_of_production >= :yearFrom");
+            parameters.addValue("yearFrom", search.yearFrom());
+        }
+        if (search.yearTo() != null) {
+            conditions.add("year_of_production <= :yearTo");
+            parameters.addValue("yearTo", search.yearTo());
+        }
+        if (search.rankingFrom() != null) {
+            conditions.add("ranking >= :rankingFrom");
+            parameters.addValue("rankingFrom", search.rankingFrom());
+        }
+        if (search.rankingTo() != null) {
+            conditions.add("ranking <= :rankingTo");
+            parameters.addValue("rankingTo", search.rankingTo());
+        }
+        return "WHERE " + String.join(" AND ", conditions);
+    }
+}
@@ -0,0 +1,10 @@
+package pl.rafzab.movielibraryservice.repository;
+
+import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
+
+import java.util.List;
+
+/**
+ * One page of search results and the number of movies matching the search
+ */
+public record MovieSearchResult(List<MovieDTO> movies, long totalItems) {}
@@ -0,0 +1,41 @@
+package pl.rafzab.movielibraryservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads for the storage reconciliation job: every path the database refers to, in storage locator order
+ */
+@Repository
+@RequiredArgsConstructor
+public class StorageReconciliationRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Streams the paths of stored contents (also those without references, until they are cleaned up),
+     * movies and upload sessions in progress, sorted by byte order and with duplicates.
+     * Rows are fetched {@code fetchSize} at a time, which PostgreSQL only does inside a transaction.
+     */
+    public Stream<String> streamReferencedPaths(int fetchSize) {
+        return jdbcTemplate.queryForStream(
+                connection -> {
+                    var statement = connection.prepareStatement(
+                            "SELECT path FROM (" +
+                                    "SELECT file_path AS path FROM stored_contents " +
+                                    "UNION ALL SELECT file_path FROM movies WHERE file_path IS NOT NULL " +
+                                    "UNION ALL SELECT part_path FROM upload_sessions" +
+                                    ") referenced ORDER BY path COLLATE \"C\"");
+                    statement.setFetchSize(fetchSize);
+                    return statement;
+                },
+                (rs, rowNum) -> rs.getString("path"));
+    }
+
+    public List<String> findUnreferencedChecksums() {
+        return jdbcTemplate.queryForList("SELECT checksum FROM stored_contents WHERE ref_count = 0", String.class);
+    }
+}
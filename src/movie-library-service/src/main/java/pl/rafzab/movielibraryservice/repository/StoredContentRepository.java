@@ -0,0 +1,73 @@
+package pl.rafzab.movielibraryservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Reference counts of content-addressed files. Every statement locks the content row, so adding a reference
+ * and deleting unreferenced content of the same checksum never interleave.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StoredContentRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Registers the content at {@code filePath} or adds a reference to the already registered content
+     */
+    public StoredContentRow addReference(String checksum, String filePath, long size) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO stored_contents (checksum, file_path, size, ref_count, created_at) VALUES (?, ?, ?, 1, ?) " +
+                        "ON CONFLICT (checksum) DO UPDATE SET ref_count = stored_contents.ref_count + 1 " +
+                        "RETURNING file_path, ref_count",
+                (rs, rowNum) -> new StoredContentRow(rs.getString("file_path"), rs.getInt("ref_count")),
+                checksum, filePath, size, Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Returns the number of updated rows, 0 when the content is not managed by the content store
+     */
+    public int removeReference(String checksum) {
+        return jdbcTemplate.update(
+                "UPDATE stored_contents SET ref_count = ref_count - 1 WHERE checksum = ? AND ref_count > 0",
+                checksum);
+    }
+
+    public Optional<String> lockUnreferenced(String checksum) {
+        return jdbcTemplate.query(
+                        "SELECT file_path FROM stored_contents WHERE checksum = ? AND ref_count = 0 FOR UPDATE",
+                        (rs, rowNum) -> rs.getString("file_path"),
+                        checksum)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Locks the content row, registering the file as unreferenced content first when the checksum is unknown.
+     * An upload of the same content waits for the lock before it adds its reference.
+     */
+    public StoredContentRow lockOrRegisterUnreferenced(String checksum, String filePath, long size) {
+        jdbcTemplate.update(
+                "INSERT INTO stored_contents (checksum, file_path, size, ref_count, created_at) VALUES (?, ?, ?, 0, ?) " +
+                        "ON CONFLICT (checksum) DO NOTHING",
+                checksum, filePath, size, Timestamp.from(Instant.now()));
+        return jdbcTemplate.queryForObject(
+                "SELECT file_path, ref_count FROM stored_contents WHERE checksum = ? FOR UPDATE",
+                (rs, rowNum) -> new StoredContentRow(rs.getString("file_path"), rs.getInt("ref_count")),
+                checksum);
+    }
+
+    public void deleteUnreferenced(String checksum, String filePath) {
+        jdbcTemplate.update("DELETE FROM stored_contents WHERE checksum = ? AND file_path = ? AND ref_count = 0",
+                checksum, filePath);
+    }
+
+    public void deleteUnreferenced(String checksum) {
+        jdbcTemplate.update("DELETE FROM stored_contents WHERE checksum = ? AND ref_count = 0", checksum);
+    }
+}
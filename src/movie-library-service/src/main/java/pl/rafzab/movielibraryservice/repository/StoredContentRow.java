@@ -0,0 +1,8 @@
+package pl.rafzab.movielibraryservice.repository;
+
+/**
+ * Content row after a reference was added. {@code filePath} is where the content is stored, which is the path
+ * of the first upload of that content and not necessarily the one proposed by a later upload.
+ */
+public record StoredContentRow(String filePath, int refCount) {
+}
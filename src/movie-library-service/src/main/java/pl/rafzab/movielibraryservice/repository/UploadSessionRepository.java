@@ -0,0 +1,40 @@
+package pl.rafzab.movielibraryservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import pl.rafzab.movielibraryservice.entity.UploadSession;
+import pl.rafzab.movielibraryservice.entity.User;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+    Optional<UploadSession> findByUploadIdAndUser(UUID uploadId, User user);
+
+    List<UploadSession> findAllByExpiresAtBefore(Instant expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO upload_session_chunks (upload_id, chunk_index) VALUES (:uploadId, :chunkIndex) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    void markChunkReceived(@Param("uploadId") UUID uploadId, @Param("chunkIndex") int chunkIndex);
+
+    /**
+     * Claims an active session by deleting it, a concurrent claim waits for the deleting transaction and then
+     * deletes nothing. The delete only takes effect when that transaction commits.
+     */
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.uploadId = :uploadId AND s.user = :user AND s.expiresAt > :now")
+    int deleteActive(@Param("uploadId") UUID uploadId, @Param("user") User user, @Param("now") Instant now);
+
+    @Query(value = "SELECT chunk_index FROM upload_session_chunks WHERE upload_id = :uploadId ORDER BY chunk_index",
+            nativeQuery = true)
+    List<Integer> findReceivedChunks(@Param("uploadId") UUID uploadId);
+}
@@ -3,6 +3,8 @@ package pl.rafzab.movielibraryservice.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.rafzab.movielibraryservice.entity.Movie;
 import pl.rafzab.movielibraryservice.entity.User;
@@ -12,5 +14,9 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    @Query("select new pl.rafzab.movielibraryservice.repository.LibraryVersion(u.userId, u.libraryVersion, u.libraryModifiedAt) " +
+            "from User u where u.userId = :userId")
+    Optional<LibraryVersion> findLibraryVersion(@Param("userId") Long userId);
 }
 
@@ -0,0 +1,26 @@
+package pl.rafzab.movielibraryservice.service.auth;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.security.token")
+public class AuthTokenProperties {
+    /**
+     * HMAC-SHA256 signing key, at least 32 characters
+     */
+    @NotNull
+    @Size(min = 32)
+    private String secret;
+
+    @NotNull
+    private Duration ttl;
+}
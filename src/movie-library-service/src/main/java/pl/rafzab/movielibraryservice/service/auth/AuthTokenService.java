@@ -0,0 +1,95 @@
+package pl.rafzab.movielibraryservice.service.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import pl.rafzab.movielibraryservice.dto.response.AuthTokenDTO;
+import pl.rafzab.movielibraryservice.entity.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and verifies stateless access tokens: {@code base64url(userId|expiresAt|email).base64url(HMAC-SHA256)}.
+ * Verifying a token is a single HMAC computation, without a user lookup or a BCrypt check.
+ * Tokens cannot be revoked, the TTL bounds how long one stays valid.
+ */
+@Slf4j
+@Service
+public class AuthTokenService {
+    public static final String TOKEN_TYPE = "Bearer";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String FIELD_SEPARATOR = "|";
+
+    private final AuthTokenProperties properties;
+    private final SecretKeySpec signingKey;
+
+    public AuthTokenService(AuthTokenProperties properties) {
+        this.properties = properties;
+        this.signingKey = new SecretKeySpec(properties.getSecret().getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public AuthTokenDTO issueToken(User user) {
+        var expiresAt = Instant.now().plus(properties.getTtl());
+        var payload = user.getUserId() + FIELD_SEPARATOR + expiresAt.getEpochSecond() + FIELD_SEPARATOR + user.getEmail();
+        var payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        var token = encode(payloadBytes) + "." + encode(sign(payloadBytes));
+        log.info("Access token issued for user: {}, expires at: {}", user.getUserId(), expiresAt);
+        return new AuthTokenDTO(token, TOKEN_TYPE, expiresAt);
+    }
+
+    /**
+     * Returns the token owner, or empty when the token is malformed, tampered with or expired.
+     * Only the id and email of the returned user are set.
+     */
+    public Optional<User> verifyToken(String token) {
+        try {
+            var separator = token.indexOf('.');
+            if (separator < 0) {
+                return Optional.empty();
+            }
+            var payloadBytes = Base64.getUrlDecoder().decode(token.substring(0, separator));
+            var signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+                log.debug("Rejected access token with invalid signature");
+                return Optional.empty();
+            }
+
+            var fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", 3);
+            if (fields.length != 3) {
+                return Optional.empty();
+            }
+            if (Instant.ofEpochSecond(Long.parseLong(fields[1])).isBefore(Instant.now())) {
+                log.debug("Rejected expired access token");
+                return Optional.empty();
+            }
+
+            var user = new User();
+            user.setUserId(Long.valueOf(fields[0]));
+            user.setEmail(fields[2]);
+            return Optional.of(user);
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejected malformed access token");
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            var mac = Mac.getInstance(ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign access token", e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
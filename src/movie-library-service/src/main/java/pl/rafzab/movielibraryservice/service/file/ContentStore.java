@@ -0,0 +1,140 @@
+package pl.rafzab.movielibraryservice.service.file;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.rafzab.movielibraryservice.repository.StoredContentRepository;
+import pl.rafzab.movielibraryservice.service.file.storage.StorageBackend;
+import pl.rafzab.movielibraryservice.service.file.storage.StorageProperties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed movie store: every distinct content is kept once under {@code objects/<ab>/<cd>/<sha-256>}
+ * of the {@link StorageBackend} and shared by all movies referencing it, references are counted in
+ * {@code stored_contents}. The number of fan-out directories is configurable.
+ * <p>
+ * A reference is added before the staged file is put into place and the content row stays locked until
+ * the movie transaction commits, while the last reference is released by deleting the file under the same
+ * row lock after commit. A concurrent upload of the same content therefore either keeps the file alive or
+ * puts it back. Files left behind by rolled back transactions are not referenced by any row.
+ */
+@Slf4j
+@Service
+public class ContentStore {
+    static final String OBJECTS_DIRECTORY = "objects";
+    private static final Pattern CHECKSUM_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final StoredContentRepository storedContentRepository;
+    private final StorageBackend storageBackend;
+    private final FileStorageService fileStorageService;
+    private final StorageProperties storageProperties;
+    private final TransactionTemplate cleanupTransaction;
+
+    public ContentStore(StoredContentRepository storedContentRepository, StorageBackend storageBackend,
+                        FileStorageService fileStorageService, StorageProperties storageProperties,
+                        PlatformTransactionManager transactionManager) {
+        this.storedContentRepository = storedContentRepository;
+        this.storageBackend = storageBackend;
+        this.fileStorageService = fileStorageService;
+        this.storageProperties = storageProperties;
+        this.cleanupTransaction = new TransactionTemplate(transactionManager);
+        this.cleanupTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Moves a staged file into the store, or drops it when the same content is already stored
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StoredFile store(StoredFile stagedFile) {
+        var stagedPath = Paths.get(stagedFile.filePath());
+        try {
+            var locator = storageBackend.locate(objectKey(stagedFile.checksum()), stagedPath);
+            var content = storedContentRepository.addReference(stagedFile.checksum(), locator, stagedFile.size());
+            if (content.refCount() > 1 && storageBackend.exists(content.filePath())) {
+                Files.deleteIfExists(stagedPath);
+                log.info("Content {} already stored, {} references", stagedFile.checksum(), content.refCount());
+            } else {
+                storageBackend.put(content.filePath(), stagedPath);
+                log.info("Content {} stored at {}", stagedFile.checksum(), content.filePath());
+            }
+            return new StoredFile(content.filePath(), stagedFile.fileName(), stagedFile.size(), stagedFile.checksum());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Drops a movie's reference to its file. Content no longer referenced is deleted after commit,
+     * files stored before content addressing belong to a single movie and are deleted right away after commit.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(String checksum, String filePath) {
+        boolean managed = checksum != null && storedContentRepository.removeReference(checksum) == 1;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (managed) {
+                    deleteIfUnreferenced(checksum);
+                } else if (filePath != null) {
+                    fileStorageService.deleteQuietly(filePath);
+                }
+            }
+        });
+    }
+
+    void deleteIfUnreferenced(String checksum) {
+        cleanupTransaction.executeWithoutResult(status ->
+                storedContentRepository.lockUnreferenced(checksum).ifPresent(filePath -> {
+                    fileStorageService.deleteQuietly(filePath);
+                    storedContentRepository.deleteUnreferenced(checksum);
+                    log.info("Unreferenced content {} deleted", checksum);
+                }));
+    }
+
+    /**
+     * Deletes a content file no movie refers to. The content row is locked first, so the file is neither the
+     * registered copy of a referenced content nor put back by an upload while it is being deleted.
+     *
+     * @return whether the file was deleted
+     */
+    boolean deleteOrphan(String checksum, String filePath, long size) {
+        return Boolean.TRUE.equals(cleanupTransaction.execute(status -> {
+            var content = storedContentRepository.lockOrRegisterUnreferenced(checksum, filePath, size);
+            if (content.refCount() > 0 && content.filePath().equals(filePath)) {
+                return false;
+            }
+            fileStorageService.deleteQuietly(filePath);
+            storedContentRepository.deleteUnreferenced(checksum, filePath);
+            return true;
+        }));
+    }
+
+    /**
+     * Checksum of a file stored under the objects directory, empty for staged and legacy files
+     */
+    static Optional<String> checksumOf(String filePath) {
+        var name = filePath.substring(Math.max(filePath.lastIndexOf('/'), filePath.lastIndexOf('\\')) + 1);
+        var parent = filePath.substring(0, filePath.length() - name.length());
+        boolean stored = parent.contains("/" + OBJECTS_DIRECTORY + "/") || parent.contains("\\" + OBJECTS_DIRECTORY + "\\");
+        return stored && CHECKSUM_PATTERN.matcher(name).matches() ? Optional.of(name) : Optional.empty();
+    }
+
+    String objectKey(String checksum) {
+        var key = new StringBuilder(OBJECTS_DIRECTORY).append('/');
+        for (int level = 0; level < storageProperties.getFanOutLevels(); level++) {
+            key.append(checksum, level * 2, level * 2 + 2).append('/');
+        }
+        return key.append(checksum).toString();
+    }
+}
@@ -1,51 +1,261 @@
 package pl.rafzab.movielibraryservice.service.file;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.FileSystemResource;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import pl.rafzab.movielibraryservice.exception.BadRequestException;
 import pl.rafzab.movielibraryservice.exception.NotFoundException;
+import pl.rafzab.movielibraryservice.service.file.storage.StorageBackend;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Writes uploads to the staging directories of the {@link StorageBackend} and reads stored files back from it
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class FileStorageService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PART_SUFFIX = ".part";
+    private static final String MODE_MULTIPART = "multipart";
+    private static final String MODE_STREAM = "stream";
+    private static final String MODE_CHUNK = "chunk";
 
-    private final UploadProperties uploadProperties;
+    private final StorageBackend storageBackend;
+    private final MeterRegistry meterRegistry;
 
-    public String trySaveFile(MultipartFile file){
+    public FileStorageService(StorageBackend storageBackend, MeterRegistry meterRegistry) {
+        this.storageBackend = storageBackend;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Streams the multipart file into a staging directory like {@link #trySaveStream}, so its checksum is known
+     * without reading the file again. The size limit is enforced by the request validation.
+     */
+    public StoredFile trySaveFile(MultipartFile file){
+        return recordUpload(MODE_MULTIPART, StoredFile::size, () -> {
+            try (InputStream inputStream = file.getInputStream()) {
+                return saveStream(file.getOriginalFilename(), inputStream, file.getSize(), Long.MAX_VALUE);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Writes the stream straight into a staging directory, computing size and checksum on the fly.
+     * The bytes land in a ".part" file next to the target and are renamed into place once complete.
+     */
+    public StoredFile trySaveStream(String originalFilename, InputStream inputStream, long maxSize){
+        return recordUpload(MODE_STREAM, StoredFile::size, () -> {
+            try {
+                return saveStream(originalFilename, inputStream, -1, maxSize);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private StoredFile saveStream(String originalFilename, InputStream inputStream, long expectedSize, long maxSize) throws IOException {
+        try (StorageBackend.Staging staging = storageBackend.stage(expectedSize)) {
+            return saveStream(staging.directory(), originalFilename, inputStream, maxSize);
+        }
+    }
+
+    private StoredFile saveStream(Path dirPath, String originalFilename, InputStream inputStream, long maxSize) throws IOException {
+        String savedFileName = System.currentTimeMillis() + "_" + originalFilename;
+        Path filePath = dirPath.resolve(savedFileName);
+        Path partPath = dirPath.resolve(savedFileName + PART_SUFFIX);
+
+        MessageDigest digest = newDigest();
+        long size = 0;
+        try (OutputStream out = Files.newOutputStream(partPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                size += read;
+                if (size > maxSize) {
+                    throw new BadRequestException("Max file size is " + maxSize + " bytes");
+                }
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partPath);
+            throw e;
+        }
+
+        Files.move(partPath, filePath, StandardCopyOption.ATOMIC_MOVE);
+        return new StoredFile(filePath.toAbsolutePath().toString(), originalFilename, size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Creates a sparse file of the final size that chunks of a resumable upload are written into.
+     */
+    public String tryCreatePartFile(String name, long size){
+        try (StorageBackend.Staging staging = storageBackend.stage(size)) {
+            Path partPath = staging.directory().resolve(name + PART_SUFFIX);
+            try (FileChannel channel = FileChannel.open(partPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.SPARSE)) {
+                if (size > 0) {
+                    channel.write(ByteBuffer.allocate(1), size - 1);
+                }
+            }
+            return partPath.toAbsolutePath().toString();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes exactly {@code length} bytes of the stream at {@code position} of the part file.
+     * Every call uses its own channel and positional writes, so chunks may arrive concurrently.
+     */
+    public void tryWriteChunk(String partPath, long position, long length, InputStream inputStream){
+        recordUpload(MODE_CHUNK, ignored -> length, () -> {
+            writeChunk(partPath, position, length, inputStream);
+            return null;
+        });
+    }
+
+    private void writeChunk(String partPath, long position, long length, InputStream inputStream){
+        try (FileChannel channel = FileChannel.open(Paths.get(partPath), StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long written = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                if (written + read > length) {
+                    throw new BadRequestException("Chunk is larger than " + length + " bytes");
+                }
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                while (byteBuffer.hasRemaining()) {
+                    written += channel.write(byteBuffer, position + written);
+                }
+            }
+            if (written != length) {
+                throw new BadRequestException("Chunk has " + written + " bytes, expected " + length);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Copies a fully written part file under a staged name next to it and computes the checksum of the copy
+     * in the same pass, so the staged file matches its checksum even if the part file is written meanwhile.
+     * The part file itself stays in place until its upload session is removed, so an upload whose movie
+     * could not be saved can be completed again.
+     */
+    public StoredFile tryCompletePartFile(String partPath, String originalFilename){
+        Path source = Paths.get(partPath);
+        Path filePath = source.resolveSibling(UUID.randomUUID() + "_" + originalFilename);
         try {
-            return saveFile(file);
-        } catch (Exception e) {
+            MessageDigest digest = newDigest();
+            long size = 0;
+            try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel output = FileChannel.open(filePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        output.write(buffer);
+                    }
+                    buffer.rewind();
+                    digest.update(buffer);
+                    buffer.clear();
+                    size += read;
+                }
+            }
+            return new StoredFile(filePath.toAbsolutePath().toString(), originalFilename, size, HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException e) {
+            deleteQuietly(filePath.toString());
             throw new RuntimeException(e);
         }
     }
 
-    private String saveFile(MultipartFile file) throws IOException {
-        Path dirPath = Paths.get(uploadProperties.getDirectory());
-        if (Files.notExists(dirPath)) {
-            Files.createDirectories(dirPath);
+    public Resource loadFile(String locator) {
+        return loadFile(locator, null);
+    }
+
+    /**
+     * @param fileName name the resource reports, used for the download file name and content type
+     */
+    public Resource loadFile(String locator, String fileName) {
+        try {
+            return storageBackend.load(locator, fileName);
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException("File not found: " + locator);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
+    }
 
-        String originalFilename = file.getOriginalFilename();
-        String savedFileName = System.currentTimeMillis() + "_" + originalFilename;
+    public void deleteQuietly(String locator) {
+        try {
+            storageBackend.delete(locator);
+        } catch (IOException e) {
+            log.warn("Could not delete file: {}", locator, e);
+        }
+    }
 
-        Path filePath = dirPath.resolve(savedFileName);
-        file.transferTo(filePath);
-        return filePath.toAbsolutePath().toString();
+    /**
+     * Records the duration of a write in {@code movie.upload.duration} and, when it succeeds,
+     * the number of bytes written in {@code movie.upload.bytes}, both tagged with the upload mode
+     */
+    private <T> T recordUpload(String mode, Function<T, Long> bytes, Supplier<T> write) {
+        var sample = Timer.start(meterRegistry);
+        try {
+            T result = write.get();
+            recordUpload(mode, sample, true, bytes.apply(result));
+            return result;
+        } catch (RuntimeException e) {
+            recordUpload(mode, sample, false, 0);
+            throw e;
+        }
     }
 
-    public Resource loadFileByAbsolutePath(String absolutePath) {
-        File file = new File(absolutePath);
-        if (!file.exists()) {
-            throw new NotFoundException("File not found: " + absolutePath);
+    private void recordUpload(String mode, Timer.Sample sample, boolean success, long bytes) {
+        sample.stop(Timer.builder("movie.upload.duration")
+                .description("Time spent writing uploaded movie data to disk")
+                .tag("mode", mode)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry));
+        if (success) {
+            DistributionSummary.builder("movie.upload.bytes")
+                    .description("Bytes of uploaded movie data written to disk")
+                    .baseUnit("bytes")
+                    .tag("mode", mode)
+                    .register(meterRegistry)
+                    .record(bytes);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return new FileSystemResource(file);
     }
 }
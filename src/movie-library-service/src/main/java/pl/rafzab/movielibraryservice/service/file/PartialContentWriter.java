@@ -0,0 +1,363 @@
+package pl.rafzab.movielibraryservice.service.file;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import pl.rafzab.movielibraryservice.service.file.storage.RangedResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a resource to the response honoring conditional requests (If-None-Match, If-Modified-Since answered
+ * with 304 before anything is read) and RFC 7233 range requests (single and multiple ranges,
+ * If-Range). Overlapping and adjacent ranges are merged, ranges asking for more than the whole resource get
+ * the whole resource. Whole files and single ranges of files are handed to Tomcat's sendfile when the connector
+ * supports it, the kernel then copies them to the socket after the request thread is released. Otherwise, and
+ * for multipart responses, files are copied through a buffer from the position of each range with
+ * {@link FileChannel#transferTo}, and a {@link RangedResource} is asked for the range only.
+ * Every body is recorded in the {@code movie.download.*} meters, tagged with the response type.
+ */
+@Slf4j
+@Component
+public class PartialContentWriter {
+    private static final String BYTES_UNIT = "bytes";
+    private static final String CRLF = "\r\n";
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+    /**
+     * Same threshold as Tomcat's DefaultServlet, smaller bodies are cheaper to copy than to hand over
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private final MeterRegistry meterRegistry;
+
+    public PartialContentWriter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void write(Resource resource, String etag, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = resource.contentLength();
+        long lastModified = lastModified(resource);
+        MediaType contentType = MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        boolean writeBody = !HttpMethod.HEAD.matches(request.getMethod());
+
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+        }
+        if (lastModified >= 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            log.debug("Resource {} not modified, answered with status {}", resource.getFilename(), response.getStatus());
+            return;
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, BYTES_UNIT);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"");
+
+        List<HttpRange> ranges = requestedRanges(request, etag, lastModified);
+        if (ranges.isEmpty()) {
+            writeFull(resource, contentType, length, writeBody, request, response);
+            return;
+        }
+
+        List<Region> regions = toRegions(ranges, length);
+        if (regions.isEmpty()) {
+            log.debug("Unsatisfiable range {} for resource of length {}", request.getHeader(HttpHeaders.RANGE), length);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, BYTES_UNIT + " */" + length);
+            return;
+        }
+        if (requestedLength(regions) > length) {
+            log.debug("Ranges {} ask for more than the resource of length {}, sending it whole",
+                    request.getHeader(HttpHeaders.RANGE), length);
+            writeFull(resource, contentType, length, writeBody, request, response);
+            return;
+        }
+        regions = coalesce(regions);
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (regions.size() == 1) {
+            Region region = regions.get(0);
+            response.setContentType(contentType.toString());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(region, length));
+            response.setContentLengthLong(region.count());
+            if (writeBody && trySendfile(resource, region, request)) {
+                recordBytes("range", region.count());
+            } else if (writeBody) {
+                long start = System.nanoTime();
+                writeRegions(resource, regions, contentType, length, null, response.getOutputStream());
+                recordDownload("range", region.count(), start);
+            }
+            return;
+        }
+
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        long multipartLength = multipartLength(regions, contentType, length, boundary);
+        response.setContentLengthLong(multipartLength);
+        if (writeBody) {
+            long start = System.nanoTime();
+            writeRegions(resource, regions, contentType, length, boundary, response.getOutputStream());
+            recordDownload("multirange", multipartLength, start);
+        }
+    }
+
+    private void writeFull(Resource resource, MediaType contentType, long length, boolean writeBody,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(contentType.toString());
+        response.setContentLengthLong(length);
+        Region whole = new Region(0, length);
+        if (writeBody && trySendfile(resource, whole, request)) {
+            recordBytes("full", length);
+        } else if (writeBody) {
+            long start = System.nanoTime();
+            writeRegions(resource, List.of(whole), contentType, length, null, response.getOutputStream());
+            recordDownload("full", length, start);
+        }
+    }
+
+    /**
+     * Leaves the body to the connector, which writes the file region once the servlet returns. Nothing may be
+     * written to the response afterwards, the Content-Length has to be set already.
+     */
+    private boolean trySendfile(Resource resource, Region region, HttpServletRequest request) throws IOException {
+        if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR)) || !resource.isFile()
+                || region.count() < SENDFILE_MIN_SIZE) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME_ATTR, resource.getFile().getCanonicalPath());
+        request.setAttribute(SENDFILE_START_ATTR, region.start());
+        request.setAttribute(SENDFILE_END_ATTR, region.start() + region.count());
+        return true;
+    }
+
+    private List<HttpRange> requestedRanges(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !rangeHeader.startsWith(BYTES_UNIT + "=")) {
+            return List.of();
+        }
+        if (!isIfRangeSatisfied(request, etag, lastModified)) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed range header: {}", rangeHeader);
+            return List.of();
+        }
+    }
+
+    /**
+     * If-Range carries either an entity tag or an HTTP date; the range only applies when it still
+     * matches the current representation, otherwise the whole file is sent.
+     */
+    private boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etag != null && !ifRange.startsWith("W/") && ifRange.equals(etag);
+        }
+        try {
+            long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return lastModified >= 0 && lastModified / 1000 == ifRangeDate / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private List<Region> toRegions(List<HttpRange> ranges, long length) {
+        List<Region> regions = new ArrayList<>(ranges.size());
+        for (HttpRange range : ranges) {
+            try {
+                long start = range.getRangeStart(length);
+                long end = range.getRangeEnd(length);
+                if (start <= end) {
+                    regions.add(new Region(start, end - start + 1));
+                }
+            } catch (IllegalArgumentException e) {
+                log.debug("Skipping unsatisfiable range {}", range);
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * Same limit as {@link HttpRange#toResourceRegions}: ranges that together ask for more bytes than the resource
+     * has, like {@code bytes=0-,0-,0-}, must not make the response larger than the resource itself
+     */
+    private long requestedLength(List<Region> regions) {
+        long total = 0;
+        for (Region region : regions) {
+            total += region.count();
+        }
+        return total;
+    }
+
+    /**
+     * Merges overlapping and adjacent regions, so no byte is sent twice, and orders them by position
+     */
+    private List<Region> coalesce(List<Region> regions) {
+        List<Region> sorted = new ArrayList<>(regions);
+        sorted.sort(Comparator.comparingLong(Region::start));
+        List<Region> coalesced = new ArrayList<>(sorted.size());
+        Region current = sorted.get(0);
+        for (Region next : sorted.subList(1, sorted.size())) {
+            long currentEnd = current.start() + current.count();
+            if (next.start() <= currentEnd) {
+                long end = Math.max(currentEnd, next.start() + next.count());
+                current = new Region(current.start(), end - current.start());
+            } else {
+                coalesced.add(current);
+                current = next;
+            }
+        }
+        coalesced.add(current);
+        return coalesced;
+    }
+
+    private void writeRegions(Resource resource, List<Region> regions, MediaType contentType, long length,
+                              String boundary, OutputStream out) throws IOException {
+        if (resource.isFile()) {
+            try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                for (Region region : regions) {
+                    writePartHeader(out, region, contentType, length, boundary);
+                    long position = region.start();
+                    long remaining = region.count();
+                    while (remaining > 0) {
+                        long transferred = channel.transferTo(position, remaining, target);
+                        if (transferred <= 0) {
+                            break;
+                        }
+                        position += transferred;
+                        remaining -= transferred;
+                    }
+                }
+            }
+        } else if (resource instanceof RangedResource rangedResource) {
+            for (Region region : regions) {
+                writePartHeader(out, region, contentType, length, boundary);
+                try (InputStream in = rangedResource.getInputStream(region.start(), region.count())) {
+                    StreamUtils.copy(in, out);
+                }
+            }
+        } else {
+            for (Region region : regions) {
+                writePartHeader(out, region, contentType, length, boundary);
+                try (InputStream in = resource.getInputStream()) {
+                    StreamUtils.copyRange(in, out, region.start(), region.start() + region.count() - 1);
+                }
+            }
+        }
+        if (boundary != null) {
+            out.write(closingDelimiter(boundary));
+        }
+        out.flush();
+    }
+
+    private void writePartHeader(OutputStream out, Region region, MediaType contentType, long length, String boundary) throws IOException {
+        if (boundary != null) {
+            out.write(partHeader(region, contentType, length, boundary));
+        }
+    }
+
+    private long multipartLength(List<Region> regions, MediaType contentType, long length, String boundary) {
+        long total = closingDelimiter(boundary).length;
+        for (Region region : regions) {
+            total += partHeader(region, contentType, length, boundary).length + region.count();
+        }
+        return total;
+    }
+
+    private byte[] partHeader(Region region, MediaType contentType, long length, String boundary) {
+        String header = CRLF + "--" + boundary + CRLF +
+                HttpHeaders.CONTENT_TYPE + ": " + contentType + CRLF +
+                HttpHeaders.CONTENT_RANGE + ": " + contentRange(region, length) + CRLF +
+                CRLF;
+        return header.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] closingDelimiter(String boundary) {
+        return (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private String contentRange(Region region, long length) {
+        return BYTES_UNIT + " " + region.start() + "-" + (region.start() + region.count() - 1) + "/" + length;
+    }
+
+    /**
+     * Throughput is recorded per download, so slow clients show up in its distribution and not only in an average
+     */
+    private void recordDownload(String type, long bytes, long startNanos) {
+        long durationNanos = System.nanoTime() - startNanos;
+        Timer.builder("movie.download.duration")
+                .description("Time spent writing movie data to the response")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        recordBytes(type, bytes);
+        if (durationNanos > 0) {
+            DistributionSummary.builder("movie.download.throughput")
+                    .description("Transfer rate of a single download")
+                    .baseUnit("bytes_per_second")
+                    .tag("type", type)
+                    .register(meterRegistry)
+                    .record(bytes * 1e9 / durationNanos);
+        }
+    }
+
+    /**
+     * Sendfile transfers run after the request completes, only their size is recorded
+     */
+    private void recordBytes(String type, long bytes) {
+        DistributionSummary.builder("movie.download.bytes")
+                .description("Bytes of movie data written to the response")
+                .baseUnit("bytes")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * Resources without a modification time, like in-memory ones, report -1
+     */
+    private long lastModified(Resource resource) {
+        try {
+            long lastModified = resource.lastModified();
+            return lastModified > 0 ? lastModified : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private record Region(long start, long count) {}
+}
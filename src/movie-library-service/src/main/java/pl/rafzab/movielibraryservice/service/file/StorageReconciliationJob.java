@@ -0,0 +1,159 @@
+package pl.rafzab.movielibraryservice.service.file;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.rafzab.movielibraryservice.repository.StorageReconciliationRepository;
+import pl.rafzab.movielibraryservice.service.file.storage.StorageBackend;
+import pl.rafzab.movielibraryservice.service.file.storage.StorageBackend.StoredObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Deletes files no movie, content or upload session refers to: staged uploads of failed requests, files
+ * replaced before they were released and content whose cleanup after commit did not happen.
+ * <p>
+ * The paths referenced in the database and the files of the storage backend are both streamed in locator order
+ * and merged, so neither side is held in memory. Files younger than the grace period are kept, they may belong
+ * to an upload that is not committed yet. Content files are deleted through {@link ContentStore}, under the lock
+ * uploads of the same content take.
+ */
+@Slf4j
+@Service
+public class StorageReconciliationJob {
+    private final StorageBackend storageBackend;
+    private final StorageReconciliationRepository reconciliationRepository;
+    private final ContentStore contentStore;
+    private final FileStorageService fileStorageService;
+    private final StorageReconciliationProperties properties;
+    private final TransactionTemplate readTransaction;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter deletedFiles;
+    private final Counter retainedFiles;
+    private final Counter reclaimedBytes;
+    private final Timer runTimer;
+
+    public StorageReconciliationJob(StorageBackend storageBackend, StorageReconciliationRepository reconciliationRepository,
+                                    ContentStore contentStore, FileStorageService fileStorageService,
+                                    StorageReconciliationProperties properties, PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry) {
+        this.storageBackend = storageBackend;
+        this.reconciliationRepository = reconciliationRepository;
+        this.contentStore = contentStore;
+        this.fileStorageService = fileStorageService;
+        this.properties = properties;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.deletedFiles = meterRegistry.counter("storage.reconciliation.orphans", "result", "deleted");
+        this.retainedFiles = meterRegistry.counter("storage.reconciliation.orphans", "result", "retained");
+        this.reclaimedBytes = Counter.builder("storage.reconciliation.reclaimed")
+                .description("Bytes of orphaned files deleted by the storage reconciliation")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.runTimer = meterRegistry.timer("storage.reconciliation.duration");
+    }
+
+    @Scheduled(cron = "${app.storage.reconciliation.cron}")
+    public void reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Storage reconciliation is already running");
+            return;
+        }
+        try {
+            runTimer.record(this::run);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void run() {
+        var unreferenced = reconciliationRepository.findUnreferencedChecksums();
+        unreferenced.forEach(contentStore::deleteIfUnreferenced);
+
+        var cutoff = Instant.now().minus(properties.getGracePeriod());
+        var result = readTransaction.execute(status -> {
+            try (Stream<String> referencedPaths = reconciliationRepository.streamReferencedPaths(properties.getFetchSize());
+                 Stream<StoredObject> storedObjects = storageBackend.list()) {
+                return merge(referencedPaths.iterator(), storedObjects.iterator(), cutoff);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("Storage reconciliation finished: {} unreferenced contents, {} files checked, {} orphans deleted, " +
+                        "{} bytes reclaimed, {} orphans retained{}", unreferenced.size(), result.getChecked(), result.getDeleted(),
+                result.getReclaimedBytes(), result.getRetained(), properties.isDryRun() ? " (dry run)" : "");
+    }
+
+    /**
+     * Both sides must be in locator order, a side found out of order stops the run
+     */
+    private Result merge(Iterator<String> referencedPaths, Iterator<StoredObject> storedObjects, Instant cutoff) {
+        var result = new Result();
+        String referenced = null;
+        String previousLocator = null;
+        while (storedObjects.hasNext()) {
+            var object = storedObjects.next();
+            checkOrder(previousLocator, object.locator(), "storage files");
+            previousLocator = object.locator();
+            result.checked++;
+
+            while ((referenced == null || StorageBackend.compareLocators(referenced, object.locator()) < 0)
+                    && referencedPaths.hasNext()) {
+                var next = referencedPaths.next();
+                checkOrder(referenced, next, "referenced paths");
+                referenced = next;
+            }
+            if (object.locator().equals(referenced)) {
+                continue;
+            }
+            if (properties.isDryRun() || object.lastModified().isAfter(cutoff)) {
+                log.debug("Orphaned file retained: {}", object.locator());
+                result.retained++;
+                retainedFiles.increment();
+            } else if (delete(object)) {
+                log.debug("Orphaned file deleted: {}, {} bytes", object.locator(), object.size());
+                result.deleted++;
+                result.reclaimedBytes += object.size();
+                deletedFiles.increment();
+                reclaimedBytes.increment(object.size());
+            }
+        }
+        return result;
+    }
+
+    private boolean delete(StoredObject object) {
+        var checksum = ContentStore.checksumOf(object.locator());
+        if (checksum.isPresent()) {
+            return contentStore.deleteOrphan(checksum.get(), object.locator(), object.size());
+        }
+        fileStorageService.deleteQuietly(object.locator());
+        return true;
+    }
+
+    private void checkOrder(String previous, String next, String side) {
+        if (previous != null && StorageBackend.compareLocators(previous, next) > 0) {
+            throw new IllegalStateException("Storage reconciliation stopped, " + side + " are not sorted: "
+                    + previous + " before " + next);
+        }
+    }
+
+    @Getter
+    private static class Result {
+        private long checked;
+        private long deleted;
+        private long retained;
+        private long reclaimedBytes;
+    }
+}
@@ -0,0 +1,34 @@
+package pl.rafzab.movielibraryservice.service.file;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.storage.reconciliation")
+public class StorageReconciliationProperties {
+    /**
+     * Minimal age of an unreferenced file before it is deleted, keeps uploads that are still being stored
+     */
+    @NotNull
+    private Duration gracePeriod;
+
+    /**
+     * Number of referenced paths fetched from the database at a time
+     */
+    @NotNull
+    @Positive
+    private Integer fetchSize;
+
+    /**
+     * Only counts and logs orphaned files without deleting them
+     */
+    private boolean dryRun;
+}
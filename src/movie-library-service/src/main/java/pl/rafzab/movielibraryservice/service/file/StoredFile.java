@@ -0,0 +1,7 @@
+package pl.rafzab.movielibraryservice.service.file;
+
+/**
+ * File written to the upload directory together with its original name and the size and SHA-256 checksum
+ * computed while it was being streamed
+ */
+public record StoredFile(String filePath, String fileName, long size, String checksum) {}
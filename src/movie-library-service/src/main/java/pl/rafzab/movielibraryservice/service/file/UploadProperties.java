@@ -1,11 +1,15 @@
 package pl.rafzab.movielibraryservice.service.file;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+
 @Data
 @Validated
 @Configuration
@@ -13,4 +17,15 @@ import org.springframework.validation.annotation.Validated;
 public class UploadProperties {
     @NotBlank
     private String directory;
+
+    @NotNull
+    @Positive
+    private Long maxFileSize;
+
+    @NotNull
+    @Positive
+    private Long chunkSize;
+
+    @NotNull
+    private Duration sessionTtl;
 }
@@ -0,0 +1,125 @@
+package pl.rafzab.movielibraryservice.service.file.storage;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+final class LocalFiles {
+
+    private LocalFiles() {
+    }
+
+    /**
+     * Content-addressed files are named by their checksum, the resource reports the original file name instead,
+     * which is used for the download file name and content type
+     */
+    static Resource load(Path path, String fileName) throws NoSuchFileException {
+        if (!Files.exists(path)) {
+            throw new NoSuchFileException(path.toString());
+        }
+        if (fileName == null) {
+            return new FileSystemResource(path);
+        }
+        return new FileSystemResource(path) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+        };
+    }
+
+    /**
+     * Walks the directories depth first, listing one directory at a time. Entries of a directory are visited
+     * in locator order of their names, directories with a trailing separator, which yields regular files
+     * ordered by their full path.
+     */
+    static Stream<StorageBackend.StoredObject> walkSorted(List<Path> roots) {
+        var iterator = new Iterator<StorageBackend.StoredObject>() {
+            private final Deque<Iterator<Entry>> directories = new ArrayDeque<>(List.of(sorted(roots.stream()
+                    .filter(Files::isDirectory)
+                    .map(root -> new Entry(root, root + root.getFileSystem().getSeparator(), null))
+                    .toList()).iterator()));
+            private StorageBackend.StoredObject next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && !directories.isEmpty()) {
+                    var entries = directories.peek();
+                    if (!entries.hasNext()) {
+                        directories.pop();
+                        continue;
+                    }
+                    var entry = entries.next();
+                    if (entry.attributes() == null || entry.attributes().isDirectory()) {
+                        directories.push(list(entry.path()).iterator());
+                    } else if (entry.attributes().isRegularFile()) {
+                        next = new StorageBackend.StoredObject(entry.path().toString(), entry.attributes().size(),
+                                entry.attributes().lastModifiedTime().toInstant());
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public StorageBackend.StoredObject next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var object = next;
+                next = null;
+                return object;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private static List<Entry> list(Path directory) {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return sorted(paths.map(path -> {
+                try {
+                    var attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    var name = path.getFileName().toString();
+                    return new Entry(path, attributes.isDirectory() ? name + path.getFileSystem().getSeparator() : name, attributes);
+                } catch (NoSuchFileException e) {
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).filter(Objects::nonNull).toList());
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Entry> sorted(List<Entry> entries) {
+        return entries.stream()
+                .sorted(Comparator.comparing(Entry::sortKey, StorageBackend::compareLocators))
+                .toList();
+    }
+
+    /**
+     * @param attributes {@code null} for the walked roots
+     */
+    private record Entry(Path path, String sortKey, BasicFileAttributes attributes) {
+    }
+}
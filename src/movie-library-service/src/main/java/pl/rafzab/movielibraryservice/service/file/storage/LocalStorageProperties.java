@@ -0,0 +1,30 @@
+package pl.rafzab.movielibraryservice.service.file.storage;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.storage.local")
+public class LocalStorageProperties {
+    /**
+     * Directories files are striped over, ideally one per disk. The upload directory is used when empty.
+     */
+    @NotNull
+    private List<String> volumes = new ArrayList<>();
+
+    /**
+     * Free space a volume keeps, no new upload is placed on a volume below it
+     */
+    @NotNull
+    @PositiveOrZero
+    private Long minFreeSpaceBytes;
+}
@@ -0,0 +1,14 @@
+package pl.rafzab.movielibraryservice.service.file.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Resource that can be read from an offset without transferring the bytes before it
+ */
+public interface RangedResource extends Resource {
+
+    InputStream getInputStream(long start, long count) throws IOException;
+}
@@ -0,0 +1,81 @@
+package pl.rafzab.movielibraryservice.service.file.storage;
+
+import org.springframework.core.io.AbstractResource;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Object that was present when it was loaded, its length and modification time come from that HEAD request.
+ * Every read is a GET of just the requested bytes.
+ */
+class S3ObjectResource extends AbstractResource implements RangedResource {
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String key;
+    private final String fileName;
+    private final long contentLength;
+    private final long lastModified;
+
+    S3ObjectResource(S3Client s3Client, String bucket, String key, String fileName, long contentLength, long lastModified) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.key = key;
+        this.fileName = fileName;
+        this.contentLength = contentLength;
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return get(GetObjectRequest.builder().bucket(bucket).key(key).build());
+    }
+
+    @Override
+    public InputStream getInputStream(long start, long count) throws IOException {
+        if (count <= 0) {
+            return InputStream.nullInputStream();
+        }
+        return get(GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range("bytes=" + start + "-" + (start + count - 1))
+                .build());
+    }
+
+    private InputStream get(GetObjectRequest request) throws IOException {
+        try {
+            return s3Client.getObject(request);
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + getDescription(), e);
+        }
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public String getFilename() {
+        return fileName != null ? fileName : key.substring(key.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public String getDescription() {
+        return "S3 object [s3://" + bucket + "/" + key + "]";
+    }
+}
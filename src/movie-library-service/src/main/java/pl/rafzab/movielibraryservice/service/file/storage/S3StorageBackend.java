@@ -0,0 +1,142 @@
+package pl.rafzab.movielibraryservice.service.file.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Keeps movie files in an S3-compatible object store under {@code s3://<bucket>/<key prefix><key>} locators.
+ * Uploads are staged in the upload directory and sent to the store in a single request.
+ */
+@Slf4j
+public class S3StorageBackend implements StorageBackend {
+    static final String SCHEME = "s3://";
+
+    private final S3Client s3Client;
+    private final S3StorageProperties s3StorageProperties;
+    private final UploadProperties uploadProperties;
+
+    public S3StorageBackend(S3Client s3Client, S3StorageProperties s3StorageProperties, UploadProperties uploadProperties) {
+        this.s3Client = s3Client;
+        this.s3StorageProperties = s3StorageProperties;
+        this.uploadProperties = uploadProperties;
+    }
+
+    @Override
+    public Staging stage(long expectedSize) throws IOException {
+        var directory = Files.createDirectories(Paths.get(uploadProperties.getDirectory()));
+        return new Staging() {
+            @Override
+            public Path directory() {
+                return directory;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public String locate(String key, Path stagedFile) {
+        return SCHEME + s3StorageProperties.getBucket() + "/" + s3StorageProperties.getKeyPrefix() + key;
+    }
+
+    @Override
+    public void put(String locator, Path stagedFile) throws IOException {
+        var object = ObjectLocation.parse(locator);
+        try {
+            s3Client.putObject(builder -> builder.bucket(object.bucket()).key(object.key()), RequestBody.fromFile(stagedFile));
+        } catch (SdkException e) {
+            throw new IOException("Could not store " + locator, e);
+        }
+        Files.delete(stagedFile);
+        log.debug("Staged file {} stored as {}", stagedFile, locator);
+    }
+
+    @Override
+    public boolean exists(String locator) throws IOException {
+        if (!locator.startsWith(SCHEME)) {
+            return Files.exists(Paths.get(locator));
+        }
+        return head(ObjectLocation.parse(locator)).isPresent();
+    }
+
+    @Override
+    public Resource load(String locator, String fileName) throws IOException {
+        if (!locator.startsWith(SCHEME)) {
+            return LocalFiles.load(Paths.get(locator), fileName);
+        }
+        var object = ObjectLocation.parse(locator);
+        var head = head(object).orElseThrow(() -> new NoSuchFileException(locator));
+        long lastModified = head.lastModified() != null ? head.lastModified().toEpochMilli() : 0;
+        return new S3ObjectResource(s3Client, object.bucket(), object.key(), fileName, head.contentLength(), lastModified);
+    }
+
+    @Override
+    public void delete(String locator) throws IOException {
+        if (!locator.startsWith(SCHEME)) {
+            Files.deleteIfExists(Paths.get(locator));
+            return;
+        }
+        var object = ObjectLocation.parse(locator);
+        try {
+            s3Client.deleteObject(builder -> builder.bucket(object.bucket()).key(object.key()));
+        } catch (SdkException e) {
+            throw new IOException("Could not delete " + locator, e);
+        }
+    }
+
+    /**
+     * Files staged in the upload directory come first, their paths sort before any {@code s3://} locator
+     */
+    @Override
+    public Stream<StoredObject> list() {
+        var bucket = s3StorageProperties.getBucket();
+        var objects = s3Client.listObjectsV2Paginator(builder -> builder.bucket(bucket).prefix(s3StorageProperties.getKeyPrefix()))
+                .contents()
+                .stream()
+                .map(object -> new StoredObject(SCHEME + bucket + "/" + object.key(), object.size(), object.lastModified()));
+        return Stream.concat(LocalFiles.walkSorted(List.of(Paths.get(uploadProperties.getDirectory()).toAbsolutePath())), objects);
+    }
+
+    private Optional<HeadObjectResponse> head(ObjectLocation object) throws IOException {
+        try {
+            return Optional.of(s3Client.headObject(builder -> builder.bucket(object.bucket()).key(object.key())));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Could not read s3://" + object.bucket() + "/" + object.key(), e);
+        } catch (SdkException e) {
+            throw new IOException("Could not read s3://" + object.bucket() + "/" + object.key(), e);
+        }
+    }
+
+    private record ObjectLocation(String bucket, String key) {
+        static ObjectLocation parse(String locator) {
+            int separator = locator.indexOf('/', SCHEME.length());
+            if (!locator.startsWith(SCHEME) || separator < 0) {
+                throw new IllegalArgumentException("Not an S3 locator: " + locator);
+            }
+            return new ObjectLocation(locator.substring(SCHEME.length(), separator), locator.substring(separator + 1));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package pl.rafzab.movielibraryservice.service.file.storage;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Only read when {@code app.storage.type} is {@code s3}, required values are checked when the client is created
+ */
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.storage.s3")
+public class S3StorageProperties {
+    /**
+     * Endpoint of an S3-compatible store, e.g. a local MinIO. AWS endpoints are resolved from the region when empty.
+     */
+    private String endpoint;
+
+    private String region;
+
+    private String bucket;
+
+    /**
+     * Prepended to every object key, lets several environments share a bucket
+     */
+    private String keyPrefix = "";
+
+    /**
+     * Credentials of the default AWS provider chain are used when empty
+     */
+    private String accessKey;
+
+    private String secretKey;
+
+    /**
+     * Most S3-compatible stores address buckets by path instead of by host name
+     */
+    private boolean pathStyleAccess;
+}
@@ -0,0 +1,80 @@
+package pl.rafzab.movielibraryservice.service.file.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Where movie files live. Uploads are always written to a local staging directory first, so size and checksum
+ * are known before a file is handed to the backend under its key.
+ * <p>
+ * A backend addresses its files by a locator, which is what gets stored in the database. Locators that the
+ * backend did not create are plain file system paths of files stored before it was configured and are still
+ * loaded and deleted from the local file system.
+ */
+public interface StorageBackend {
+
+    /**
+     * Picks the local directory an upload of {@code expectedSize} bytes (negative when unknown) is written to.
+     * The directory counts as busy until the returned staging is closed.
+     */
+    Staging stage(long expectedSize) throws IOException;
+
+    /**
+     * Returns the locator a staged file is going to be stored under, nothing is written yet
+     */
+    String locate(String key, Path stagedFile) throws IOException;
+
+    /**
+     * Stores the staged file under the locator, the staged file is gone afterwards
+     */
+    void put(String locator, Path stagedFile) throws IOException;
+
+    boolean exists(String locator) throws IOException;
+
+    /**
+     * @param fileName name reported by the resource, the last path segment is used when {@code null}
+     * @throws java.nio.file.NoSuchFileException when nothing is stored under the locator
+     */
+    Resource load(String locator, String fileName) throws IOException;
+
+    void delete(String locator) throws IOException;
+
+    /**
+     * Streams every stored and staged file in {@link #compareLocators} order, reading one directory or page
+     * of the store at a time. The stream has to be closed.
+     */
+    Stream<StoredObject> list() throws IOException;
+
+    /**
+     * Orders locators by code point, which is the byte order of their UTF-8 encoding and so the order of
+     * {@code COLLATE "C"} in PostgreSQL
+     */
+    static int compareLocators(String first, String second) {
+        int firstIndex = 0;
+        int secondIndex = 0;
+        while (firstIndex < first.length() && secondIndex < second.length()) {
+            int firstCodePoint = first.codePointAt(firstIndex);
+            int secondCodePoint = second.codePointAt(secondIndex);
+            if (firstCodePoint != secondCodePoint) {
+                return Integer.compare(firstCodePoint, secondCodePoint);
+            }
+            firstIndex += Character.charCount(firstCodePoint);
+            secondIndex += Character.charCount(secondCodePoint);
+        }
+        return Integer.compare(first.length() - firstIndex, second.length() - secondIndex);
+    }
+
+    record StoredObject(String locator, long size, Instant lastModified) {
+    }
+
+    interface Staging extends AutoCloseable {
+        Path directory();
+
+        @Override
+        void close();
+    }
+}
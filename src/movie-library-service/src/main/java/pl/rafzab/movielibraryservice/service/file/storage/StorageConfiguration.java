@@ -0,0 +1,60 @@
+package pl.rafzab.movielibraryservice.service.file.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.core.checksums.ResponseChecksumValidation;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.net.URI;
+
+@Configuration
+public class StorageConfiguration {
+    private static final String TYPE_PROPERTY = "app.storage.type";
+
+    @Bean
+    @ConditionalOnProperty(name = TYPE_PROPERTY, havingValue = "local", matchIfMissing = true)
+    public StorageBackend localStorageBackend(LocalStorageProperties localStorageProperties,
+                                              UploadProperties uploadProperties, MeterRegistry meterRegistry) {
+        return new StripedLocalStorageBackend(localStorageProperties, uploadProperties, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = TYPE_PROPERTY, havingValue = "s3")
+    public StorageBackend s3StorageBackend(S3Client storageS3Client, S3StorageProperties s3StorageProperties,
+                                           UploadProperties uploadProperties) {
+        return new S3StorageBackend(storageS3Client, s3StorageProperties, uploadProperties);
+    }
+
+    /**
+     * Checksums are only sent and validated where the API requires them, which S3-compatible stores understand
+     */
+    @Bean
+    @ConditionalOnProperty(name = TYPE_PROPERTY, havingValue = "s3")
+    public S3Client storageS3Client(S3StorageProperties properties) {
+        Assert.hasText(properties.getRegion(), "app.storage.s3.region must be set");
+        Assert.hasText(properties.getBucket(), "app.storage.s3.bucket must be set");
+
+        var builder = S3Client.builder()
+                .region(Region.of(properties.getRegion()))
+                .forcePathStyle(properties.isPathStyleAccess())
+                .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+                .responseChecksumValidation(ResponseChecksumValidation.WHEN_REQUIRED);
+        if (StringUtils.hasText(properties.getEndpoint())) {
+            builder.endpointOverride(URI.create(properties.getEndpoint()));
+        }
+        if (StringUtils.hasText(properties.getAccessKey())) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(properties.getAccessKey(), properties.getSecretKey())));
+        }
+        return builder.build();
+    }
+}
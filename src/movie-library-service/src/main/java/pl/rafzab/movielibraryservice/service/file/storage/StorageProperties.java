@@ -0,0 +1,28 @@
+package pl.rafzab.movielibraryservice.service.file.storage;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+import pl.rafzab.movielibraryservice.enums.StorageType;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.storage")
+public class StorageProperties {
+    @NotNull
+    private StorageType type;
+
+    /**
+     * Number of directory levels, named by two hex digits of the checksum each, above a stored file.
+     * Two levels spread files over 65536 directories.
+     */
+    @NotNull
+    @Min(0)
+    @Max(8)
+    private Integer fanOutLevels;
+}
@@ -0,0 +1,154 @@
+package pl.rafzab.movielibraryservice.service.file.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Stripes files over local volumes. Every upload is staged on the volume with the best ratio of usable space
+ * to uploads currently being written to it, and stays on that volume, so storing it is a rename and
+ * concurrent uploads spread over all disks. Volumes below the configured free space take no new uploads.
+ */
+@Slf4j
+public class StripedLocalStorageBackend implements StorageBackend {
+    private static final String PART_SUFFIX = ".part";
+
+    private final LocalStorageProperties localStorageProperties;
+    private final UploadProperties uploadProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<Path, AtomicInteger> activeWrites = new ConcurrentHashMap<>();
+
+    public StripedLocalStorageBackend(LocalStorageProperties localStorageProperties, UploadProperties uploadProperties,
+                                      MeterRegistry meterRegistry) {
+        this.localStorageProperties = localStorageProperties;
+        this.uploadProperties = uploadProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Staging stage(long expectedSize) throws IOException {
+        var volume = chooseVolume(expectedSize);
+        var writes = activeWrites(volume);
+        writes.incrementAndGet();
+        return new Staging() {
+            @Override
+            public Path directory() {
+                return volume;
+            }
+
+            @Override
+            public void close() {
+                writes.decrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Keeps the file on the volume it was staged on, files staged elsewhere are placed like a new upload
+     */
+    @Override
+    public String locate(String key, Path stagedFile) throws IOException {
+        var staged = stagedFile.toAbsolutePath().normalize();
+        var volume = volumes().stream()
+                .filter(staged::startsWith)
+                .max(Comparator.comparingInt(Path::getNameCount))
+                .orElse(null);
+        if (volume == null) {
+            volume = chooseVolume(Files.size(staged));
+        }
+        return volume.resolve(key).toString();
+    }
+
+    @Override
+    public void put(String locator, Path stagedFile) throws IOException {
+        var target = Paths.get(locator);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(stagedFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            var part = target.resolveSibling(target.getFileName() + PART_SUFFIX);
+            Files.copy(stagedFile, part, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(stagedFile);
+            log.debug("Staged file {} copied across volumes to {}", stagedFile, target);
+        }
+    }
+
+    @Override
+    public boolean exists(String locator) {
+        return Files.exists(Paths.get(locator));
+    }
+
+    @Override
+    public Resource load(String locator, String fileName) throws IOException {
+        return LocalFiles.load(Paths.get(locator), fileName);
+    }
+
+    @Override
+    public void delete(String locator) throws IOException {
+        Files.deleteIfExists(Paths.get(locator));
+    }
+
+    @Override
+    public Stream<StoredObject> list() {
+        return LocalFiles.walkSorted(volumes());
+    }
+
+    Path chooseVolume(long expectedSize) throws IOException {
+        long required = Math.max(expectedSize, 0) + localStorageProperties.getMinFreeSpaceBytes();
+        Path chosen = null;
+        double chosenScore = -1;
+        for (Path volume : volumes()) {
+            Files.createDirectories(volume);
+            long usableSpace = Files.getFileStore(volume).getUsableSpace();
+            if (usableSpace < required) {
+                continue;
+            }
+            double score = (double) usableSpace / (activeWrites(volume).get() + 1);
+            if (score > chosenScore) {
+                chosen = volume;
+                chosenScore = score;
+            }
+        }
+        if (chosen == null) {
+            throw new IOException("No storage volume has " + required + " bytes of usable space");
+        }
+        return chosen;
+    }
+
+    private List<Path> volumes() {
+        var volumes = localStorageProperties.getVolumes();
+        if (volumes.isEmpty()) {
+            volumes = List.of(uploadProperties.getDirectory());
+        }
+        return volumes.stream()
+                .map(volume -> Paths.get(volume).toAbsolutePath().normalize())
+                .toList();
+    }
+
+    private AtomicInteger activeWrites(Path volume) {
+        return activeWrites.computeIfAbsent(volume, key -> {
+            var writes = new AtomicInteger();
+            Gauge.builder("storage.volume.active.writes", writes, AtomicInteger::get)
+                    .description("Uploads currently being written to a storage volume")
+                    .tag("volume", key.toString())
+                    .register(meterRegistry);
+            return writes;
+        });
+    }
+}
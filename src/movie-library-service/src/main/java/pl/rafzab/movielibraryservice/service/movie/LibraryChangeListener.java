@@ -0,0 +1,95 @@
+package pl.rafzab.movielibraryservice.service.movie;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Listens on the {@code movie_library_changed} channel the library version trigger notifies (V0016) and drops
+ * the cached listings of every changed library, including changes made by other instances and by statements
+ * that bypass {@link MovieService}. Uses its own connection, a pooled one would stay taken for good.
+ * Notifications sent while the connection is down are lost, so the whole cache is dropped on every (re)connect.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.movie.listing-cache.enabled", havingValue = "true")
+public class LibraryChangeListener {
+    static final String CHANNEL = "movie_library_changed";
+    private static final int POLL_TIMEOUT_MS = 1000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final MovieListingCacheProperties properties;
+    private final MovieListingCache movieListingCache;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public LibraryChangeListener(DataSourceProperties dataSourceProperties, MovieListingCacheProperties properties,
+                                 MovieListingCache movieListingCache) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.properties = properties;
+        this.movieListingCache = movieListingCache;
+        this.thread = Thread.ofPlatform()
+                .name("library-change-listener")
+                .daemon()
+                .start(this::run);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join(POLL_TIMEOUT_MS * 2L);
+    }
+
+    private void run() {
+        while (running) {
+            try (var connection = connect()) {
+                try (var statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                movieListingCache.evictAll();
+                log.info("Listening for library changes on channel: {}", CHANNEL);
+                listen(connection.unwrap(PGConnection.class));
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Listening for library changes failed, retrying in {}: {}", properties.getReconnectDelay(), e.getMessage());
+                try {
+                    Thread.sleep(properties.getReconnectDelay());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void listen(PGConnection connection) throws SQLException {
+        while (running) {
+            var notifications = connection.getNotifications(POLL_TIMEOUT_MS);
+            if (notifications == null) {
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                try {
+                    movieListingCache.evictUser(Long.valueOf(notification.getParameter()));
+                } catch (NumberFormatException e) {
+                    log.warn("Unexpected library change notification: {}", notification.getParameter());
+                }
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+    }
+}
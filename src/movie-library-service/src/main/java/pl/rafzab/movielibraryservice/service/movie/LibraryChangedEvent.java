@@ -0,0 +1,7 @@
+package pl.rafzab.movielibraryservice.service.movie;
+
+/**
+ * Published when movies of the user were saved or changed, once the transaction commits the cached
+ * listings of the user are dropped on this instance. Other instances learn about it from the database.
+ */
+public record LibraryChangedEvent(Long userId) {}
@@ -0,0 +1,21 @@
+package pl.rafzab.movielibraryservice.service.movie;
+
+import org.springframework.data.domain.Sort;
+import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+import pl.rafzab.movielibraryservice.enums.PaginationMode;
+
+/**
+ * Parameters that decide the content of a listing page, parameters a mode ignores are left out
+ */
+public record ListingQuery(PaginationMode mode, int page, String cursor, int limit, MovieFieldSort sortBy,
+                           Sort.Direction direction, boolean count) {
+
+    public static ListingQuery offset(int page, int limit, MovieFieldSort sortBy, Sort.Direction direction) {
+        return new ListingQuery(PaginationMode.OFFSET, page, null, limit, sortBy, direction, true);
+    }
+
+    public static ListingQuery cursor(String cursor, int limit, MovieFieldSort sortBy, Sort.Direction direction,
+                                      boolean count) {
+        return new ListingQuery(PaginationMode.CURSOR, 0, cursor, limit, sortBy, direction, count);
+    }
+}
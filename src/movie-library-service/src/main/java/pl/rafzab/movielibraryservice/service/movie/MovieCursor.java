@@ -0,0 +1,81 @@
+package pl.rafzab.movielibraryservice.service.movie;
+
+import org.springframework.data.domain.Sort;
+import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+import pl.rafzab.movielibraryservice.exception.BadRequestException;
+import pl.rafzab.movielibraryservice.repository.MovieListingRow;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Continuation token of the keyset movie listing: sort, direction and the sort key values of the last
+ * returned movie, encoded as URL-safe Base64 so clients treat it as opaque.
+ */
+record MovieCursor(MovieFieldSort sortBy, Sort.Direction direction, Map<String, Object> keys) {
+    static final String TIEBREAKER = "movieId";
+    private static final String SEPARATOR = ";";
+
+    static MovieCursor after(MovieFieldSort sortBy, Sort.Direction direction, MovieListingRow row) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (String field : sortBy.getValues()) {
+            keys.put(field, switch (field) {
+                case "ranking" -> row.ranking();
+                case "size" -> row.size();
+                default -> throw new IllegalStateException("Unsupported sort field: " + field);
+            });
+        }
+        keys.put(TIEBREAKER, row.movieId());
+        return new MovieCursor(sortBy, direction, keys);
+    }
+
+    String encode() {
+        var values = keys.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+        var plain = sortBy.name() + SEPARATOR + direction.name() + SEPARATOR + values;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MovieCursor decode(String token) {
+        try {
+            var parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Unexpected number of cursor parts");
+            }
+            var sortBy = MovieFieldSort.valueOf(parts[0]);
+            var direction = Sort.Direction.valueOf(parts[1]);
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (String pair : parts[2].split(",")) {
+                var keyValue = pair.split("=", 2);
+                keys.put(keyValue[0], parseKey(keyValue[0], keyValue[1]));
+            }
+            if (!keys.keySet().equals(expectedKeys(sortBy))) {
+                throw new IllegalArgumentException("Cursor keys do not match sort");
+            }
+            return new MovieCursor(sortBy, direction, keys);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private static Object parseKey(String name, String value) {
+        return switch (name) {
+            case "ranking" -> Integer.valueOf(value);
+            case "size", TIEBREAKER -> Long.valueOf(value);
+            default -> throw new IllegalArgumentException("Unknown cursor key: " + name);
+        };
+    }
+
+    private static Set<String> expectedKeys(MovieFieldSort sortBy) {
+        var keys = Arrays.stream(sortBy.getValues()).collect(Collectors.toSet());
+        keys.add(TIEBREAKER);
+        return keys;
+    }
+}
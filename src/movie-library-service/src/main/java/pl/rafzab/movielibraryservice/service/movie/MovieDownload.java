@@ -0,0 +1,9 @@
+package pl.rafzab.movielibraryservice.service.movie;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * @param entityTag strong entity tag of the file, {@code null} when none can be derived
+ */
+public record MovieDownload(Resource file, String entityTag) {
+}
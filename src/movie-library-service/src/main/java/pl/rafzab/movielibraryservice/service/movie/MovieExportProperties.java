@@ -0,0 +1,21 @@
+package pl.rafzab.movielibraryservice.service.movie;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.movie.export")
+public class MovieExportProperties {
+    /**
+     * Number of rows fetched from the database at a time while an export streams
+     */
+    @NotNull
+    @Positive
+    private Integer fetchSize;
+}
@@ -0,0 +1,125 @@
+package pl.rafzab.movielibraryservice.service.movie;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.enums.ExportFormat;
+import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+import pl.rafzab.movielibraryservice.repository.MovieListingRow;
+import pl.rafzab.movielibraryservice.repository.MovieRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the whole library of a user as NDJSON or CSV. Rows come from a single query read through a database
+ * cursor and are written as they arrive, so memory use does not depend on the size of the library.
+ */
+@Slf4j
+@Service
+public class MovieExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "movieId,title,director,yearOfProduction,ranking,rankingStatus,size";
+
+    private final MovieRepository movieRepository;
+    private final MovieExportProperties exportProperties;
+    private final ObjectWriter rowWriter;
+    private final MeterRegistry meterRegistry;
+
+    public MovieExportService(MovieRepository movieRepository, MovieExportProperties exportProperties,
+                              ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.movieRepository = movieRepository;
+        this.exportProperties = exportProperties;
+        this.rowWriter = objectMapper.writerFor(MovieListingRow.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param gzip whether to compress the output, the caller sets the matching Content-Encoding
+     * @return number of exported movies
+     */
+    @Transactional(readOnly = true)
+    public long exportMovies(User user, ExportFormat format, MovieFieldSort sortBy, Sort.Direction direction,
+                             OutputStream output, boolean gzip) throws IOException {
+        log.info("Exporting movies of user: {} as {}", user.getUserId(), format);
+        var sample = Timer.start();
+        long exported;
+        try (var rows = movieRepository.streamListingRows(user, sortBy, direction, exportProperties.getFetchSize())) {
+            var compressed = gzip ? new GZIPOutputStream(output, BUFFER_SIZE) : null;
+            var writer = new BufferedWriter(new OutputStreamWriter(compressed != null ? compressed : output,
+                    StandardCharsets.UTF_8), BUFFER_SIZE);
+            exported = switch (format) {
+                case NDJSON -> writeNdjson(rows.iterator(), writer);
+                case CSV -> writeCsv(rows.iterator(), writer);
+            };
+            writer.flush();
+            if (compressed != null) {
+                compressed.finish();
+            }
+        }
+        meterRegistry.counter("movie.export.rows", "format", format.name()).increment(exported);
+        sample.stop(meterRegistry.timer("movie.export.duration", "format", format.name()));
+        log.info("Exported {} movies of user: {}", exported, user.getUserId());
+        return exported;
+    }
+
+    private long writeNdjson(Iterator<MovieListingRow> rows, Writer writer) throws IOException {
+        long count = 0;
+        while (rows.hasNext()) {
+            writer.write(rowWriter.writeValueAsString(rows.next()));
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<MovieListingRow> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        long count = 0;
+        while (rows.hasNext()) {
+            var row = rows.next();
+            writer.write(String.valueOf(row.movieId()));
+            writer.write(',');
+            writeCsvText(row.title(), writer);
+            writer.write(',');
+            writeCsvText(row.director(), writer);
+            writer.write(',');
+            writer.write(String.valueOf(row.yearOfProduction()));
+            writer.write(',');
+            writer.write(String.valueOf(row.ranking()));
+            writer.write(',');
+            writer.write(row.rankingStatus().name());
+            writer.write(',');
+            writer.write(String.valueOf(row.size()));
+            writer.write("\r\n");
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Quotes the value when it contains a separator, a quote or a line break, quotes inside are doubled
+     */
+    private void writeCsvText(String value, Writer writer) throws IOException {
+        if (value.chars().noneMatch(c -> c == ',' || c == '"' || c == '\r' || c == '\n')) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,35 @@
+package pl.rafzab.movielibraryservice.service.movie;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.movie.import")
+public class MovieImportProperties {
+    /**
+     * Number of uploaded files verified and ranking lookups made at the same time, per import
+     */
+    @NotNull
+    @Positive
+    private Integer parallelism;
+
+    /**
+     * Number of manifest items saved in one transaction, best kept at the JDBC batch size
+     */
+    @NotNull
+    @Positive
+    private Integer batchSize;
+
+    /**
+     * Longest manifest line accepted, in characters, a longer line is skipped and reported as failed
+     */
+    @NotNull
+    @Positive
+    private Integer maxLineLength;
+}
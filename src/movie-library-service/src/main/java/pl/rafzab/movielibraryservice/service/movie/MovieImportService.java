@@ -0,0 +1,318 @@
+package pl.rafzab.movielibraryservice.service.movie;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.rafzab.movielibraryservice.client.DigiKatClient;
+import pl.rafzab.movielibraryservice.dto.request.MovieImportItemDTO;
+import pl.rafzab.movielibraryservice.dto.request.MovieMetadataDTO;
+import pl.rafzab.movielibraryservice.dto.response.MovieImportResultDTO;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.enums.ImportStatus;
+import pl.rafzab.movielibraryservice.exception.BadRequestException;
+import pl.rafzab.movielibraryservice.exception.NotFoundException;
+import pl.rafzab.movielibraryservice.service.ranking.RankingService;
+import pl.rafzab.movielibraryservice.service.upload.ChunkedUploadService;
+import pl.rafzab.movielibraryservice.service.upload.CompletedUpload;
+import pl.rafzab.movielibraryservice.service.upload.StreamedMovieUpload;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Imports movies from an NDJSON manifest, one {@link MovieImportItemDTO} per line referencing a completed chunked
+ * upload. The manifest is read as it streams in and handled in batches: the uploaded files of a batch are verified
+ * and hashed at most {@code parallelism} at a time, each distinct title is looked up in DigiKat once and the batch
+ * is saved in a single transaction with batched inserts, together with the removal of its upload sessions.
+ * A result line per item is written after every batch, in manifest order, so the client sees the progress
+ * of a long import. Uploads of a batch that could not be saved keep their sessions and can be imported again.
+ */
+@Slf4j
+@Service
+public class MovieImportService {
+    private final ChunkedUploadService chunkedUploadService;
+    private final MovieService movieService;
+    private final RankingService rankingService;
+    private final MovieProperties movieProperties;
+    private final MovieImportProperties importProperties;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transaction;
+
+    private final Counter importedItems;
+    private final Counter failedItems;
+    private final Timer batchTimer;
+
+    public MovieImportService(ChunkedUploadService chunkedUploadService, MovieService movieService,
+                              RankingService rankingService, MovieProperties movieProperties,
+                              MovieImportProperties importProperties, ObjectMapper objectMapper, Validator validator,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.chunkedUploadService = chunkedUploadService;
+        this.movieService = movieService;
+        this.rankingService = rankingService;
+        this.movieProperties = movieProperties;
+        this.importProperties = importProperties;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.importedItems = meterRegistry.counter("movie.import.items", "result", "imported");
+        this.failedItems = meterRegistry.counter("movie.import.items", "result", "failed");
+        this.batchTimer = meterRegistry.timer("movie.import.batch");
+    }
+
+    public void importMovies(User user, InputStream manifest, OutputStream results) throws IOException {
+        log.info("Starting movie import for user: {}", user.getUserId());
+        var reader = new BufferedReader(new InputStreamReader(manifest, StandardCharsets.UTF_8));
+        Set<UUID> uploadIds = new HashSet<>();
+        long items = 0;
+        long imported = 0;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(importProperties.getParallelism())) {
+            List<PendingItem> batch = new ArrayList<>(importProperties.getBatchSize());
+            int lineNumber = 0;
+            ManifestLine line;
+            while ((line = readLine(reader)) != null) {
+                lineNumber++;
+                if (line.tooLong()) {
+                    batch.add(PendingItem.failed(lineNumber, null, "Manifest line too long"));
+                } else if (line.text().isBlank()) {
+                    continue;
+                } else {
+                    batch.add(submit(user, lineNumber, line.text(), uploadIds, executor));
+                }
+                items++;
+                if (batch.size() == importProperties.getBatchSize()) {
+                    imported += writeResults(importBatch(user, batch, executor), results);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                imported += writeResults(importBatch(user, batch, executor), results);
+            }
+        }
+        log.info("Movie import finished for user: {}, {} imported, {} failed", user.getUserId(), imported, items - imported);
+    }
+
+    /**
+     * Reads the next manifest line keeping at most {@code maxLineLength} characters of it, the rest of a longer
+     * line is skipped, so a line without a line break is never buffered whole
+     *
+     * @return {@code null} at the end of the manifest
+     */
+    private ManifestLine readLine(Reader reader) throws IOException {
+        var text = new StringBuilder();
+        boolean tooLong = false;
+        int next;
+        while ((next = reader.read()) != -1 && next != '\n') {
+            if (next == '\r') {
+                continue;
+            }
+            if (text.length() < importProperties.getMaxLineLength()) {
+                text.append((char) next);
+            } else {
+                tooLong = true;
+            }
+        }
+        if (next == -1 && text.isEmpty() && !tooLong) {
+            return null;
+        }
+        return new ManifestLine(tooLong ? null : text.toString(), tooLong);
+    }
+
+    /**
+     * Parses and validates a manifest line and starts completing its upload
+     */
+    private PendingItem submit(User user, int lineNumber, String line, Set<UUID> uploadIds, ExecutorService executor) {
+        MovieImportItemDTO item;
+        try {
+            item = objectMapper.readValue(line, MovieImportItemDTO.class);
+        } catch (JsonProcessingException e) {
+            return PendingItem.failed(lineNumber, null, "Malformed manifest line");
+        }
+        var violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            return PendingItem.failed(lineNumber, item.uploadId(), violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        if (!uploadIds.add(item.uploadId())) {
+            return PendingItem.failed(lineNumber, item.uploadId(), "Upload is referenced by an earlier line");
+        }
+        var upload = executor.submit(() -> chunkedUploadService.completeFile(user, item.uploadId()));
+        return new PendingItem(lineNumber, item.uploadId(), item.metadata(), upload, null);
+    }
+
+    private List<MovieImportResultDTO> importBatch(User user, List<PendingItem> batch, ExecutorService executor) {
+        var sample = Timer.start();
+        var results = new MovieImportResultDTO[batch.size()];
+        var staged = new ArrayList<StagedItem>(batch.size());
+
+        for (int index = 0; index < batch.size(); index++) {
+            var item = batch.get(index);
+            if (item.error() != null) {
+                results[index] = MovieImportResultDTO.failed(item.line(), item.uploadId(), item.error());
+                continue;
+            }
+            try {
+                staged.add(new StagedItem(index, item, awaitUpload(item)));
+            } catch (BadRequestException e) {
+                results[index] = MovieImportResultDTO.failed(item.line(), item.uploadId(), e.getMessage());
+            }
+        }
+
+        if (!staged.isEmpty()) {
+            var rankings = lookupRankings(staged.stream().map(StagedItem::movieUpload).toList(), executor);
+            try {
+                transaction.executeWithoutResult(status -> saveBatch(user, staged, rankings, results));
+            } catch (RuntimeException e) {
+                log.warn("Movie import batch of user: {} could not be saved: {}", user.getUserId(), e.getMessage());
+                for (StagedItem stagedItem : staged) {
+                    var result = results[stagedItem.index()];
+                    if (result == null || result.status() == ImportStatus.IMPORTED) {
+                        results[stagedItem.index()] = MovieImportResultDTO.failed(stagedItem.item().line(),
+                                stagedItem.item().uploadId(), "Movie could not be saved");
+                    }
+                }
+            }
+        }
+
+        var batchResults = List.of(results);
+        long importedCount = batchResults.stream().filter(result -> result.status() == ImportStatus.IMPORTED).count();
+        importedItems.increment(importedCount);
+        failedItems.increment(batchResults.size() - importedCount);
+        sample.stop(batchTimer);
+        log.debug("Movie import batch done for user: {}, {} items, {} imported", user.getUserId(), batchResults.size(), importedCount);
+        return batchResults;
+    }
+
+    /**
+     * Claims the upload sessions of the batch and saves their movies, items whose session is gone by now,
+     * completed by another request or expired, are reported as failed and left out
+     */
+    private void saveBatch(User user, List<StagedItem> staged, Map<String, Integer> rankings, MovieImportResultDTO[] results) {
+        var claimed = new ArrayList<StagedItem>(staged.size());
+        for (StagedItem stagedItem : staged) {
+            if (chunkedUploadService.claim(user, stagedItem.upload())) {
+                claimed.add(stagedItem);
+            } else {
+                results[stagedItem.index()] = MovieImportResultDTO.failed(stagedItem.item().line(),
+                        stagedItem.item().uploadId(), "Upload session not found");
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+        var movieIds = movieService.saveMovies(user, claimed.stream().map(StagedItem::movieUpload).toList(), rankings);
+        for (int upload = 0; upload < claimed.size(); upload++) {
+            var item = claimed.get(upload).item();
+            results[claimed.get(upload).index()] = MovieImportResultDTO.imported(item.line(), item.uploadId(), movieIds.get(upload));
+        }
+    }
+
+    /**
+     * Known problems of the upload are reported to the client as they are, other failures only in the log
+     */
+    private CompletedUpload awaitUpload(PendingItem item) {
+        try {
+            return item.upload().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NotFoundException || e.getCause() instanceof BadRequestException) {
+                throw new BadRequestException(e.getCause().getMessage());
+            }
+            log.warn("Upload {} could not be completed: {}", item.uploadId(), e.getCause().getMessage());
+            throw new BadRequestException("Upload could not be completed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Movie import interrupted", e);
+        }
+    }
+
+    /**
+     * Looks up each distinct title once, only for files large enough to need a DigiKat ranking.
+     * Titles that cannot be ranked now are left out, their movies are ranked asynchronously.
+     */
+    private Map<String, Integer> lookupRankings(List<StreamedMovieUpload> uploads, ExecutorService executor) {
+        Map<String, String> titles = new LinkedHashMap<>();
+        for (StreamedMovieUpload upload : uploads) {
+            if (upload.file().size() >= movieProperties.getSmallFileSize()) {
+                titles.putIfAbsent(DigiKatClient.normalizeTitle(upload.metadata().title()), upload.metadata().title());
+            }
+        }
+
+        Map<String, Future<Optional<Integer>>> lookups = new LinkedHashMap<>();
+        titles.forEach((key, title) -> lookups.put(key, executor.submit(() -> rankingService.findRanking(title))));
+
+        Map<String, Integer> rankings = new HashMap<>();
+        for (var lookup : lookups.entrySet()) {
+            try {
+                lookup.getValue().get().ifPresent(ranking -> rankings.put(lookup.getKey(), ranking));
+            } catch (ExecutionException e) {
+                log.debug("Ranking lookup failed for title: {}: {}", titles.get(lookup.getKey()), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                lookups.values().forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Movie import interrupted", e);
+            }
+        }
+        return rankings;
+    }
+
+    /**
+     * @return number of imported items
+     */
+    private long writeResults(List<MovieImportResultDTO> batchResults, OutputStream results) throws IOException {
+        for (MovieImportResultDTO result : batchResults) {
+            results.write(objectMapper.writeValueAsBytes(result));
+            results.write('\n');
+        }
+        results.flush();
+        return batchResults.stream().filter(result -> result.status() == ImportStatus.IMPORTED).count();
+    }
+
+    private record ManifestLine(String text, boolean tooLong) {}
+
+    /**
+     * @param upload {@code null} when the line was rejected with {@code error} before its upload was touched
+     */
+    private record PendingItem(int line, UUID uploadId, MovieMetadataDTO metadata, Future<CompletedUpload> upload, String error) {
+        static PendingItem failed(int line, UUID uploadId, String error) {
+            return new PendingItem(line, uploadId, null, null, error);
+        }
+    }
+
+    /**
+     * @param index position of the item in its batch
+     */
+    private record StagedItem(int index, PendingItem item, CompletedUpload upload) {
+        StreamedMovieUpload movieUpload() {
+            return new StreamedMovieUpload(item.metadata(), upload.file());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package pl.rafzab.movielibraryservice.service.movie;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
+import pl.rafzab.movielibraryservice.dto.response.MovieListDTO;
+import pl.rafzab.movielibraryservice.repository.LibraryVersion;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Optional in-heap cache of listing pages. Entries are keyed by the library version of the user, which is read
+ * from the database for every listing anyway, so a page cached before a change is never served after it, also
+ * when the change was made on another instance. Dropping the entries of a changed library, on this instance
+ * after commit and on the others through {@link LibraryChangeListener}, only frees their memory early.
+ * The keys cached for each user are indexed, so dropping a library touches only its own entries. The index is
+ * changed only inside the cache's atomic operation on the same key, so it never misses a cached entry.
+ */
+@Slf4j
+@Component
+public class MovieListingCache {
+    static final String CACHE_NAME = "movie.listing";
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+    private static final int MOVIE_OVERHEAD_BYTES = 96;
+
+    private final MovieListingCacheProperties properties;
+    private final Cache<Key, MovieListDTO> cache;
+    private final Map<Long, Set<Key>> keysByUser = new ConcurrentHashMap<>();
+
+    public MovieListingCache(MovieListingCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        if (!properties.getEnabled()) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxWeightBytes())
+                .weigher((Key key, MovieListDTO page) -> weigh(key, page))
+                .expireAfterAccess(properties.getExpireAfterAccess())
+                .evictionListener((Key key, MovieListDTO page, RemovalCause cause) -> {
+                    if (key != null) {
+                        forget(key);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * The page is loaded outside of the cache, like {@code DigiKatMovieDataCache} does, so the listing query
+     * does not run inside a synchronized map bin. Concurrent misses of the same page may both query.
+     */
+    public MovieListDTO get(LibraryVersion library, ListingQuery query, Supplier<MovieListDTO> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        var key = new Key(library.userId(), library.version(), query);
+        var page = cache.getIfPresent(key);
+        if (page == null) {
+            var loaded = loader.get();
+            cache.asMap().compute(key, (cachedKey, cached) -> {
+                remember(cachedKey);
+                return loaded;
+            });
+            page = loaded;
+        }
+        return page;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLibraryChanged(LibraryChangedEvent event) {
+        evictUser(event.userId());
+    }
+
+    public void evictUser(Long userId) {
+        var keys = keysByUser.get(userId);
+        if (cache != null && keys != null) {
+            for (Key key : List.copyOf(keys)) {
+                cache.asMap().compute(key, (cachedKey, cached) -> {
+                    forget(cachedKey);
+                    return null;
+                });
+            }
+            log.debug("Cached listings of user: {} evicted", userId);
+        }
+    }
+
+    public void evictAll() {
+        if (cache != null) {
+            List.copyOf(keysByUser.keySet()).forEach(this::evictUser);
+        }
+    }
+
+    private void remember(Key key) {
+        keysByUser.compute(key.userId(), (userId, keys) -> {
+            var userKeys = keys == null ? ConcurrentHashMap.<Key>newKeySet() : keys;
+            userKeys.add(key);
+            return userKeys;
+        });
+    }
+
+    private void forget(Key key) {
+        keysByUser.computeIfPresent(key.userId(), (userId, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Caffeine bounds the cache either by count or by weight, every entry weighs at least
+     * maxWeightBytes / maxEntries, so the weight bound also caps the number of entries.
+     */
+    private int weigh(Key key, MovieListDTO page) {
+        long estimated = ENTRY_OVERHEAD_BYTES + 2L * length(key.query().cursor()) + 2L * length(page.getNextCursor());
+        if (page.getMovies() != null) {
+            for (MovieDTO movie : page.getMovies()) {
+                estimated += MOVIE_OVERHEAD_BYTES + 2L * (length(movie.title()) + length(movie.director()));
+            }
+        }
+        long minimum = Math.ceilDiv(properties.getMaxWeightBytes(), properties.getMaxEntries());
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(estimated, minimum));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private record Key(Long userId, Long version, ListingQuery query) {}
+}
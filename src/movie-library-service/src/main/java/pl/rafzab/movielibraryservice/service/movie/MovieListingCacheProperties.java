@@ -0,0 +1,39 @@
+package pl.rafzab.movielibraryservice.service.movie;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.movie.listing-cache")
+public class MovieListingCacheProperties {
+    @NotNull
+    private Boolean enabled;
+
+    @NotNull
+    @Positive
+    private Long maxEntries;
+
+    @NotNull
+    @Positive
+    private Long maxWeightBytes;
+
+    /**
+     * Entries of a library that is not listed any more are dropped after this time even without a change
+     */
+    @NotNull
+    private Duration expireAfterAccess;
+
+    /**
+     * Wait before listening for library changes again after the connection was lost
+     */
+    @NotNull
+    private Duration reconnectDelay;
+}
@@ -1,5 +1,6 @@
 package pl.rafzab.movielibraryservice.service.movie;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -13,4 +14,11 @@ import org.springframework.validation.annotation.Validated;
 public class MovieProperties {
     @NotNull
     private Long smallFileSize;
+
+    /**
+     * Largest number of movies a listing or search page may ask for
+     */
+    @NotNull
+    @Min(1)
+    private Integer maxPageLimit;
 }
@@ -1,43 +1,104 @@
 package pl.rafzab.movielibraryservice.service.movie;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.rafzab.movielibraryservice.client.DigiKatClient;
-import pl.rafzab.movielibraryservice.client.DigiKatMovieData;
 import pl.rafzab.movielibraryservice.dto.request.MovieModificationDTO;
-import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
+import pl.rafzab.movielibraryservice.dto.request.MovieSearchDTO;
 import pl.rafzab.movielibraryservice.dto.response.MovieListDTO;
 import pl.rafzab.movielibraryservice.entity.Movie;
 import pl.rafzab.movielibraryservice.entity.User;
 import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
+import pl.rafzab.movielibraryservice.exception.BadRequestException;
 import pl.rafzab.movielibraryservice.exception.NotFoundException;
+import pl.rafzab.movielibraryservice.repository.LibraryVersion;
+import pl.rafzab.movielibraryservice.repository.MovieListingRow;
 import pl.rafzab.movielibraryservice.repository.MovieRepository;
+import pl.rafzab.movielibraryservice.repository.MovieSearchRepository;
+import pl.rafzab.movielibraryservice.repository.UserRepository;
+import pl.rafzab.movielibraryservice.service.file.ContentStore;
 import pl.rafzab.movielibraryservice.service.file.FileStorageService;
+import pl.rafzab.movielibraryservice.service.file.StoredFile;
+import pl.rafzab.movielibraryservice.service.ranking.MovieRankingRequestedEvent;
+import pl.rafzab.movielibraryservice.service.upload.StreamedMovieUpload;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class MovieService {
     private final MovieRepository movieRepository;
+    private final MovieSearchRepository movieSearchRepository;
+    private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
-    private final DigiKatClient digiKatClient;
+    private final ContentStore contentStore;
+    private final ApplicationEventPublisher eventPublisher;
 
     private final MovieProperties movieProperties;
 
+    private final Timer offsetQueryTimer;
+    private final Timer cursorQueryTimer;
+    private final Timer searchQueryTimer;
+    private final DistributionSummary offsetPageSize;
+    private final DistributionSummary cursorPageSize;
+
+    public MovieService(MovieRepository movieRepository, MovieSearchRepository movieSearchRepository,
+                        UserRepository userRepository, FileStorageService fileStorageService, ContentStore contentStore,
+                        ApplicationEventPublisher eventPublisher, MovieProperties movieProperties, MeterRegistry meterRegistry) {
+        this.movieRepository = movieRepository;
+        this.movieSearchRepository = movieSearchRepository;
+        this.userRepository = userRepository;
+        this.fileStorageService = fileStorageService;
+        this.contentStore = contentStore;
+        this.eventPublisher = eventPublisher;
+        this.movieProperties = movieProperties;
+        this.offsetQueryTimer = listingQueryTimer("offset", meterRegistry);
+        this.cursorQueryTimer = listingQueryTimer("cursor", meterRegistry);
+        this.searchQueryTimer = Timer.builder("movie.search.query")
+                .description("Time of the repository query behind a search page")
+                .register(meterRegistry);
+        this.offsetPageSize = listingPageSize("offset", meterRegistry);
+        this.cursorPageSize = listingPageSize("cursor", meterRegistry);
+    }
+
+    /**
+     * Single primary key lookup that lets unchanged listings be answered without running the listing query.
+     * It has to be read before the listing, so a listing is never tagged with a version newer than its data.
+     */
+    @Transactional(readOnly=true)
+    public LibraryVersion findLibraryVersion(User user){
+        return userRepository.findLibraryVersion(user.getUserId())
+                .orElseThrow(() -> new NotFoundException("User not found"));
+    }
+
     @Transactional(readOnly=true)
     public MovieListDTO findUserMovies(User user, int page, int limit, MovieFieldSort sortBy, Sort.Direction sortDirection){
         log.info("Starting movie search for user: {} with parameters page={}, limit={}, sortBy={}, sortDirection={}",
                 user.getUserId(), page, limit, sortBy, sortDirection);
+        validatePage(page, limit);
 
         var pageable = PageRequest.of(page, limit, Sort.by(sortDirection, sortBy.getValues()));
-        var moviePage = movieRepository.findAllByUser(user, pageable);
+        var moviePage = offsetQueryTimer.record(() -> movieRepository.findMovieDTOsByUser(user, pageable));
+        offsetPageSize.record(moviePage.getNumberOfElements());
 
         log.debug("Found movie page: currentPage={}, totalItems={}, totalPages={}",
                 moviePage.getNumber(), moviePage.getTotalElements(), moviePage.getTotalPages());
@@ -47,7 +108,68 @@ public class MovieService {
                 .limit(moviePage.getNumberOfElements())
                 .totalItems(moviePage.getTotalElements())
                 .totalPages(moviePage.getTotalPages())
-                .movies(moviePage.getContent().stream().map(MovieDTO::new).collect(Collectors.toList()))
+                .movies(moviePage.getContent())
+                .build();
+    }
+
+    /**
+     * Keyset variant of {@link #findUserMovies}: the next page continues after the last returned movie,
+     * so its cost does not depend on how deep the client has paged. The cursor carries its own sort,
+     * the count query runs only when requested.
+     */
+    @Transactional(readOnly=true)
+    public MovieListDTO findUserMoviesByCursor(User user, String cursor, int limit, MovieFieldSort sortBy,
+                                               Sort.Direction sortDirection, boolean withCount){
+        validateLimit(limit);
+        var decodedCursor = cursor == null ? null : MovieCursor.decode(cursor);
+        var sortField = decodedCursor == null ? sortBy : decodedCursor.sortBy();
+        var direction = decodedCursor == null ? sortDirection : decodedCursor.direction();
+        Map<String, Object> after = decodedCursor == null ? Map.of() : decodedCursor.keys();
+        log.info("Starting keyset movie search for user: {} with parameters limit={}, sortBy={}, sortDirection={}, continued={}",
+                user.getUserId(), limit, sortField, direction, decodedCursor != null);
+
+        var rows = cursorQueryTimer.record(() -> movieRepository.findListingRows(user, sortField, direction, after, limit + 1));
+        boolean hasNext = rows.size() > limit;
+        var pageRows = hasNext ? rows.subList(0, limit) : rows;
+        cursorPageSize.record(pageRows.size());
+        var nextCursor = hasNext
+                ? MovieCursor.after(sortField, direction, pageRows.get(pageRows.size() - 1)).encode()
+                : null;
+
+        var builder = MovieListDTO.builder()
+                .limit(pageRows.size())
+                .movies(pageRows.stream().map(MovieListingRow::toDTO).collect(Collectors.toList()))
+                .nextCursor(nextCursor);
+        if (withCount) {
+            long totalItems = movieRepository.countByUser(user);
+            builder.totalItems(totalItems)
+                    .totalPages((int) Math.ceilDiv(totalItems, limit));
+        }
+        log.debug("Found movie rows: size={}, hasNext={}", pageRows.size(), hasNext);
+        return builder.build();
+    }
+
+    /**
+     * Searches the user's movies by title and director words, the last word is matched as a prefix
+     */
+    @Transactional(readOnly=true)
+    public MovieListDTO searchMovies(User user, MovieSearchDTO search, int page, int limit){
+        log.info("Starting movie text search for user: {} with parameters page={}, limit={}, yearFrom={}, yearTo={}, " +
+                        "rankingFrom={}, rankingTo={}", user.getUserId(), page, limit, search.yearFrom(), search.yearTo(),
+                search.rankingFrom(), search.rankingTo());
+
+        validatePage(page, limit);
+        var textQuery = toPrefixTextQuery(search.query());
+        var result = searchQueryTimer.record(() ->
+                movieSearchRepository.search(user.getUserId(), search, textQuery, page * limit, limit));
+
+        log.debug("Found movie search page: size={}, totalItems={}", result.movies().size(), result.totalItems());
+        return MovieListDTO.builder()
+                .currentPage(page)
+                .limit(result.movies().size())
+                .totalItems(result.totalItems())
+                .totalPages((int) Math.ceilDiv(result.totalItems(), limit))
+                .movies(result.movies())
                 .build();
     }
 
@@ -64,17 +186,87 @@ public class MovieService {
                 .build();
         log.debug("Built movie object: {}", movie);
 
-        var movieReadyToSave = uploadAndCalculateRanking(movie, requestData);
-        log.debug("Movie after upload and ranking calculation: {}", movieReadyToSave);
+        var movieReadyToSave = uploadAndRequestRanking(movie, requestData);
+        log.debug("Movie after upload and ranking request: {}", movieReadyToSave);
 
         movieRepository.save(movieReadyToSave);
+        publishRankingRequest(movieReadyToSave);
+        eventPublisher.publishEvent(new LibraryChangedEvent(user.getUserId()));
         log.info("Movie saved successfully for user: {} with title: {}", user.getUserId(), movieReadyToSave.getTitle());
     }
 
+    @Transactional
+    public void saveMovie(User user, StreamedMovieUpload upload){
+        var metadata = upload.metadata();
+        log.info("Starting to save a streamed movie for user: {} with title: {}", user.getUserId(), metadata.title());
+
+        var movie = Movie.builder()
+                .user(user)
+                .title(metadata.title())
+                .director(metadata.director())
+                .yearOfProduction(metadata.yearOfProduction())
+                .build();
+        setStoredFile(movie, contentStore.store(upload.file()));
+        requestRanking(movie);
+        log.debug("Movie after ranking request: {}", movie);
+
+        movieRepository.save(movie);
+        publishRankingRequest(movie);
+        eventPublisher.publishEvent(new LibraryChangedEvent(user.getUserId()));
+        log.info("Streamed movie saved successfully for user: {} with title: {}", user.getUserId(), movie.getTitle());
+    }
+
+    /**
+     * Saves a batch of uploads in one transaction, the rows are sent as JDBC insert batches. Contents are stored
+     * in checksum order, so concurrent batches lock shared content rows in the same order.
+     *
+     * @param rankings rankings already known for some titles, keyed by {@link DigiKatClient#normalizeTitle},
+     *                 the other movies are ranked as usual
+     * @return ids of the saved movies, in the order of the uploads
+     */
+    @Transactional
+    public List<Long> saveMovies(User user, List<StreamedMovieUpload> uploads, Map<String, Integer> rankings){
+        log.info("Starting to save {} movies for user: {}", uploads.size(), user.getUserId());
+
+        var storedFiles = new StoredFile[uploads.size()];
+        IntStream.range(0, uploads.size())
+                .boxed()
+                .sorted(Comparator.comparing(index -> uploads.get(index).file().checksum()))
+                .forEach(index -> storedFiles[index] = contentStore.store(uploads.get(index).file()));
+
+        var movies = new ArrayList<Movie>(uploads.size());
+        for (int index = 0; index < uploads.size(); index++) {
+            var metadata = uploads.get(index).metadata();
+            var movie = Movie.builder()
+                    .user(user)
+                    .title(metadata.title())
+                    .director(metadata.director())
+                    .yearOfProduction(metadata.yearOfProduction())
+                    .build();
+            setStoredFile(movie, storedFiles[index]);
+            requestRanking(movie);
+            var ranking = rankings.get(DigiKatClient.normalizeTitle(metadata.title()));
+            if (ranking != null && movie.getRankingStatus() == RankingStatus.PENDING) {
+                movie.setRanking(ranking);
+                movie.setRankingStatus(RankingStatus.DONE);
+                movie.setRankingRequestedAt(null);
+            }
+            movies.add(movie);
+        }
+
+        movieRepository.saveAll(movies);
+        movies.forEach(this::publishRankingRequest);
+        eventPublisher.publishEvent(new LibraryChangedEvent(user.getUserId()));
+        log.info("{} movies saved successfully for user: {}", movies.size(), user.getUserId());
+        return movies.stream().map(Movie::getMovieId).toList();
+    }
+
     @Transactional
     public void updateMovie(User user, Long movieId, MovieModificationDTO requestData){
         log.info("Starting update of movie with ID: {} for user: {}", movieId, user.getUserId());
         var movie = getMovieByIdAndUser(movieId, user);
+        var previousChecksum = movie.getChecksum();
+        var previousFilePath = movie.getFilePath();
 
         movie.setTitle(requestData.title());
         movie.setDirector(requestData.director());
@@ -82,51 +274,123 @@ public class MovieService {
         movie.setSize(requestData.file().getSize());
         log.debug("Movie details before recalculating ranking: {}", movie);
 
-        uploadAndCalculateRanking(movie, requestData);
-        log.debug("Movie after upload and ranking calculation: {}", movie);
+        uploadAndRequestRanking(movie, requestData);
+        contentStore.release(previousChecksum, previousFilePath);
+        log.debug("Movie after upload and ranking request: {}", movie);
 
         movieRepository.save(movie);
+        publishRankingRequest(movie);
+        eventPublisher.publishEvent(new LibraryChangedEvent(user.getUserId()));
         log.info("Movie with ID: {} updated successfully for user: {}", movieId, user.getUserId());
     }
 
     @Transactional(readOnly=true)
-    public Resource downloadMovie(User user, Long movieId){
+    public MovieDownload downloadMovie(User user, Long movieId){
         log.info("Starting download of movie with ID: {} for user: {}", movieId, user.getUserId());
         var movie = getMovieByIdAndUser(movieId, user);
         log.debug("Movie found for download: {}", movie);
 
-        return fileStorageService.loadFileByAbsolutePath(movie.getFilePath());
+        var file = fileStorageService.loadFile(movie.getFilePath(), movie.getFileName());
+        return new MovieDownload(file, entityTag(movie, file));
     }
 
 
-    private Movie uploadAndCalculateRanking(Movie movie, MovieModificationDTO requestData){
-        var filePath = fileStorageService.trySaveFile(requestData.file());
-        movie.setFilePath(filePath);
+    /**
+     * Turns the searched text into words joined with AND, the last one as a prefix: "star wa" becomes
+     * "star & wa:*". Only letters and digits are kept, so the text cannot inject text search operators.
+     */
+    private static String toPrefixTextQuery(String text) {
+        var words = Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toList();
+        if (words.isEmpty()) {
+            throw new BadRequestException("Search query must contain a letter or a digit");
+        }
+        return String.join(" & ", words) + ":*";
+    }
 
-        var ranking = calculateRanking(movie);
-        movie.setRanking(ranking);
+    private void validatePage(int page, int limit) {
+        if (page < 0) {
+            throw new BadRequestException("Page must not be negative");
+        }
+        validateLimit(limit);
+    }
+
+    private void validateLimit(int limit) {
+        if (limit < 1 || limit > movieProperties.getMaxPageLimit()) {
+            throw new BadRequestException("Limit must be between 1 and " + movieProperties.getMaxPageLimit());
+        }
+    }
+
+    private static Timer listingQueryTimer(String paging, MeterRegistry meterRegistry) {
+        return Timer.builder("movie.listing.query")
+                .description("Time of the repository query behind a listing page")
+                .tag("paging", paging)
+                .register(meterRegistry);
+    }
+
+    private static DistributionSummary listingPageSize(String paging, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("movie.listing.page.size")
+                .description("Number of movies returned in a listing page")
+                .tag("paging", paging)
+                .register(meterRegistry);
+    }
+
+    private Movie uploadAndRequestRanking(Movie movie, MovieModificationDTO requestData){
+        var stagedFile = fileStorageService.trySaveFile(requestData.file());
+        setStoredFile(movie, contentStore.store(stagedFile));
+
+        requestRanking(movie);
 
         return movie;
     }
 
-    private int calculateRanking(Movie movie) {
+    private void setStoredFile(Movie movie, StoredFile storedFile) {
+        movie.setFilePath(storedFile.filePath());
+        movie.setFileName(storedFile.fileName());
+        movie.setSize(storedFile.size());
+        movie.setChecksum(storedFile.checksum());
+    }
+
+    /**
+     * Small files get a fixed ranking right away, others are ranked asynchronously
+     * after the transaction commits, keeping the DigiKat call off the request path.
+     */
+    private void requestRanking(Movie movie) {
         if(movie.getSize() < movieProperties.getSmallFileSize()){
-            return 100;
+            movie.setRanking(100);
+            movie.setRankingStatus(RankingStatus.DONE);
+            movie.setRankingRequestedAt(null);
+            return;
         }
 
-        DigiKatMovieData digiKatMovieData = digiKatClient.getMovieData(movie.getTitle());
-
-        int ranking = 0;
-        if (digiKatMovieData.isPolishProduction())
-            ranking += 200;
-
-        if (digiKatMovieData.isAvailableOnNetflix())
-            ranking -= 50;
+        if(movie.getRanking() == null){
+            movie.setRanking(0);
+        }
+        movie.setRankingStatus(RankingStatus.PENDING);
+        movie.setRankingRequestedAt(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+    }
 
-        if (digiKatMovieData.hasOutstandingUserRating())
-            ranking += 100;
+    private void publishRankingRequest(Movie movie) {
+        if(movie.getRankingStatus() == RankingStatus.PENDING){
+            eventPublisher.publishEvent(new MovieRankingRequestedEvent(movie.getMovieId(), movie.getRankingRequestedAt()));
+        }
+    }
 
-        return ranking;
+    /**
+     * Stored content never changes under its checksum, files stored before checksums were recorded are tagged
+     * by their size and modification time
+     */
+    private String entityTag(Movie movie, Resource file) {
+        if (movie.getChecksum() != null) {
+            return "\"" + movie.getChecksum() + "\"";
+        }
+        try {
+            return "\"" + Long.toHexString(file.contentLength()) + "-" + Long.toHexString(file.lastModified()) + "\"";
+        } catch (IOException e) {
+            log.debug("No entity tag for movie file {}", movie.getFilePath(), e);
+            return null;
+        }
     }
 
     private Movie getMovieByIdAndUser(Long movieId, User user){
@@ -0,0 +1,9 @@
+package pl.rafzab.movielibraryservice.service.ranking;
+
+import java.time.Instant;
+
+/**
+ * Published when a movie needs its ranking computed. {@code requestedAt} identifies the request,
+ * so a result computed for an older version of the movie is never written over a newer one.
+ */
+public record MovieRankingRequestedEvent(Long movieId, Instant requestedAt) {}
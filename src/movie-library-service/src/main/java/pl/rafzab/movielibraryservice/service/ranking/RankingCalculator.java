@@ -0,0 +1,23 @@
+package pl.rafzab.movielibraryservice.service.ranking;
+
+import pl.rafzab.movielibraryservice.client.DigiKatMovieData;
+
+final class RankingCalculator {
+
+    private RankingCalculator() {
+    }
+
+    static int calculate(DigiKatMovieData digiKatMovieData) {
+        int ranking = 0;
+        if (digiKatMovieData.isPolishProduction())
+            ranking += 200;
+
+        if (digiKatMovieData.isAvailableOnNetflix())
+            ranking -= 50;
+
+        if (digiKatMovieData.hasOutstandingUserRating())
+            ranking += 100;
+
+        return ranking;
+    }
+}
@@ -0,0 +1,52 @@
+package pl.rafzab.movielibraryservice.service.ranking;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+import pl.rafzab.movielibraryservice.enums.RankingFallbackPolicy;
+
+import java.time.Duration;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.ranking")
+public class RankingProperties {
+    @NotNull
+    @Positive
+    private Integer corePoolSize;
+
+    @NotNull
+    @Positive
+    private Integer maxPoolSize;
+
+    @NotNull
+    @Positive
+    private Integer queueCapacity;
+
+    @NotNull
+    @Positive
+    private Integer maxAttempts;
+
+    @NotNull
+    private Duration retryBackoff;
+
+    @NotNull
+    private Duration staleAfter;
+
+    @NotNull
+    @Positive
+    private Integer sweepBatchSize;
+
+    /**
+     * What to do with a movie when DigiKat is unavailable (open circuit breaker or full bulkhead)
+     */
+    @NotNull
+    private RankingFallbackPolicy fallbackPolicy;
+
+    @NotNull
+    private Integer fallbackRanking;
+}
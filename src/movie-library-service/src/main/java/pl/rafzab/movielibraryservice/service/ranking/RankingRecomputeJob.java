@@ -0,0 +1,155 @@
+package pl.rafzab.movielibraryservice.service.ranking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pl.rafzab.movielibraryservice.client.DigiKatClient;
+import pl.rafzab.movielibraryservice.exception.DigiKatUnavailableException;
+import pl.rafzab.movielibraryservice.repository.MovieRankingBatchRepository;
+import pl.rafzab.movielibraryservice.repository.MovieRankingBatchRepository.RankingCandidate;
+import pl.rafzab.movielibraryservice.repository.MovieRankingBatchRepository.RankingUpdate;
+import pl.rafzab.movielibraryservice.service.movie.MovieProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recomputes rankings of the whole movie table against current DigiKat data. Movies are read page by page
+ * by keyset on movie_id, each distinct title is looked up in DigiKat once per run, bypassing the lookup cache
+ * of the upload path so the rankings reflect current data, and the results are written back with a JDBC
+ * batch. The last processed movie_id is checkpointed after every page, so a run interrupted by a restart or
+ * a DigiKat outage resumes where it stopped. A database advisory lock keeps other instances from running
+ * the job at the same time.
+ */
+@Slf4j
+@Service
+public class RankingRecomputeJob {
+    static final String JOB_NAME = "ranking-recompute";
+
+    private final MovieRankingBatchRepository batchRepository;
+    private final DigiKatClient digiKatClient;
+    private final RankingRecomputeProperties properties;
+    private final MovieProperties movieProperties;
+
+    private final AtomicLong lastMovieId = new AtomicLong();
+    private final Counter updatedMovies;
+    private final Counter failedMovies;
+    private final Counter titleLookups;
+    private final Timer pageTimer;
+
+    public RankingRecomputeJob(MovieRankingBatchRepository batchRepository, DigiKatClient digiKatClient,
+                               RankingRecomputeProperties properties, MovieProperties movieProperties,
+                               MeterRegistry meterRegistry) {
+        this.batchRepository = batchRepository;
+        this.digiKatClient = digiKatClient;
+        this.properties = properties;
+        this.movieProperties = movieProperties;
+        this.updatedMovies = meterRegistry.counter("ranking.recompute.movies", "result", "updated");
+        this.failedMovies = meterRegistry.counter("ranking.recompute.movies", "result", "failed");
+        this.titleLookups = meterRegistry.counter("ranking.recompute.title.lookups");
+        this.pageTimer = meterRegistry.timer("ranking.recompute.page");
+        Gauge.builder("ranking.recompute.last.movie.id", lastMovieId, AtomicLong::get)
+                .description("Last movie_id processed by the current ranking recompute run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.ranking.recompute.cron}")
+    public void recomputeRankings() {
+        if (!batchRepository.runExclusively(JOB_NAME, this::runFromCheckpoint)) {
+            log.info("Ranking recompute is already running");
+        }
+    }
+
+    private void runFromCheckpoint() {
+        long afterMovieId = batchRepository.findCheckpoint(JOB_NAME).orElse(0L);
+        log.info("Starting ranking recompute after movie ID: {}", afterMovieId);
+
+        Map<String, Optional<Integer>> rankings = new HashMap<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(properties.getParallelism())) {
+            List<RankingCandidate> candidates;
+            while (!(candidates = batchRepository.findRankingCandidates(
+                    afterMovieId, movieProperties.getSmallFileSize(), properties.getPageSize())).isEmpty()) {
+                var sample = Timer.start();
+
+                lookupRankings(candidates, rankings, executor);
+                var updates = new ArrayList<RankingUpdate>(candidates.size());
+                for (RankingCandidate candidate : candidates) {
+                    var ranking = rankings.getOrDefault(DigiKatClient.normalizeTitle(candidate.title()), Optional.empty());
+                    if (ranking.isPresent()) {
+                        updates.add(new RankingUpdate(candidate.movieId(), ranking.get()));
+                    } else {
+                        failedMovies.increment();
+                    }
+                }
+                if (!updates.isEmpty()) {
+                    batchRepository.updateRankings(updates);
+                    updatedMovies.increment(updates.size());
+                }
+
+                afterMovieId = candidates.get(candidates.size() - 1).movieId();
+                batchRepository.saveCheckpoint(JOB_NAME, afterMovieId);
+                lastMovieId.set(afterMovieId);
+                sample.stop(pageTimer);
+                log.debug("Ranking recompute page done: {} movies, {} updated, last movie ID: {}",
+                        candidates.size(), updates.size(), afterMovieId);
+            }
+        } catch (DigiKatUnavailableException e) {
+            log.warn("DigiKat is unavailable, ranking recompute paused after movie ID: {}", afterMovieId);
+            return;
+        }
+
+        batchRepository.deleteCheckpoint(JOB_NAME);
+        log.info("Ranking recompute finished, last movie ID: {}", afterMovieId);
+    }
+
+    /**
+     * Looks up the titles of the page not yet seen in this run, at most {@code parallelism} at a time,
+     * and adds them to the rankings of the run. Titles that cannot be ranked are kept as empty.
+     */
+    private void lookupRankings(List<RankingCandidate> candidates, Map<String, Optional<Integer>> rankings,
+                                ExecutorService executor) {
+        Map<String, String> titles = new LinkedHashMap<>();
+        for (RankingCandidate candidate : candidates) {
+            var key = DigiKatClient.normalizeTitle(candidate.title());
+            if (!rankings.containsKey(key)) {
+                titles.putIfAbsent(key, candidate.title());
+            }
+        }
+
+        Map<String, Future<Integer>> lookups = new LinkedHashMap<>();
+        titles.forEach((key, title) -> lookups.put(key, executor.submit(() -> {
+            titleLookups.increment();
+            return RankingCalculator.calculate(digiKatClient.getMovieData(title));
+        })));
+
+        for (var lookup : lookups.entrySet()) {
+            try {
+                rankings.put(lookup.getKey(), Optional.of(lookup.getValue().get()));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof DigiKatUnavailableException unavailable) {
+                    lookups.values().forEach(future -> future.cancel(true));
+                    throw unavailable;
+                }
+                rankings.put(lookup.getKey(), Optional.empty());
+                log.debug("Ranking recompute lookup failed for title: {}: {}", titles.get(lookup.getKey()), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                lookups.values().forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ranking recompute interrupted", e);
+            }
+        }
+    }
+}
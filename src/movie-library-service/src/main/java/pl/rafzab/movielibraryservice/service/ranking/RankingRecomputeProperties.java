@@ -0,0 +1,25 @@
+package pl.rafzab.movielibraryservice.service.ranking;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@Validated
+@Configuration
+@ConfigurationProperties(prefix = "app.ranking.recompute")
+public class RankingRecomputeProperties {
+    @NotNull
+    @Positive
+    private Integer pageSize;
+
+    /**
+     * Number of concurrent DigiKat lookups
+     */
+    @NotNull
+    @Positive
+    private Integer parallelism;
+}
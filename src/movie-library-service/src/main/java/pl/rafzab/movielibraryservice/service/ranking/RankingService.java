@@ -0,0 +1,157 @@
+package pl.rafzab.movielibraryservice.service.ranking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pl.rafzab.movielibraryservice.client.DigiKatMovieDataCache;
+import pl.rafzab.movielibraryservice.entity.Movie;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
+import pl.rafzab.movielibraryservice.exception.DigiKatNotFoundException;
+import pl.rafzab.movielibraryservice.exception.DigiKatServerException;
+import pl.rafzab.movielibraryservice.exception.DigiKatUnavailableException;
+import pl.rafzab.movielibraryservice.repository.MovieRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Computes movie rankings off the request path. No transaction is held while DigiKat is called,
+ * the result is written with a single guarded update.
+ * Latency is recorded in {@code ranking.latency} split into the DigiKat lookup and the local work
+ * (loading the movie, calculating and storing the ranking); {@code ranking.completion} measures
+ * the time from the ranking request to the stored result, including time spent queued.
+ * DigiKat server errors are retried by {@code DigiKatClient} only, a movie whose lookup still fails with one
+ * stays pending and is requested again by the stale ranking sweep.
+ */
+@Slf4j
+@Service
+public class RankingService {
+    private final MovieRepository movieRepository;
+    private final DigiKatMovieDataCache digiKatMovieDataCache;
+    private final RankingProperties rankingProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Timer digiKatLatency;
+    private final Timer localLatency;
+    private final Timer completionTimer;
+
+    public RankingService(MovieRepository movieRepository, DigiKatMovieDataCache digiKatMovieDataCache,
+                          RankingProperties rankingProperties, ApplicationEventPublisher eventPublisher,
+                          MeterRegistry meterRegistry) {
+        this.movieRepository = movieRepository;
+        this.digiKatMovieDataCache = digiKatMovieDataCache;
+        this.rankingProperties = rankingProperties;
+        this.eventPublisher = eventPublisher;
+        this.digiKatLatency = meterRegistry.timer("ranking.latency", "phase", "digikat");
+        this.localLatency = meterRegistry.timer("ranking.latency", "phase", "local");
+        this.completionTimer = meterRegistry.timer("ranking.completion");
+    }
+
+    public void rankMovie(Long movieId, Instant requestedAt) {
+        long loadStart = System.nanoTime();
+        var movie = movieRepository.findById(movieId)
+                .filter(found -> found.getRankingStatus() == RankingStatus.PENDING)
+                .filter(found -> requestedAt.equals(found.getRankingRequestedAt()))
+                .orElse(null);
+        long loadNanos = System.nanoTime() - loadStart;
+        if (movie == null) {
+            log.debug("Skipping outdated ranking request for movie with ID: {}", movieId);
+            return;
+        }
+
+        int maxAttempts = rankingProperties.getMaxAttempts();
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                var movieData = digiKatLatency.record(() -> digiKatMovieDataCache.getMovieData(movie.getTitle()));
+
+                long storeStart = System.nanoTime();
+                int ranking = RankingCalculator.calculate(movieData);
+                int updated = movieRepository.updateRanking(movieId, requestedAt, ranking, RankingStatus.DONE);
+                localLatency.record(Duration.ofNanos(loadNanos + System.nanoTime() - storeStart));
+                if (updated == 1) {
+                    completionTimer.record(Duration.between(requestedAt, Instant.now()));
+                }
+                log.info("Ranking {} calculated for movie with ID: {} (stored: {})", ranking, movieId, updated == 1);
+                return;
+            } catch (DigiKatUnavailableException e) {
+                applyFallback(movieId, requestedAt);
+                return;
+            } catch (DigiKatServerException e) {
+                log.warn("DigiKat server error, ranking of movie with ID: {} left to the stale sweep: {}", movieId, e.getMessage());
+                return;
+            } catch (IllegalArgumentException | DigiKatNotFoundException e) {
+                log.warn("Ranking cannot be calculated for movie with ID: {}: {}", movieId, e.getMessage());
+                break;
+            } catch (RuntimeException e) {
+                log.warn("Ranking attempt {}/{} failed for movie with ID: {}: {}", attempt, maxAttempts, movieId, e.getMessage());
+                if (attempt < maxAttempts && !backOff(attempt)) {
+                    break;
+                }
+            }
+        }
+
+        movieRepository.updateRankingStatus(movieId, requestedAt, RankingStatus.FAILED);
+        log.error("Ranking calculation failed for movie with ID: {}", movieId);
+    }
+
+    /**
+     * Calculates the ranking of a title right away, for callers that rank many movies at once.
+     * Empty when DigiKat has no data for the title or cannot be reached, a single attempt is made.
+     */
+    public Optional<Integer> findRanking(String title) {
+        try {
+            var movieData = digiKatLatency.record(() -> digiKatMovieDataCache.getMovieData(title));
+            return Optional.of(RankingCalculator.calculate(movieData));
+        } catch (RuntimeException e) {
+            log.debug("Ranking not available for title: {}: {}", title, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Re-issues ranking requests that were lost, e.g. dropped by a full executor queue or a restart
+     */
+    @Scheduled(fixedDelayString = "${app.ranking.sweep-interval}")
+    public void resubmitStaleRankings() {
+        var staleBefore = Instant.now().minus(rankingProperties.getStaleAfter());
+        var staleMovies = movieRepository.findByRankingStatusAndRankingRequestedAtBefore(
+                RankingStatus.PENDING, staleBefore, Limit.of(rankingProperties.getSweepBatchSize()));
+
+        for (Movie movie : staleMovies) {
+            var renewedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+            if (movieRepository.renewRankingRequest(movie.getMovieId(), movie.getRankingRequestedAt(), renewedAt) == 1) {
+                eventPublisher.publishEvent(new MovieRankingRequestedEvent(movie.getMovieId(), renewedAt));
+            }
+        }
+        if (!staleMovies.isEmpty()) {
+            log.info("Resubmitted {} stale ranking requests", staleMovies.size());
+        }
+    }
+
+    private void applyFallback(Long movieId, Instant requestedAt) {
+        switch (rankingProperties.getFallbackPolicy()) {
+            case DEFER -> log.warn("DigiKat unavailable, ranking of movie with ID: {} deferred", movieId);
+            case FIXED -> {
+                movieRepository.updateRanking(movieId, requestedAt, rankingProperties.getFallbackRanking(), RankingStatus.FAILED);
+                log.warn("DigiKat unavailable, fallback ranking {} stored for movie with ID: {}",
+                        rankingProperties.getFallbackRanking(), movieId);
+            }
+        }
+    }
+
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(rankingProperties.getRetryBackoff().multipliedBy(attempt));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
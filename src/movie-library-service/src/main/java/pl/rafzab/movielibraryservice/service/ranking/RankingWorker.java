@@ -0,0 +1,22 @@
+package pl.rafzab.movielibraryservice.service.ranking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.rafzab.movielibraryservice.configuration.async.AsyncConfiguration;
+
+/**
+ * Runs ranking on the ranking executor once the transaction that saved the movie has committed
+ */
+@Component
+@RequiredArgsConstructor
+public class RankingWorker {
+    private final RankingService rankingService;
+
+    @Async(AsyncConfiguration.RANKING_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRankingRequested(MovieRankingRequestedEvent event) {
+        rankingService.rankMovie(event.movieId(), event.requestedAt());
+    }
+}
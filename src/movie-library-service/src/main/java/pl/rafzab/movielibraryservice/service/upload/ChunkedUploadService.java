@@ -0,0 +1,192 @@
+package pl.rafzab.movielibraryservice.service.upload;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import pl.rafzab.movielibraryservice.dto.request.MovieMetadataDTO;
+import pl.rafzab.movielibraryservice.dto.request.UploadSessionRequestDTO;
+import pl.rafzab.movielibraryservice.dto.response.UploadProgressDTO;
+import pl.rafzab.movielibraryservice.entity.UploadSession;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.exception.BadRequestException;
+import pl.rafzab.movielibraryservice.exception.NotFoundException;
+import pl.rafzab.movielibraryservice.repository.UploadSessionRepository;
+import pl.rafzab.movielibraryservice.service.file.FileStorageService;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+import pl.rafzab.movielibraryservice.service.movie.MovieService;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resumable upload protocol: a session fixes the file size and chunk size, chunks are written in place
+ * (in any order and in parallel) and the movie is created once every chunk has arrived.
+ * Only short repository calls touch the database, the transfer itself never holds a connection.
+ * The session is removed in the transaction that saves the movie, so a failed save leaves the upload
+ * complete and it can be completed again.
+ */
+@Slf4j
+@Service
+public class ChunkedUploadService {
+    private static final String VIDEO_TYPE_PREFIX = "video/";
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final FileStorageService fileStorageService;
+    private final MovieService movieService;
+    private final UploadProperties uploadProperties;
+    private final TransactionTemplate transaction;
+
+    public ChunkedUploadService(UploadSessionRepository uploadSessionRepository, FileStorageService fileStorageService,
+                                MovieService movieService, UploadProperties uploadProperties,
+                                PlatformTransactionManager transactionManager) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.fileStorageService = fileStorageService;
+        this.movieService = movieService;
+        this.uploadProperties = uploadProperties;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public UploadProgressDTO createSession(User user, UploadSessionRequestDTO requestData) {
+        if (!requestData.contentType().startsWith(VIDEO_TYPE_PREFIX)) {
+            throw new BadRequestException("Wrong file type");
+        }
+        if (requestData.totalSize() > uploadProperties.getMaxFileSize()) {
+            throw new BadRequestException("Max file size is " + uploadProperties.getMaxFileSize() + " bytes");
+        }
+
+        var uploadId = UUID.randomUUID();
+        var now = Instant.now();
+        var partPath = fileStorageService.tryCreatePartFile(uploadId.toString(), requestData.totalSize());
+        var session = UploadSession.builder()
+                .uploadId(uploadId)
+                .user(user)
+                .fileName(StringUtils.getFilename(StringUtils.cleanPath(requestData.fileName())))
+                .contentType(requestData.contentType())
+                .totalSize(requestData.totalSize())
+                .chunkSize(uploadProperties.getChunkSize())
+                .partPath(partPath)
+                .createdAt(now)
+                .expiresAt(now.plus(uploadProperties.getSessionTtl()))
+                .build();
+        uploadSessionRepository.save(session);
+        log.info("Upload session created for user: {} -> {}", user.getUserId(), session);
+
+        return toProgress(session, List.of());
+    }
+
+    public UploadProgressDTO writeChunk(User user, UUID uploadId, int chunkIndex, InputStream inputStream) {
+        var session = getActiveSession(uploadId, user);
+        if (chunkIndex < 0 || chunkIndex >= session.getTotalChunks()) {
+            throw new BadRequestException("Chunk index must be between 0 and " + (session.getTotalChunks() - 1));
+        }
+
+        long position = chunkIndex * session.getChunkSize();
+        fileStorageService.tryWriteChunk(session.getPartPath(), position, session.getChunkLength(chunkIndex), inputStream);
+        uploadSessionRepository.markChunkReceived(uploadId, chunkIndex);
+        log.debug("Chunk {} of upload {} written at offset {}", chunkIndex, uploadId, position);
+
+        return toProgress(session, uploadSessionRepository.findReceivedChunks(uploadId));
+    }
+
+    public UploadProgressDTO getProgress(User user, UUID uploadId) {
+        var session = getActiveSession(uploadId, user);
+        return toProgress(session, uploadSessionRepository.findReceivedChunks(uploadId));
+    }
+
+    public void completeUpload(User user, UUID uploadId, MovieMetadataDTO metadata) {
+        var upload = completeFile(user, uploadId);
+        transaction.executeWithoutResult(status -> {
+            if (!claim(user, upload)) {
+                throw new NotFoundException("Upload session not found");
+            }
+            movieService.saveMovie(user, new StreamedMovieUpload(metadata, upload.file()));
+        });
+    }
+
+    /**
+     * Stages the file of a fully uploaded session, the session and its part file stay until {@link #claim}
+     */
+    public CompletedUpload completeFile(User user, UUID uploadId) {
+        var session = getActiveSession(uploadId, user);
+        var receivedChunks = uploadSessionRepository.findReceivedChunks(uploadId);
+        if (receivedChunks.size() != session.getTotalChunks()) {
+            throw new BadRequestException("Upload is incomplete: received " + receivedChunks.size()
+                    + " of " + session.getTotalChunks() + " chunks");
+        }
+
+        var storedFile = fileStorageService.tryCompletePartFile(session.getPartPath(), session.getFileName());
+        log.info("Upload {} staged for user: {}, file: {}", uploadId, user.getUserId(), storedFile);
+        return new CompletedUpload(uploadId, session.getPartPath(), storedFile);
+    }
+
+    /**
+     * Removes the session of a completed upload in the transaction that saves its movie. Two completions of
+     * the same upload cannot both claim it, the second one waits for the first transaction and claims nothing
+     * if it commits. The part file is deleted after commit, after a rollback the session and the part file
+     * are still there and only the staged file, unless the store already took it, is dropped.
+     *
+     * @return {@code false} when the session expired or was claimed by another request, the staged file is dropped
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean claim(User user, CompletedUpload upload) {
+        if (uploadSessionRepository.deleteActive(upload.uploadId(), user, Instant.now()) == 0) {
+            fileStorageService.deleteQuietly(upload.file().filePath());
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    fileStorageService.deleteQuietly(upload.partPath());
+                    log.info("Upload {} completed for user: {}", upload.uploadId(), user.getUserId());
+                } else {
+                    fileStorageService.deleteQuietly(upload.file().filePath());
+                }
+            }
+        });
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.session-cleanup-interval}")
+    public void removeExpiredSessions() {
+        var expiredSessions = uploadSessionRepository.findAllByExpiresAtBefore(Instant.now());
+        for (UploadSession session : expiredSessions) {
+            fileStorageService.deleteQuietly(session.getPartPath());
+            uploadSessionRepository.delete(session);
+        }
+        if (!expiredSessions.isEmpty()) {
+            log.info("Removed {} expired upload sessions", expiredSessions.size());
+        }
+    }
+
+    private UploadSession getActiveSession(UUID uploadId, User user) {
+        return uploadSessionRepository.findByUploadIdAndUser(uploadId, user)
+                .filter(session -> session.getExpiresAt().isAfter(Instant.now()))
+                .orElseThrow(() -> new NotFoundException("Upload session not found"));
+    }
+
+    private UploadProgressDTO toProgress(UploadSession session, List<Integer> receivedChunks) {
+        long receivedBytes = receivedChunks.stream()
+                .mapToLong(session::getChunkLength)
+                .sum();
+        return new UploadProgressDTO(
+                session.getUploadId(),
+                session.getTotalSize(),
+                session.getChunkSize(),
+                session.getTotalChunks(),
+                receivedChunks,
+                receivedBytes,
+                receivedChunks.size() == session.getTotalChunks(),
+                session.getExpiresAt()
+        );
+    }
+}
@@ -0,0 +1,10 @@
+package pl.rafzab.movielibraryservice.service.upload;
+
+import pl.rafzab.movielibraryservice.service.file.StoredFile;
+
+import java.util.UUID;
+
+/**
+ * A fully uploaded file staged for storing, its session and part file are kept until the movie is saved
+ */
+public record CompletedUpload(UUID uploadId, String partPath, StoredFile file) {}
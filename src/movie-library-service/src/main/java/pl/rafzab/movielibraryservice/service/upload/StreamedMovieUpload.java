@@ -0,0 +1,6 @@
+package pl.rafzab.movielibraryservice.service.upload;
+
+import pl.rafzab.movielibraryservice.dto.request.MovieMetadataDTO;
+import pl.rafzab.movielibraryservice.service.file.StoredFile;
+
+public record StreamedMovieUpload(MovieMetadataDTO metadata, StoredFile file) {}
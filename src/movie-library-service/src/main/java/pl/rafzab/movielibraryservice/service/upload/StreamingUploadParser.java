@@ -0,0 +1,138 @@
+package pl.rafzab.movielibraryservice.service.upload;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import pl.rafzab.movielibraryservice.dto.request.MovieMetadataDTO;
+import pl.rafzab.movielibraryservice.exception.BadRequestException;
+import pl.rafzab.movielibraryservice.service.file.FileStorageService;
+import pl.rafzab.movielibraryservice.service.file.StoredFile;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads a multipart/form-data movie upload part by part straight from the request body.
+ * Form fields are kept in memory, the "file" part is handed to {@link FileStorageService}
+ * as a stream, so the video is never spooled to a temporary file first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StreamingUploadParser {
+    private static final String FILE_FIELD = "file";
+    private static final String VIDEO_TYPE_PREFIX = "video/";
+    private static final int MAX_FIELD_BYTES = 1024;
+    private static final long MAX_FORM_OVERHEAD_BYTES = 64 * 1024;
+
+    private final FileStorageService fileStorageService;
+    private final UploadProperties uploadProperties;
+    private final Validator validator;
+
+    public StreamedMovieUpload parse(HttpServletRequest request) {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            throw new BadRequestException("Request must be multipart/form-data");
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        StoredFile storedFile = null;
+        try {
+            var upload = new JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory>();
+            upload.setSizeMax(uploadProperties.getMaxFileSize() + MAX_FORM_OVERHEAD_BYTES);
+            FileItemInputIterator iterator = upload.getItemIterator(request);
+            while (iterator.hasNext()) {
+                FileItemInput item = iterator.next();
+                if (item.isFormField()) {
+                    fields.put(item.getFieldName(), readField(item));
+                } else if (FILE_FIELD.equals(item.getFieldName())) {
+                    if (storedFile != null) {
+                        throw new BadRequestException("Only one file can be uploaded");
+                    }
+                    storedFile = storeFile(item);
+                }
+            }
+
+            if (storedFile == null) {
+                throw new BadRequestException("File is required");
+            }
+            var metadata = toMetadata(fields);
+            log.debug("Streamed upload parsed: metadata={}, file={}", metadata, storedFile);
+            return new StreamedMovieUpload(metadata, storedFile);
+        } catch (FileUploadSizeException e) {
+            deleteQuietly(storedFile);
+            throw new BadRequestException("Max request size is " + e.getPermitted() + " bytes");
+        } catch (IOException e) {
+            deleteQuietly(storedFile);
+            throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(storedFile);
+            throw e;
+        }
+    }
+
+    private StoredFile storeFile(FileItemInput item) throws IOException {
+        String contentType = item.getContentType();
+        if (contentType == null || !contentType.startsWith(VIDEO_TYPE_PREFIX)) {
+            throw new BadRequestException("Wrong file type");
+        }
+
+        String filename = StringUtils.getFilename(StringUtils.cleanPath(String.valueOf(item.getName())));
+        try (InputStream inputStream = item.getInputStream()) {
+            return fileStorageService.trySaveStream(filename, inputStream, uploadProperties.getMaxFileSize());
+        }
+    }
+
+    private String readField(FileItemInput item) throws IOException {
+        try (InputStream inputStream = item.getInputStream()) {
+            byte[] bytes = inputStream.readNBytes(MAX_FIELD_BYTES + 1);
+            if (bytes.length > MAX_FIELD_BYTES) {
+                throw new BadRequestException("Field " + item.getFieldName() + " is too long");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private MovieMetadataDTO toMetadata(Map<String, String> fields) {
+        var metadata = new MovieMetadataDTO(
+                fields.get("title"),
+                fields.get("director"),
+                parseYear(fields.get("yearOfProduction"))
+        );
+        var violations = validator.validate(metadata);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return metadata;
+    }
+
+    private Integer parseYear(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("yearOfProduction must be a number");
+        }
+    }
+
+    private void deleteQuietly(StoredFile storedFile) {
+        if (storedFile != null) {
+            fileStorageService.deleteQuietly(storedFile.filePath());
+        }
+    }
+}
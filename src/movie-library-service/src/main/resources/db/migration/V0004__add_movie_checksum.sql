@@ -0,0 +1,2 @@
+ALTER TABLE movies
+    ADD COLUMN checksum VARCHAR(64);
\ No newline at end of file
@@ -0,0 +1,27 @@
+CREATE TABLE upload_sessions
+(
+    upload_id    UUID PRIMARY KEY,
+    user_id      BIGINT       NOT NULL,
+    file_name    VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255) NOT NULL,
+    total_size   BIGINT       NOT NULL,
+    chunk_size   BIGINT       NOT NULL,
+    part_path    VARCHAR(255) NOT NULL,
+    created_at   TIMESTAMP    NOT NULL,
+    expires_at   TIMESTAMP    NOT NULL,
+    CONSTRAINT fk_upload_session_user
+        FOREIGN KEY (user_id)
+            REFERENCES users (user_id)
+            ON DELETE CASCADE
+);
+
+CREATE TABLE upload_session_chunks
+(
+    upload_id   UUID NOT NULL,
+    chunk_index INT  NOT NULL,
+    PRIMARY KEY (upload_id, chunk_index),
+    CONSTRAINT fk_upload_session
+        FOREIGN KEY (upload_id)
+            REFERENCES upload_sessions (upload_id)
+            ON DELETE CASCADE
+);
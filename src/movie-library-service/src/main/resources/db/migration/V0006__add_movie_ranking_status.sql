@@ -0,0 +1,3 @@
+ALTER TABLE movies
+    ADD COLUMN ranking_status       VARCHAR(16) NOT NULL DEFAULT 'DONE',
+    ADD COLUMN ranking_requested_at TIMESTAMP;
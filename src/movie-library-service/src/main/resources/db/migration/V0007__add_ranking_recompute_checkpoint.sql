@@ -0,0 +1,6 @@
+CREATE TABLE ranking_recompute_checkpoints
+(
+    job_name      VARCHAR(64) PRIMARY KEY,
+    last_movie_id BIGINT      NOT NULL,
+    updated_at    TIMESTAMP   NOT NULL
+);
@@ -0,0 +1,18 @@
+-- Per-user listing indexes, one per MovieFieldSort option, each ending with movie_id (keyset tiebreaker).
+-- The listing sorts every column in the same direction, so DESC requests are served by a backward scan
+-- of the same index and no separate descending indexes are needed.
+-- INCLUDE columns cover MovieDTO, which allows index-only scans for projected listing queries.
+-- CONCURRENTLY keeps the table writable while the indexes are built (Flyway runs these statements
+-- outside a transaction).
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_movies_user_ranking_size
+    ON movies (user_id, ranking, size, movie_id)
+    INCLUDE (title, director, year_of_production, ranking_status);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_movies_user_ranking
+    ON movies (user_id, ranking, movie_id)
+    INCLUDE (title, director, year_of_production, ranking_status);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_movies_user_size
+    ON movies (user_id, size, movie_id)
+    INCLUDE (title, director, year_of_production, ranking, ranking_status);
@@ -0,0 +1,11 @@
+-- Stale ranking sweep: only PENDING movies are ever searched by request time.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_movies_pending_ranking_requested_at
+    ON movies (ranking_requested_at)
+    WHERE ranking_status = 'PENDING';
+
+-- Expired upload session cleanup and per-user session lookup.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_upload_sessions_expires_at
+    ON upload_sessions (expires_at);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_upload_sessions_user_id
+    ON upload_sessions (user_id);
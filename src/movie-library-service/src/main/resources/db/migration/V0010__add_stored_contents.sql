@@ -0,0 +1,15 @@
+CREATE TABLE stored_contents
+(
+    checksum   VARCHAR(64)   PRIMARY KEY,
+    file_path  VARCHAR(1024) NOT NULL,
+    size       BIGINT        NOT NULL,
+    ref_count  INTEGER       NOT NULL CHECK (ref_count >= 0),
+    created_at TIMESTAMP     NOT NULL
+);
+
+ALTER TABLE movies
+    ADD COLUMN file_name VARCHAR(255);
+
+-- files stored before content addressing are named "<timestamp>_<original file name>"
+UPDATE movies
+SET file_name = regexp_replace(regexp_replace(file_path, '^.*[/\\]', ''), '^[0-9]+_', '');
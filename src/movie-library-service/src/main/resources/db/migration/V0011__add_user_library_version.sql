@@ -0,0 +1,50 @@
+ALTER TABLE users
+    ADD COLUMN library_version     BIGINT                   NOT NULL DEFAULT 0,
+    ADD COLUMN library_modified_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
+
+-- bumps the library of every user whose listed movie columns were changed by a statement, once per statement
+CREATE FUNCTION bump_library_version() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        UPDATE users
+        SET library_version = library_version + 1, library_modified_at = now()
+        WHERE user_id IN (SELECT user_id FROM new_movies);
+    ELSIF TG_OP = 'DELETE' THEN
+        UPDATE users
+        SET library_version = library_version + 1, library_modified_at = now()
+        WHERE user_id IN (SELECT user_id FROM old_movies);
+    ELSE
+        UPDATE users
+        SET library_version = library_version + 1, library_modified_at = now()
+        WHERE user_id IN (SELECT unnest(ARRAY [o.user_id, n.user_id])
+                          FROM old_movies o
+                                   JOIN new_movies n ON n.movie_id = o.movie_id
+                          WHERE (o.user_id, o.title, o.director, o.year_of_production, o.ranking, o.ranking_status, o.size)
+                                    IS DISTINCT FROM
+                                (n.user_id, n.title, n.director, n.year_of_production, n.ranking, n.ranking_status, n.size));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER movies_library_version_insert
+    AFTER INSERT
+    ON movies
+    REFERENCING NEW TABLE AS new_movies
+    FOR EACH STATEMENT
+EXECUTE FUNCTION bump_library_version();
+
+CREATE TRIGGER movies_library_version_update
+    AFTER UPDATE
+    ON movies
+    REFERENCING OLD TABLE AS old_movies NEW TABLE AS new_movies
+    FOR EACH STATEMENT
+EXECUTE FUNCTION bump_library_version();
+
+CREATE TRIGGER movies_library_version_delete
+    AFTER DELETE
+    ON movies
+    REFERENCING OLD TABLE AS old_movies
+    FOR EACH STATEMENT
+EXECUTE FUNCTION bump_library_version();
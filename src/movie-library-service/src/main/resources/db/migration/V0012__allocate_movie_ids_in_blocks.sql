@@ -0,0 +1,3 @@
+-- Hibernate allocates movie ids in blocks of 50 (pooled optimizer): every nextval reserves the 50 ids ending
+-- at the returned value. Existing ids are kept, the next block starts right after the last id handed out.
+ALTER SEQUENCE movies_movie_id_seq INCREMENT BY 50;
@@ -0,0 +1,3 @@
+-- Same pooled allocation as movie ids (V0012): every nextval reserves the 50 ids ending at the returned value,
+-- existing ids are kept and the next block starts right after the last id handed out.
+ALTER SEQUENCE users_user_id_seq INCREMENT BY 50;
@@ -0,0 +1,5 @@
+-- pg_trgm: trigram similarity for typo tolerant search.
+-- btree_gin: lets user_id lead the search GIN indexes, so a search only reads the user's own movies.
+-- Both are trusted extensions, the database owner can create them.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
@@ -0,0 +1,18 @@
+-- Per-user search indexes over titles and directors.
+-- Full-text: an expression index instead of a stored tsvector column, so no table rewrite is needed.
+-- The 'simple' configuration neither stems nor drops stop words, titles come in many languages.
+-- Titles weigh more than directors in the text search rank. MovieSearchRepository repeats the
+-- expression exactly, otherwise the index is not used.
+-- Trigram: word similarity against either column, for misspelled queries.
+-- CONCURRENTLY keeps the table writable while the indexes are built (Flyway runs these statements
+-- outside a transaction).
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_movies_user_search_vector
+    ON movies USING GIN (user_id, (setweight(to_tsvector('simple', title), 'A') ||
+                                   setweight(to_tsvector('simple', director), 'B')));
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_movies_user_title_trgm
+    ON movies USING GIN (user_id, title gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_movies_user_director_trgm
+    ON movies USING GIN (user_id, director gin_trgm_ops);
@@ -0,0 +1,44 @@
+-- Same version bump as V0011, now also notifying the movie_library_changed channel with the id of every
+-- bumped user, so all service instances can drop their cached listings of that user. PostgreSQL delivers
+-- the notifications on commit, once per user and transaction.
+CREATE OR REPLACE FUNCTION bump_library_version() RETURNS TRIGGER AS
+$$
+DECLARE
+    changed_user_id BIGINT;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        FOR changed_user_id IN
+            UPDATE users
+            SET library_version = library_version + 1, library_modified_at = now()
+            WHERE user_id IN (SELECT user_id FROM new_movies)
+            RETURNING user_id
+        LOOP
+            PERFORM pg_notify('movie_library_changed', changed_user_id::TEXT);
+        END LOOP;
+    ELSIF TG_OP = 'DELETE' THEN
+        FOR changed_user_id IN
+            UPDATE users
+            SET library_version = library_version + 1, library_modified_at = now()
+            WHERE user_id IN (SELECT user_id FROM old_movies)
+            RETURNING user_id
+        LOOP
+            PERFORM pg_notify('movie_library_changed', changed_user_id::TEXT);
+        END LOOP;
+    ELSE
+        FOR changed_user_id IN
+            UPDATE users
+            SET library_version = library_version + 1, library_modified_at = now()
+            WHERE user_id IN (SELECT unnest(ARRAY [o.user_id, n.user_id])
+                              FROM old_movies o
+                                       JOIN new_movies n ON n.movie_id = o.movie_id
+                              WHERE (o.user_id, o.title, o.director, o.year_of_production, o.ranking, o.ranking_status, o.size)
+                                        IS DISTINCT FROM
+                                    (n.user_id, n.title, n.director, n.year_of_production, n.ranking, n.ranking_status, n.size))
+            RETURNING user_id
+        LOOP
+            PERFORM pg_notify('movie_library_changed', changed_user_id::TEXT);
+        END LOOP;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -1,12 +1,35 @@
 package pl.rafzab.movielibraryservice.client;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 import pl.rafzab.movielibraryservice.exception.DigiKatClientException;
+import pl.rafzab.movielibraryservice.exception.DigiKatNotFoundException;
+import pl.rafzab.movielibraryservice.exception.DigiKatServerException;
+import pl.rafzab.movielibraryservice.exception.DigiKatUnavailableException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -17,6 +40,9 @@ class DigiKatClientTest {
     private DigiKatProperties properties;
     private DigiKatClient client;
     private RestClient restClientMock;
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
@@ -25,7 +51,19 @@ class DigiKatClientTest {
 
         restClientMock = mock(RestClient.class, RETURNS_DEEP_STUBS);
 
-        client = new DigiKatClient(properties) {
+        circuitBreaker = CircuitBreaker.of("digikat", CircuitBreakerConfig.custom()
+                .slidingWindowSize(2)
+                .minimumNumberOfCalls(2)
+                .failureRateThreshold(50)
+                .ignoreExceptions(DigiKatNotFoundException.class, DigiKatUnavailableException.class, IllegalArgumentException.class)
+                .build());
+        bulkhead = Bulkhead.of("digikat", BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+
+        meterRegistry = new SimpleMeterRegistry();
+        client = new DigiKatClient(properties, circuitBreaker, bulkhead, meterRegistry) {
             @Override
             RestClient createRestClient() {
                 return restClientMock;
@@ -103,4 +141,289 @@ class DigiKatClientTest {
                     .hasMessage("DigiKat API communication error");
         }
     }
+
+    @Nested
+    @DisplayName("Retries")
+    class RetryTests {
+
+        @BeforeEach
+        void setUp() {
+            when(properties.getMaxRetries()).thenReturn(2);
+            when(properties.getRetryInitialBackoffMs()).thenReturn(1);
+            when(properties.getRetryMaxBackoffMs()).thenReturn(2);
+        }
+
+        @Test
+        @DisplayName("server error is retried until success")
+        void serverErrorIsRetried() {
+            // Given
+            DigiKatMovieData expected = new DigiKatMovieData();
+            when(restClientMock.get()
+                    .uri("/ranking?film={title}", "Inception")
+                    .retrieve()
+                    .onStatus(any(), any())
+                    .onStatus(any(), any())
+                    .body(DigiKatMovieData.class))
+                    .thenThrow(new DigiKatServerException("Server error DigiKat: 503"))
+                    .thenThrow(new DigiKatServerException("Server error DigiKat: 502"))
+                    .thenReturn(expected);
+
+            // When
+            DigiKatMovieData actual = client.getMovieData("Inception");
+
+            // Then
+            assertThat(actual).isSameAs(expected);
+        }
+
+        @Test
+        @DisplayName("server error is thrown after max retries")
+        void serverErrorThrownAfterMaxRetries() {
+            // Given
+            AtomicInteger calls = new AtomicInteger();
+            when(restClientMock.get()
+                    .uri("/ranking?film={title}", "Inception")
+                    .retrieve()
+                    .onStatus(any(), any())
+                    .onStatus(any(), any())
+                    .body(DigiKatMovieData.class))
+                    .thenAnswer(invocation -> {
+                        calls.incrementAndGet();
+                        throw new DigiKatServerException("Server error DigiKat: 503");
+                    });
+
+            // When / Then
+            assertThatThrownBy(() -> client.getMovieData("Inception")).isInstanceOf(DigiKatServerException.class);
+            assertThat(calls.get()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("client error is not retried")
+        void clientErrorIsNotRetried() {
+            // Given
+            AtomicInteger calls = new AtomicInteger();
+            when(restClientMock.get()
+                    .uri("/ranking?film={title}", "Inception")
+                    .retrieve()
+                    .onStatus(any(), any())
+                    .onStatus(any(), any())
+                    .body(DigiKatMovieData.class))
+                    .thenAnswer(invocation -> {
+                        calls.incrementAndGet();
+                        throw new DigiKatClientException("Customer error: 400 BAD_REQUEST");
+                    });
+
+            // When / Then
+            assertThatThrownBy(() -> client.getMovieData("Inception")).isInstanceOf(DigiKatClientException.class);
+            assertThat(calls.get()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Circuit breaker and bulkhead")
+    class ResilienceTests {
+
+        private void stubDownload(String title, RuntimeException error) {
+            when(restClientMock.get()
+                    .uri("/ranking?film={title}", title)
+                    .retrieve()
+                    .onStatus(any(), any())
+                    .onStatus(any(), any())
+                    .body(DigiKatMovieData.class))
+                    .thenThrow(error);
+        }
+
+        @Test
+        @DisplayName("open circuit rejects lookups without calling DigiKat")
+        void openCircuitRejectsLookups() {
+            // Given
+            stubDownload("Inception", new DigiKatServerException("Server error DigiKat: 503"));
+            assertThatThrownBy(() -> client.getMovieData("Inception")).isInstanceOf(DigiKatServerException.class);
+            assertThatThrownBy(() -> client.getMovieData("Inception")).isInstanceOf(DigiKatServerException.class);
+
+            // When / Then
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+            assertThatThrownBy(() -> client.getMovieData("Avatar"))
+                    .isInstanceOf(DigiKatUnavailableException.class)
+                    .hasMessage("DigiKat is unavailable");
+            verify(restClientMock.get(), never()).uri("/ranking?film={title}", "Avatar");
+        }
+
+        @Test
+        @DisplayName("missing titles do not open the circuit")
+        void notFoundDoesNotOpenCircuit() {
+            // Given
+            stubDownload("Unknown", new DigiKatNotFoundException("Movie not found in DigiKat"));
+
+            // When
+            for (int i = 0; i < 3; i++) {
+                assertThatThrownBy(() -> client.getMovieData("Unknown")).isInstanceOf(DigiKatNotFoundException.class);
+            }
+
+            // Then
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        }
+
+        @Test
+        @DisplayName("full bulkhead rejects lookups")
+        void fullBulkheadRejectsLookups() {
+            // Given
+            bulkhead.acquirePermission();
+
+            try {
+                // When / Then
+                assertThatThrownBy(() -> client.getMovieData("Inception"))
+                        .isInstanceOf(DigiKatUnavailableException.class)
+                        .hasMessage("DigiKat connection limit reached");
+            } finally {
+                bulkhead.releasePermission();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Request coalescing")
+    class CoalescingTests {
+
+        private final CountDownLatch downloadStarted = new CountDownLatch(1);
+        private final CompletableFuture<Void> releaseDownload = new CompletableFuture<>();
+        private final AtomicInteger downloads = new AtomicInteger();
+
+        private void stubBlockingDownload(String title, Object result) {
+            when(restClientMock.get()
+                    .uri("/ranking?film={title}", title)
+                    .retrieve()
+                    .onStatus(any(), any())
+                    .onStatus(any(), any())
+                    .body(DigiKatMovieData.class))
+                    .thenAnswer(invocation -> {
+                        downloads.incrementAndGet();
+                        downloadStarted.countDown();
+                        releaseDownload.get(5, TimeUnit.SECONDS);
+                        if (result instanceof RuntimeException e) {
+                            throw e;
+                        }
+                        return result;
+                    });
+        }
+
+        private void awaitWaiting(Thread thread) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(thread.getState()).isEqualTo(Thread.State.WAITING);
+        }
+
+        @Test
+        @DisplayName("concurrent lookups of the same title share one download")
+        void concurrentLookupsShareResult() throws Exception {
+            // Given
+            DigiKatMovieData expected = new DigiKatMovieData();
+            stubBlockingDownload("Inception", expected);
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+
+            try {
+                // When
+                Future<DigiKatMovieData> first = executor.submit(() -> client.getMovieData("Inception"));
+                assertThat(downloadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+                AtomicReference<Thread> waiter = new AtomicReference<>();
+                Future<DigiKatMovieData> second = executor.submit(() -> {
+                    waiter.set(Thread.currentThread());
+                    return client.getMovieData("  inception ");
+                });
+                while (waiter.get() == null) {
+                    Thread.sleep(5);
+                }
+                awaitWaiting(waiter.get());
+                releaseDownload.complete(null);
+
+                // Then
+                assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(expected);
+                assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(expected);
+                assertThat(downloads.get()).isEqualTo(1);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("waiting lookups receive the failure of the shared download")
+        void concurrentLookupsShareFailure() throws Exception {
+            // Given
+            stubBlockingDownload("Inception", new DigiKatServerException("Server error DigiKat: 503"));
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+
+            try {
+                // When
+                Future<DigiKatMovieData> first = executor.submit(() -> client.getMovieData("Inception"));
+                assertThat(downloadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+                AtomicReference<Thread> waiter = new AtomicReference<>();
+                Future<DigiKatMovieData> second = executor.submit(() -> {
+                    waiter.set(Thread.currentThread());
+                    return client.getMovieData("INCEPTION");
+                });
+                while (waiter.get() == null) {
+                    Thread.sleep(5);
+                }
+                awaitWaiting(waiter.get());
+                releaseDownload.complete(null);
+
+                // Then
+                assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(DigiKatServerException.class);
+                assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(DigiKatServerException.class);
+                assertThat(downloads.get()).isEqualTo(1);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("lookup after completion downloads again")
+        void sequentialLookupsAreNotCoalesced() {
+            // Given
+            releaseDownload.complete(null);
+            stubBlockingDownload("Inception", new DigiKatMovieData());
+
+            // When
+            client.getMovieData("Inception");
+            client.getMovieData("Inception");
+
+            // Then
+            assertThat(downloads.get()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("request metrics")
+    class RequestMetricsTests {
+
+        @Test
+        @DisplayName("response is recorded with its status class")
+        void responseIsRecordedWithStatusClass() throws IOException {
+            // Given
+            var response = mock(ClientHttpResponse.class);
+            when(response.getStatusCode()).thenReturn(HttpStatus.SERVICE_UNAVAILABLE);
+            var execution = mock(ClientHttpRequestExecution.class);
+            when(execution.execute(any(), any())).thenReturn(response);
+
+            // When
+            client.meteringInterceptor().intercept(mock(HttpRequest.class), new byte[0], execution);
+
+            // Then
+            assertThat(meterRegistry.get("digikat.requests").tag("status", "5xx").timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("request without response is recorded as IO_ERROR")
+        void ioErrorIsRecorded() throws IOException {
+            // Given
+            var execution = mock(ClientHttpRequestExecution.class);
+            when(execution.execute(any(), any())).thenThrow(new IOException("Connection reset"));
+
+            // When / Then
+            assertThatThrownBy(() -> client.meteringInterceptor().intercept(mock(HttpRequest.class), new byte[0], execution))
+                    .isInstanceOf(IOException.class);
+            assertThat(meterRegistry.get("digikat.requests").tag("status", "IO_ERROR").timer().count()).isEqualTo(1);
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package pl.rafzab.movielibraryservice.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import pl.rafzab.movielibraryservice.exception.DigiKatNotFoundException;
+import pl.rafzab.movielibraryservice.exception.DigiKatServerException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class DigiKatMovieDataCacheTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T00:00:00Z");
+
+    private DigiKatClient digiKatClient;
+    private SimpleMeterRegistry meterRegistry;
+    private DigiKatMovieDataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        DigiKatCacheProperties properties = new DigiKatCacheProperties();
+        properties.setMaxEntries(100L);
+        properties.setMaxWeightBytes(1024L * 1024);
+        properties.setDefaultTtl(Duration.ofHours(1));
+        properties.setMinTtl(Duration.ofMinutes(5));
+        properties.setMaxTtl(Duration.ofHours(24));
+        properties.setLastUpdatedAgeFraction(0.1);
+        properties.setNotFoundTtl(Duration.ofMinutes(10));
+
+        digiKatClient = mock(DigiKatClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new DigiKatMovieDataCache(digiKatClient, properties, meterRegistry);
+    }
+
+    private DigiKatMovieData movieData(String lastUpdated) {
+        return new DigiKatMovieData("Inception", 2, List.of("netflix"), "wybitny", lastUpdated);
+    }
+
+    @Nested
+    @DisplayName("getMovieData()")
+    class GetMovieDataTests {
+
+        @Test
+        @DisplayName("same title with different case and spacing is downloaded once")
+        void shouldCacheByNormalizedTitle() {
+            // Given
+            DigiKatMovieData expected = movieData("2025-01-01");
+            when(digiKatClient.getMovieData("Inception")).thenReturn(expected);
+
+            // When
+            DigiKatMovieData first = cache.getMovieData("Inception");
+            DigiKatMovieData second = cache.getMovieData("  inCEPtion ");
+
+            // Then
+            assertThat(first).isSameAs(expected);
+            assertThat(second).isSameAs(expected);
+            verify(digiKatClient, times(1)).getMovieData(anyString());
+            assertThat(meterRegistry.get("cache.gets").tag("cache", "digikat").tag("result", "hit").functionCounter().count())
+                    .isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("title missing in DigiKat is cached as not found")
+        void shouldCacheNotFound() {
+            // Given
+            when(digiKatClient.getMovieData("Unknown")).thenThrow(new DigiKatNotFoundException("Not found"));
+
+            // When / Then
+            assertThatThrownBy(() -> cache.getMovieData("Unknown")).isInstanceOf(DigiKatNotFoundException.class);
+            assertThatThrownBy(() -> cache.getMovieData("Unknown")).isInstanceOf(DigiKatNotFoundException.class);
+            verify(digiKatClient, times(1)).getMovieData("Unknown");
+        }
+
+        @Test
+        @DisplayName("other errors are not cached")
+        void shouldNotCacheErrors() {
+            // Given
+            DigiKatMovieData expected = movieData(null);
+            when(digiKatClient.getMovieData("Inception"))
+                    .thenThrow(new DigiKatServerException("Server error"))
+                    .thenReturn(expected);
+
+            // When / Then
+            assertThatThrownBy(() -> cache.getMovieData("Inception")).isInstanceOf(DigiKatServerException.class);
+            assertThat(cache.getMovieData("Inception")).isSameAs(expected);
+        }
+
+        @Test
+        @DisplayName("invalid title is rejected by the client")
+        void shouldPassValidationErrors() {
+            // Given
+            when(digiKatClient.getMovieData(null)).thenThrow(new IllegalArgumentException("Movie title cannot be empty"));
+
+            // When / Then
+            assertThatThrownBy(() -> cache.getMovieData(null)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("timeToLive()")
+    class TimeToLiveTests {
+
+        @Test
+        @DisplayName("fraction of the time since last update")
+        void shouldDeriveTtlFromLastUpdate() {
+            assertThat(cache.timeToLive(movieData("2025-05-22"), NOW)).isEqualTo(Duration.ofHours(24));
+            assertThat(cache.timeToLive(movieData("2025-05-31T14:00:00"), NOW)).isEqualTo(Duration.ofMinutes(60));
+        }
+
+        @Test
+        @DisplayName("bounded by min and max ttl")
+        void shouldClampTtl() {
+            assertThat(cache.timeToLive(movieData("2020-01-01"), NOW)).isEqualTo(Duration.ofHours(24));
+            assertThat(cache.timeToLive(movieData("2025-05-31T23:59:00Z"), NOW)).isEqualTo(Duration.ofMinutes(5));
+        }
+
+        @Test
+        @DisplayName("default ttl for missing or unparsable date, not found ttl for missing titles")
+        void shouldUseFallbackTtl() {
+            assertThat(cache.timeToLive(movieData(null), NOW)).isEqualTo(Duration.ofHours(1));
+            assertThat(cache.timeToLive(movieData("yesterday"), NOW)).isEqualTo(Duration.ofHours(1));
+            assertThat(cache.timeToLive(null, NOW)).isEqualTo(Duration.ofMinutes(10));
+        }
+    }
+}
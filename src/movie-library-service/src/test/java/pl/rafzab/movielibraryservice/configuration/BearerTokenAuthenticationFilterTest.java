@@ -0,0 +1,80 @@
+package pl.rafzab.movielibraryservice.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import pl.rafzab.movielibraryservice.configuration.security.BearerTokenAuthenticationFilter;
+import pl.rafzab.movielibraryservice.configuration.security.SecurityUtils;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.exception.UnauthorizedException;
+import pl.rafzab.movielibraryservice.service.auth.AuthTokenService;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class BearerTokenAuthenticationFilterTest {
+
+    private final AuthTokenService authTokenService = mock(AuthTokenService.class);
+    private final BearerTokenAuthenticationFilter filter = new BearerTokenAuthenticationFilter(authTokenService, new SimpleMeterRegistry());
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldAuthenticateRequestWithValidToken() throws Exception {
+        // Given
+        User user = new User();
+        user.setUserId(42L);
+        when(authTokenService.verifyToken("valid")).thenReturn(Optional.of(user));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer valid");
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Then
+        assertThat(SecurityUtils.getCurrentUser()).isSameAs(user);
+        assertThatThrownBy(SecurityUtils::getPasswordAuthenticatedUser).isInstanceOf(UnauthorizedException.class);
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    @Test
+    void shouldLeaveRequestUnauthenticatedWithInvalidToken() throws Exception {
+        // Given
+        when(authTokenService.verifyToken("invalid")).thenReturn(Optional.empty());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer invalid");
+        MockFilterChain chain = new MockFilterChain();
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Then
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    @Test
+    void shouldIgnoreBasicCredentials() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Basic dXNlcjpwYXNz");
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        verifyNoInteractions(authTokenService);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+}
@@ -0,0 +1,78 @@
+package pl.rafzab.movielibraryservice.configuration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.rafzab.movielibraryservice.configuration.threads.ConcurrencyLimitingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class ConcurrencyLimitingDataSourceTest {
+
+    private DataSource target;
+    private Connection connection;
+    private ConcurrencyLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        dataSource = new ConcurrencyLimitingDataSource(target, 1, Duration.ofMillis(50));
+    }
+
+    @Test
+    void shouldReturnPermitWhenConnectionIsClosed() throws SQLException {
+        // Given
+        Connection borrowed = dataSource.getConnection();
+        assertThat(dataSource.availablePermits()).isZero();
+
+        // When
+        borrowed.close();
+        borrowed.close();
+
+        // Then
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    void shouldFailWhenNoPermitIsAvailableInTime() throws SQLException {
+        // Given
+        dataSource.getConnection();
+
+        // When / Then
+        assertThatThrownBy(() -> dataSource.getConnection())
+                .isInstanceOf(SQLTransientConnectionException.class);
+        verify(target, times(1)).getConnection();
+    }
+
+    @Test
+    void shouldReturnPermitWhenTargetFails() throws SQLException {
+        // Given
+        when(target.getConnection()).thenThrow(new SQLException("Pool exhausted"));
+
+        // When / Then
+        assertThatThrownBy(() -> dataSource.getConnection()).isInstanceOf(SQLException.class);
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDelegateOtherCallsToConnection() throws SQLException {
+        // Given
+        when(connection.getAutoCommit()).thenReturn(true);
+
+        // When
+        Connection borrowed = dataSource.getConnection();
+
+        // Then
+        assertThat(borrowed.getAutoCommit()).isTrue();
+    }
+}
@@ -0,0 +1,98 @@
+package pl.rafzab.movielibraryservice.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import pl.rafzab.movielibraryservice.configuration.security.BearerTokenAuthenticationFilter;
+import pl.rafzab.movielibraryservice.configuration.security.SecurityUtils;
+import pl.rafzab.movielibraryservice.dto.response.AuthTokenDTO;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.exception.GlobalExceptionHandlingController;
+import pl.rafzab.movielibraryservice.service.auth.AuthTokenService;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class AuthControllerTest {
+
+    private static MockedStatic<SecurityUtils> securityUtils;
+    @Mock
+    private AuthTokenService authTokenService;
+    @InjectMocks
+    private AuthController authController;
+    private MockMvc mockMvc;
+    private User dummyUser;
+
+    @BeforeAll
+    static void initStatic() {
+        securityUtils = Mockito.mockStatic(SecurityUtils.class);
+    }
+
+    @AfterAll
+    static void closeStatic() {
+        securityUtils.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(authController).build();
+        dummyUser = new User();
+        dummyUser.setUserId(42L);
+        securityUtils.when(SecurityUtils::getPasswordAuthenticatedUser).thenReturn(dummyUser);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void issueToken_ShouldReturnTokenForCurrentUser() throws Exception {
+        when(authTokenService.issueToken(dummyUser))
+                .thenReturn(new AuthTokenDTO("abc.def", "Bearer", Instant.parse("2030-01-01T00:00:00Z")));
+
+        mockMvc.perform(post("/api/v1/auth/token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.accessToken").value("abc.def"))
+                .andExpect(jsonPath("$.data.tokenType").value("Bearer"));
+
+        verify(authTokenService).issueToken(dummyUser);
+    }
+
+    @Test
+    void issueToken_ShouldRejectRequestAuthenticatedWithAccessToken() throws Exception {
+        securityUtils.when(SecurityUtils::getPasswordAuthenticatedUser).thenCallRealMethod();
+        securityUtils.when(SecurityUtils::getCurrentUser).thenCallRealMethod();
+        when(authTokenService.verifyToken("abc.def")).thenReturn(Optional.of(dummyUser));
+        mockMvc = MockMvcBuilders.standaloneSetup(authController)
+                .setControllerAdvice(new GlobalExceptionHandlingController())
+                .addFilters(new BearerTokenAuthenticationFilter(authTokenService, new SimpleMeterRegistry()))
+                .build();
+
+        mockMvc.perform(post("/api/v1/auth/token").header("Authorization", "Bearer abc.def"))
+                .andExpect(status().isUnauthorized());
+
+        verify(authTokenService, never()).issueToken(any());
+    }
+}
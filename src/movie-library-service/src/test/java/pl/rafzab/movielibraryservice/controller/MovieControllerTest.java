@@ -1,5 +1,7 @@
 package pl.rafzab.movielibraryservice.controller;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,27 +10,49 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import pl.rafzab.movielibraryservice.configuration.security.SecurityUtils;
+import pl.rafzab.movielibraryservice.dto.request.MovieMetadataDTO;
 import pl.rafzab.movielibraryservice.dto.request.MovieModificationDTO;
+import pl.rafzab.movielibraryservice.dto.request.MovieSearchDTO;
 import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
 import pl.rafzab.movielibraryservice.dto.response.MovieListDTO;
 import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.enums.ExportFormat;
 import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
+import pl.rafzab.movielibraryservice.repository.LibraryVersion;
+import pl.rafzab.movielibraryservice.service.file.PartialContentWriter;
+import pl.rafzab.movielibraryservice.service.file.StoredFile;
+import pl.rafzab.movielibraryservice.service.movie.MovieDownload;
+import pl.rafzab.movielibraryservice.service.movie.MovieExportService;
+import pl.rafzab.movielibraryservice.service.movie.MovieImportService;
+import pl.rafzab.movielibraryservice.service.movie.MovieListingCache;
+import pl.rafzab.movielibraryservice.service.movie.MovieListingCacheProperties;
 import pl.rafzab.movielibraryservice.service.movie.MovieService;
+import pl.rafzab.movielibraryservice.service.upload.StreamedMovieUpload;
+import pl.rafzab.movielibraryservice.service.upload.StreamingUploadParser;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,10 +61,21 @@ class MovieControllerTest {
     private static MockedStatic<SecurityUtils> securityUtils;
     @Mock
     private MovieService movieService;
+    @Mock
+    private StreamingUploadParser streamingUploadParser;
+    @Mock
+    private MovieImportService movieImportService;
+    @Mock
+    private MovieExportService movieExportService;
+    @Spy
+    private PartialContentWriter partialContentWriter = new PartialContentWriter(new SimpleMeterRegistry());
+    @Spy
+    private MovieListingCache movieListingCache = new MovieListingCache(listingCacheProperties(), new SimpleMeterRegistry());
     @InjectMocks
     private MovieController movieController;
     private MockMvc mockMvc;
     private User dummyUser;
+    private LibraryVersion libraryVersion;
 
     @BeforeAll
     static void initStatic() {
@@ -60,14 +95,16 @@ class MovieControllerTest {
         dummyUser.setEmail("test");
         dummyUser.setPassword("test");
         securityUtils.when(SecurityUtils::getCurrentUser).thenReturn(dummyUser);
+        libraryVersion = new LibraryVersion(42L, 3L, Instant.parse("2024-05-01T10:15:30Z"));
     }
 
     @Test
     void findUserMovies_ShouldReturnOkWithData() throws Exception {
         MovieListDTO listDto = MovieListDTO.builder()
                 .currentPage(1).limit(2).totalItems(10L).totalPages(5)
-                .movies(List.of(new MovieDTO(1L, "t", "d", 2000, 100)))
+                .movies(List.of(new MovieDTO(1L, "t", "d", 2000, 100, RankingStatus.DONE)))
                 .build();
+        when(movieService.findLibraryVersion(dummyUser)).thenReturn(libraryVersion);
         when(movieService.findUserMovies(dummyUser, 0, 5, MovieFieldSort.SIZE, Sort.Direction.DESC))
                 .thenReturn(listDto);
 
@@ -80,11 +117,115 @@ class MovieControllerTest {
                 .andExpect(jsonPath("$.data.currentPage").value(1))
                 .andExpect(jsonPath("$.data.limit").value(2))
                 .andExpect(jsonPath("$.data.totalItems").value(10))
-                .andExpect(jsonPath("$.data.totalPages").value(5));
+                .andExpect(jsonPath("$.data.totalPages").value(5))
+                .andExpect(header().string("ETag", "W/\"42-3\""))
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
 
         verify(movieService).findUserMovies(dummyUser, 0, 5, MovieFieldSort.SIZE, Sort.Direction.DESC);
     }
 
+    @Test
+    void findUserMovies_ShouldServeRepeatedPageFromCacheUntilLibraryChanges() throws Exception {
+        MovieListDTO listDto = MovieListDTO.builder()
+                .currentPage(0).limit(1).totalItems(1L).totalPages(1)
+                .movies(List.of(new MovieDTO(1L, "t", "d", 2000, 100, RankingStatus.DONE)))
+                .build();
+        when(movieService.findLibraryVersion(dummyUser))
+                .thenReturn(libraryVersion, libraryVersion, new LibraryVersion(42L, 4L, Instant.parse("2024-05-02T10:15:30Z")));
+        when(movieService.findUserMovies(dummyUser, 0, 20, MovieFieldSort.ALL, Sort.Direction.DESC)).thenReturn(listDto);
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/v1/movies"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.movies[0].movieId").value(1));
+        }
+
+        verify(movieService, times(2)).findUserMovies(dummyUser, 0, 20, MovieFieldSort.ALL, Sort.Direction.DESC);
+    }
+
+    @Test
+    void findUserMovies_ShouldReturnNotModifiedWhenLibraryUnchanged() throws Exception {
+        when(movieService.findLibraryVersion(dummyUser)).thenReturn(libraryVersion);
+
+        mockMvc.perform(get("/api/v1/movies").header("If-None-Match", "W/\"42-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"42-3\""))
+                .andExpect(content().string(""));
+
+        verify(movieService, never()).findUserMovies(any(), anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    void findUserMovies_ShouldReturnNotModifiedWhenNotModifiedSince() throws Exception {
+        when(movieService.findLibraryVersion(dummyUser)).thenReturn(libraryVersion);
+
+        mockMvc.perform(get("/api/v1/movies").header("If-Modified-Since", "Wed, 01 May 2024 10:15:30 GMT"))
+                .andExpect(status().isNotModified());
+
+        verify(movieService, never()).findUserMovies(any(), anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    void findUserMovies_ShouldReturnListingWhenLibraryChanged() throws Exception {
+        when(movieService.findLibraryVersion(dummyUser)).thenReturn(libraryVersion);
+        when(movieService.findUserMovies(dummyUser, 0, 20, MovieFieldSort.ALL, Sort.Direction.DESC))
+                .thenReturn(MovieListDTO.builder().movies(List.of()).build());
+
+        mockMvc.perform(get("/api/v1/movies").header("If-None-Match", "W/\"42-2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"42-3\""));
+    }
+
+    @Test
+    void findUserMovies_ShouldUseCursorModeWhenCursorGiven() throws Exception {
+        MovieListDTO listDto = MovieListDTO.builder()
+                .limit(1)
+                .movies(List.of(new MovieDTO(1L, "t", "d", 2000, 100, RankingStatus.DONE)))
+                .nextCursor("next")
+                .build();
+        when(movieService.findLibraryVersion(dummyUser)).thenReturn(libraryVersion);
+        when(movieService.findUserMoviesByCursor(dummyUser, "abc", 1, MovieFieldSort.ALL, Sort.Direction.DESC, false))
+                .thenReturn(listDto);
+
+        mockMvc.perform(get("/api/v1/movies")
+                        .param("limit", "1")
+                        .param("cursor", "abc")
+                        .param("count", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.nextCursor").value("next"))
+                .andExpect(jsonPath("$.data.movies[0].movieId").value(1));
+
+        verify(movieService, never()).findUserMovies(any(), anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    void searchMovies_ShouldReturnMatchingMovies() throws Exception {
+        MovieSearchDTO search = new MovieSearchDTO("star wa", 1970, null, 100, 300);
+        MovieListDTO listDto = MovieListDTO.builder()
+                .currentPage(0).limit(1).totalItems(1L).totalPages(1)
+                .movies(List.of(new MovieDTO(4L, "Star Wars", "Lucas", 1977, 250, RankingStatus.DONE)))
+                .build();
+        when(movieService.searchMovies(dummyUser, search, 0, 10)).thenReturn(listDto);
+
+        mockMvc.perform(get("/api/v1/movies/search")
+                        .param("query", "star wa")
+                        .param("yearFrom", "1970")
+                        .param("rankingFrom", "100")
+                        .param("rankingTo", "300")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalItems").value(1))
+                .andExpect(jsonPath("$.data.movies[0].title").value("Star Wars"));
+    }
+
+    @Test
+    void searchMovies_ShouldRejectMissingQuery() throws Exception {
+        mockMvc.perform(get("/api/v1/movies/search"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(movieService);
+    }
+
     @Test
     void saveMovie_ShouldReturnCreated() throws Exception {
         byte[] content = "dummy".getBytes();
@@ -106,6 +247,81 @@ class MovieControllerTest {
         verify(movieService).saveMovie(eq(dummyUser), any(MovieModificationDTO.class));
     }
 
+    @Test
+    void saveMovieStreaming_ShouldParseRequestAndReturnCreated() throws Exception {
+        StreamedMovieUpload upload = new StreamedMovieUpload(
+                new MovieMetadataDTO("T", "D", 2022),
+                new StoredFile("/movies/movie.mp4", "movie.mp4", 5L, "checksum")
+        );
+        when(streamingUploadParser.parse(any(HttpServletRequest.class))).thenReturn(upload);
+
+        mockMvc.perform(post("/api/v1/movies/stream")
+                        .contentType(MediaType.MULTIPART_FORM_DATA)
+                        .content("body"))
+                .andExpect(status().isCreated());
+
+        verify(movieService).saveMovie(dummyUser, upload);
+    }
+
+    @Test
+    void importMovies_ShouldStreamResultsAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            InputStream manifest = invocation.getArgument(1);
+            OutputStream results = invocation.getArgument(2);
+            manifest.readAllBytes();
+            results.write("{\"line\":1,\"status\":\"IMPORTED\",\"movieId\":7}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(movieImportService).importMovies(eq(dummyUser), any(InputStream.class), any(OutputStream.class));
+
+        mockMvc.perform(post("/api/v1/movies/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"title\":\"T\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"line\":1,\"status\":\"IMPORTED\",\"movieId\":7}\n"));
+
+        verify(movieImportService).importMovies(eq(dummyUser), any(InputStream.class), any(OutputStream.class));
+    }
+
+    @Test
+    void exportMovies_ShouldStreamCsvAsAttachment() throws Exception {
+        mockMvc.perform(get("/api/v1/movies/export")
+                        .param("format", "CSV")
+                        .param("sort", "SIZE")
+                        .param("direction", "ASC"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"movies.csv\""))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+
+        verify(movieExportService).exportMovies(eq(dummyUser), eq(ExportFormat.CSV), eq(MovieFieldSort.SIZE),
+                eq(Sort.Direction.ASC), any(OutputStream.class), eq(false));
+    }
+
+    @Test
+    void exportMovies_ShouldCompressWhenClientAcceptsGzip() throws Exception {
+        mockMvc.perform(get("/api/v1/movies/export")
+                        .header("Accept-Encoding", "br;q=1.0, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_NDJSON_VALUE))
+                .andExpect(header().string("Content-Encoding", "gzip"));
+
+        verify(movieExportService).exportMovies(eq(dummyUser), eq(ExportFormat.NDJSON), eq(MovieFieldSort.ALL),
+                eq(Sort.Direction.DESC), any(OutputStream.class), eq(true));
+    }
+
+    @Test
+    void exportMovies_ShouldNotCompressWhenGzipIsRefused() throws Exception {
+        mockMvc.perform(get("/api/v1/movies/export")
+                        .header("Accept-Encoding", "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+
+        verify(movieExportService).exportMovies(eq(dummyUser), eq(ExportFormat.NDJSON), eq(MovieFieldSort.ALL),
+                eq(Sort.Direction.DESC), any(OutputStream.class), eq(false));
+    }
+
     @Test
     void updateMovie_ShouldReturnUpdated() throws Exception {
         byte[] content = "updated".getBytes();
@@ -140,7 +356,7 @@ class MovieControllerTest {
                 return "file.mp4";
             }
         };
-        when(movieService.downloadMovie(dummyUser, 7L)).thenReturn(resource);
+        when(movieService.downloadMovie(dummyUser, 7L)).thenReturn(new MovieDownload(resource, "\"abc\""));
 
         mockMvc.perform(get("/api/v1/movies/7/download"))
                 .andExpect(status().isOk())
@@ -149,4 +365,49 @@ class MovieControllerTest {
 
         verify(movieService).downloadMovie(dummyUser, 7L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void downloadMovie_ShouldReturnPartialContentForRange() throws Exception {
+        byte[] data = "dummy".getBytes();
+        Resource resource = new ByteArrayResource(data) {
+            @Override
+            public String getFilename() {
+                return "file.mp4";
+            }
+        };
+        when(movieService.downloadMovie(dummyUser, 7L)).thenReturn(new MovieDownload(resource, "\"abc\""));
+
+        mockMvc.perform(get("/api/v1/movies/7/download").header("Range", "bytes=1-2"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().string("Content-Range", "bytes 1-2/5"))
+                .andExpect(content().bytes("um".getBytes()));
+    }
+
+    @Test
+    void downloadMovie_ShouldReturnNotModifiedWhenEntityTagMatches() throws Exception {
+        Resource resource = new ByteArrayResource("dummy".getBytes()) {
+            @Override
+            public String getFilename() {
+                return "file.mp4";
+            }
+        };
+        when(movieService.downloadMovie(dummyUser, 7L)).thenReturn(new MovieDownload(resource, "\"abc\""));
+
+        mockMvc.perform(get("/api/v1/movies/7/download").header("If-None-Match", "\"abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(header().doesNotExist("Content-Disposition"))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    private static MovieListingCacheProperties listingCacheProperties() {
+        var properties = new MovieListingCacheProperties();
+        properties.setEnabled(true);
+        properties.setMaxEntries(100L);
+        properties.setMaxWeightBytes(1_048_576L);
+        properties.setExpireAfterAccess(Duration.ofMinutes(1));
+        properties.setReconnectDelay(Duration.ofSeconds(1));
+        return properties;
+    }
+}
@@ -0,0 +1,105 @@
+package pl.rafzab.movielibraryservice.controller;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import pl.rafzab.movielibraryservice.configuration.security.SecurityUtils;
+import pl.rafzab.movielibraryservice.dto.request.MovieMetadataDTO;
+import pl.rafzab.movielibraryservice.dto.request.UploadSessionRequestDTO;
+import pl.rafzab.movielibraryservice.dto.response.UploadProgressDTO;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.service.upload.ChunkedUploadService;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class UploadControllerTest {
+
+    private static MockedStatic<SecurityUtils> securityUtils;
+    private static final UUID UPLOAD_ID = UUID.fromString("0b7e6c1e-8d1c-4c5f-9d47-6f1f0f5c2a11");
+    @Mock
+    private ChunkedUploadService chunkedUploadService;
+    @InjectMocks
+    private UploadController uploadController;
+    private MockMvc mockMvc;
+    private User dummyUser;
+
+    @BeforeAll
+    static void initStatic() {
+        securityUtils = Mockito.mockStatic(SecurityUtils.class);
+    }
+
+    @AfterAll
+    static void closeStatic() {
+        securityUtils.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(uploadController).build();
+        dummyUser = new User();
+        dummyUser.setUserId(42L);
+        securityUtils.when(SecurityUtils::getCurrentUser).thenReturn(dummyUser);
+    }
+
+    @Test
+    void createSession_ShouldReturnCreatedWithSession() throws Exception {
+        when(chunkedUploadService.createSession(dummyUser, new UploadSessionRequestDTO("movie.mp4", "video/mp4", 10L)))
+                .thenReturn(progress(List.of()));
+
+        mockMvc.perform(post("/api/v1/uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fileName\":\"movie.mp4\",\"contentType\":\"video/mp4\",\"totalSize\":10}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.uploadId").value(UPLOAD_ID.toString()))
+                .andExpect(jsonPath("$.data.totalChunks").value(3));
+    }
+
+    @Test
+    void uploadChunk_ShouldWriteBodyAsChunk() throws Exception {
+        when(chunkedUploadService.writeChunk(eq(dummyUser), eq(UPLOAD_ID), eq(1), any(InputStream.class)))
+                .thenReturn(progress(List.of(1)));
+
+        mockMvc.perform(put("/api/v1/uploads/" + UPLOAD_ID + "/chunks/1")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content("4567"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.receivedChunks[0]").value(1));
+    }
+
+    @Test
+    void completeUpload_ShouldReturnCreated() throws Exception {
+        mockMvc.perform(post("/api/v1/uploads/" + UPLOAD_ID + "/complete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"T\",\"director\":\"D\",\"yearOfProduction\":2020}"))
+                .andExpect(status().isCreated());
+
+        verify(chunkedUploadService).completeUpload(dummyUser, UPLOAD_ID, new MovieMetadataDTO("T", "D", 2020));
+    }
+
+    private UploadProgressDTO progress(List<Integer> receivedChunks) {
+        return new UploadProgressDTO(UPLOAD_ID, 10L, 4L, 3, receivedChunks, 4L * receivedChunks.size(),
+                false, Instant.parse("2030-01-01T00:00:00Z"));
+    }
+}
@@ -0,0 +1,103 @@
+package pl.rafzab.movielibraryservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pl.rafzab.movielibraryservice.dto.response.AuthTokenDTO;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.service.auth.AuthTokenProperties;
+import pl.rafzab.movielibraryservice.service.auth.AuthTokenService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AuthTokenService Tests")
+class AuthTokenServiceTest {
+
+    private static final String SECRET = "test-secret-with-at-least-32-characters";
+
+    private AuthTokenService authTokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        authTokenService = new AuthTokenService(properties(SECRET, Duration.ofHours(1)));
+        user = new User();
+        user.setUserId(42L);
+        user.setEmail("user@example.com");
+        user.setPassword("$2a$10$hash");
+    }
+
+    private AuthTokenProperties properties(String secret, Duration ttl) {
+        AuthTokenProperties properties = new AuthTokenProperties();
+        properties.setSecret(secret);
+        properties.setTtl(ttl);
+        return properties;
+    }
+
+    @Test
+    @DisplayName("Should verify issued token and return its owner")
+    void shouldVerifyIssuedToken() {
+        // given
+        AuthTokenDTO token = authTokenService.issueToken(user);
+
+        // when
+        var verified = authTokenService.verifyToken(token.accessToken());
+
+        // then
+        assertThat(token.tokenType()).isEqualTo("Bearer");
+        assertThat(token.expiresAt()).isAfter(Instant.now());
+        assertThat(verified).hasValueSatisfying(owner -> {
+            assertThat(owner.getUserId()).isEqualTo(42L);
+            assertThat(owner.getEmail()).isEqualTo("user@example.com");
+            assertThat(owner.getPassword()).isNull();
+        });
+    }
+
+    @Test
+    @DisplayName("Should reject token with modified payload")
+    void shouldRejectTamperedToken() {
+        // given
+        String token = authTokenService.issueToken(user).accessToken();
+        String signature = token.substring(token.indexOf('.'));
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("1|9999999999|admin@example.com".getBytes(StandardCharsets.UTF_8));
+
+        // when / then
+        assertThat(authTokenService.verifyToken(forgedPayload + signature)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject token signed with another secret")
+    void shouldRejectTokenWithOtherSecret() {
+        // given
+        var otherService = new AuthTokenService(properties("another-secret-with-at-least-32-characters", Duration.ofHours(1)));
+        String token = otherService.issueToken(user).accessToken();
+
+        // when / then
+        assertThat(authTokenService.verifyToken(token)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject expired token")
+    void shouldRejectExpiredToken() {
+        // given
+        var expiringService = new AuthTokenService(properties(SECRET, Duration.ofSeconds(-1)));
+        String token = expiringService.issueToken(user).accessToken();
+
+        // when / then
+        assertThat(authTokenService.verifyToken(token)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject malformed token")
+    void shouldRejectMalformedToken() {
+        assertThat(authTokenService.verifyToken("not-a-token")).isEmpty();
+        assertThat(authTokenService.verifyToken("@@@.###")).isEmpty();
+        assertThat(authTokenService.verifyToken("")).isEmpty();
+    }
+}
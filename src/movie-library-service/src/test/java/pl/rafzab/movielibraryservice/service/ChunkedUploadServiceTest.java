@@ -0,0 +1,297 @@
+package pl.rafzab.movielibraryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import pl.rafzab.movielibraryservice.dto.request.MovieMetadataDTO;
+import pl.rafzab.movielibraryservice.dto.request.UploadSessionRequestDTO;
+import pl.rafzab.movielibraryservice.dto.response.UploadProgressDTO;
+import pl.rafzab.movielibraryservice.entity.UploadSession;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.exception.BadRequestException;
+import pl.rafzab.movielibraryservice.exception.NotFoundException;
+import pl.rafzab.movielibraryservice.repository.UploadSessionRepository;
+import pl.rafzab.movielibraryservice.service.file.FileStorageService;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.LocalStorageProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.StripedLocalStorageBackend;
+import pl.rafzab.movielibraryservice.service.movie.MovieService;
+import pl.rafzab.movielibraryservice.service.upload.ChunkedUploadService;
+import pl.rafzab.movielibraryservice.service.upload.CompletedUpload;
+import pl.rafzab.movielibraryservice.service.upload.StreamedMovieUpload;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ChunkedUploadService Tests")
+class ChunkedUploadServiceTest {
+
+    @TempDir
+    Path tempDir;
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+    @Mock
+    private MovieService movieService;
+
+    private ChunkedUploadService chunkedUploadService;
+    private FileStorageService fileStorageService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        UploadProperties uploadProperties = new UploadProperties();
+        uploadProperties.setDirectory(tempDir.toString());
+        uploadProperties.setMaxFileSize(100L);
+        uploadProperties.setChunkSize(4L);
+        uploadProperties.setSessionTtl(Duration.ofHours(1));
+        LocalStorageProperties localStorageProperties = new LocalStorageProperties();
+        localStorageProperties.setMinFreeSpaceBytes(0L);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        fileStorageService = new FileStorageService(
+                new StripedLocalStorageBackend(localStorageProperties, uploadProperties, meterRegistry), meterRegistry);
+        chunkedUploadService = new ChunkedUploadService(uploadSessionRepository, fileStorageService, movieService,
+                uploadProperties, mock(PlatformTransactionManager.class));
+
+        user = new User();
+        user.setUserId(1L);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("It should create a session with a preallocated part file")
+    void shouldCreateSession() throws IOException {
+        // When
+        UploadProgressDTO result = chunkedUploadService.createSession(user, new UploadSessionRequestDTO("movie.mp4", "video/mp4", 10L));
+
+        // Then
+        assertThat(result.totalChunks()).isEqualTo(3);
+        assertThat(result.chunkSize()).isEqualTo(4L);
+        assertThat(result.receivedChunks()).isEmpty();
+        ArgumentCaptor<UploadSession> captor = ArgumentCaptor.forClass(UploadSession.class);
+        verify(uploadSessionRepository).save(captor.capture());
+        assertThat(Files.size(Paths.get(captor.getValue().getPartPath()))).isEqualTo(10L);
+    }
+
+    @Test
+    @DisplayName("It should reject a session larger than the size limit")
+    void shouldRejectTooLargeSession() {
+        assertThrows(BadRequestException.class,
+                () -> chunkedUploadService.createSession(user, new UploadSessionRequestDTO("movie.mp4", "video/mp4", 101L)));
+        verifyNoInteractions(uploadSessionRepository);
+    }
+
+    @Test
+    @DisplayName("It should write chunks out of order and complete the upload")
+    void shouldWriteChunksOutOfOrderAndComplete() throws IOException {
+        // Given
+        chunkedUploadService.createSession(user, new UploadSessionRequestDTO("movie.mp4", "video/mp4", 10L));
+        ArgumentCaptor<UploadSession> captor = ArgumentCaptor.forClass(UploadSession.class);
+        verify(uploadSessionRepository).save(captor.capture());
+        UploadSession session = captor.getValue();
+        UUID uploadId = session.getUploadId();
+        when(uploadSessionRepository.findByUploadIdAndUser(uploadId, user)).thenReturn(Optional.of(session));
+        when(uploadSessionRepository.findReceivedChunks(uploadId)).thenReturn(List.of(2), List.of(0, 2), List.of(0, 1, 2), List.of(0, 1, 2));
+        when(uploadSessionRepository.deleteActive(eq(uploadId), eq(user), any(Instant.class))).thenReturn(1);
+
+        // When
+        chunkedUploadService.writeChunk(user, uploadId, 2, new ByteArrayInputStream("89".getBytes()));
+        chunkedUploadService.writeChunk(user, uploadId, 0, new ByteArrayInputStream("0123".getBytes()));
+        UploadProgressDTO progress = chunkedUploadService.writeChunk(user, uploadId, 1, new ByteArrayInputStream("4567".getBytes()));
+        chunkedUploadService.completeUpload(user, uploadId, new MovieMetadataDTO("T", "D", 2020));
+
+        // Then
+        assertThat(progress.complete()).isTrue();
+        assertThat(progress.receivedBytes()).isEqualTo(10L);
+        ArgumentCaptor<StreamedMovieUpload> uploadCaptor = ArgumentCaptor.forClass(StreamedMovieUpload.class);
+        verify(movieService).saveMovie(eq(user), uploadCaptor.capture());
+        Path storedFile = Paths.get(uploadCaptor.getValue().file().filePath());
+        assertThat(Files.readString(storedFile)).isEqualTo("0123456789");
+        assertThat(uploadCaptor.getValue().file().size()).isEqualTo(10L);
+        verify(uploadSessionRepository).deleteActive(eq(uploadId), eq(user), any(Instant.class));
+        assertThat(Files.exists(Paths.get(session.getPartPath()))).isTrue();
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(Files.exists(Paths.get(session.getPartPath()))).isFalse();
+        assertThat(Files.readString(storedFile)).isEqualTo("0123456789");
+    }
+
+    @Test
+    @DisplayName("It should keep the session and the part file when the movie is not saved")
+    void shouldKeepPartFileOnRollback() throws IOException {
+        // Given
+        UploadSession session = completedSession();
+        when(uploadSessionRepository.deleteActive(eq(session.getUploadId()), eq(user), any(Instant.class))).thenReturn(1);
+        CompletedUpload upload = chunkedUploadService.completeFile(user, session.getUploadId());
+
+        // When
+        boolean claimed = chunkedUploadService.claim(user, upload);
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        assertThat(claimed).isTrue();
+        assertThat(Files.readString(Paths.get(session.getPartPath()))).isEqualTo("0123456789");
+        assertThat(Files.exists(Paths.get(upload.file().filePath()))).isFalse();
+        verify(uploadSessionRepository, never()).delete(any(UploadSession.class));
+    }
+
+    @Test
+    @DisplayName("It should stage a copy that later writes to the part file do not change")
+    void shouldStageIndependentCopy() throws IOException {
+        // Given
+        UploadSession session = completedSession();
+
+        // When
+        CompletedUpload upload = chunkedUploadService.completeFile(user, session.getUploadId());
+        Files.writeString(Paths.get(session.getPartPath()), "xxxxxxxxxx");
+
+        // Then
+        Path stagedFile = Paths.get(upload.file().filePath());
+        assertThat(Files.readString(stagedFile)).isEqualTo("0123456789");
+        assertThat(Files.isSameFile(stagedFile, Paths.get(session.getPartPath()))).isFalse();
+        assertThat(upload.file().size()).isEqualTo(10L);
+    }
+
+    @Test
+    @DisplayName("It should not complete an upload whose session was claimed by another request")
+    void shouldNotCompleteClaimedUpload() throws IOException {
+        // Given
+        UploadSession session = completedSession();
+        when(uploadSessionRepository.deleteActive(eq(session.getUploadId()), eq(user), any(Instant.class))).thenReturn(0);
+
+        // When & Then
+        assertThrows(NotFoundException.class,
+                () -> chunkedUploadService.completeUpload(user, session.getUploadId(), new MovieMetadataDTO("T", "D", 2020)));
+        verifyNoInteractions(movieService);
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+        assertThat(Files.exists(Paths.get(session.getPartPath()))).isTrue();
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(Paths.get(session.getPartPath()));
+        }
+    }
+
+    @Test
+    @DisplayName("It should reject a chunk with the wrong length")
+    void shouldRejectChunkWithWrongLength() throws IOException {
+        // Given
+        UploadSession session = session(10L);
+        Files.createFile(Paths.get(session.getPartPath()));
+        when(uploadSessionRepository.findByUploadIdAndUser(session.getUploadId(), user)).thenReturn(Optional.of(session));
+
+        // When & Then
+        assertThrows(BadRequestException.class, () -> chunkedUploadService.writeChunk(
+                user, session.getUploadId(), 0, new ByteArrayInputStream("012".getBytes())));
+        verify(uploadSessionRepository, never()).markChunkReceived(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("It should reject a chunk index outside of the file")
+    void shouldRejectChunkIndexOutOfRange() {
+        // Given
+        UploadSession session = session(10L);
+        when(uploadSessionRepository.findByUploadIdAndUser(session.getUploadId(), user)).thenReturn(Optional.of(session));
+
+        // When & Then
+        assertThrows(BadRequestException.class, () -> chunkedUploadService.writeChunk(
+                user, session.getUploadId(), 3, new ByteArrayInputStream("0".getBytes())));
+    }
+
+    @Test
+    @DisplayName("It should not complete an upload with missing chunks")
+    void shouldNotCompleteIncompleteUpload() {
+        // Given
+        UploadSession session = session(10L);
+        when(uploadSessionRepository.findByUploadIdAndUser(session.getUploadId(), user)).thenReturn(Optional.of(session));
+        when(uploadSessionRepository.findReceivedChunks(session.getUploadId())).thenReturn(List.of(0, 2));
+
+        // When & Then
+        BadRequestException exception = assertThrows(BadRequestException.class,
+                () -> chunkedUploadService.completeUpload(user, session.getUploadId(), new MovieMetadataDTO("T", "D", 2020)));
+        assertThat(exception.getMessage()).isEqualTo("Upload is incomplete: received 2 of 3 chunks");
+        verifyNoInteractions(movieService);
+    }
+
+    @Test
+    @DisplayName("It should treat an expired session as not found")
+    void shouldTreatExpiredSessionAsNotFound() {
+        // Given
+        UploadSession session = session(10L);
+        session.setExpiresAt(Instant.now().minusSeconds(1));
+        when(uploadSessionRepository.findByUploadIdAndUser(session.getUploadId(), user)).thenReturn(Optional.of(session));
+
+        // When & Then
+        assertThrows(NotFoundException.class, () -> chunkedUploadService.getProgress(user, session.getUploadId()));
+    }
+
+    @Test
+    @DisplayName("It should remove expired sessions with their part files")
+    void shouldRemoveExpiredSessions() throws IOException {
+        // Given
+        UploadSession session = session(10L);
+        Files.createFile(Paths.get(session.getPartPath()));
+        when(uploadSessionRepository.findAllByExpiresAtBefore(any(Instant.class))).thenReturn(List.of(session));
+
+        // When
+        chunkedUploadService.removeExpiredSessions();
+
+        // Then
+        assertThat(Files.exists(Paths.get(session.getPartPath()))).isFalse();
+        verify(uploadSessionRepository).delete(session);
+    }
+
+    private UploadSession completedSession() throws IOException {
+        UploadSession session = session(10L);
+        Files.writeString(Paths.get(session.getPartPath()), "0123456789");
+        when(uploadSessionRepository.findByUploadIdAndUser(session.getUploadId(), user)).thenReturn(Optional.of(session));
+        when(uploadSessionRepository.findReceivedChunks(session.getUploadId())).thenReturn(List.of(0, 1, 2));
+        return session;
+    }
+
+    private void completeTransaction(int status) {
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), status);
+    }
+
+    private UploadSession session(long totalSize) {
+        UUID uploadId = UUID.randomUUID();
+        return UploadSession.builder()
+                .uploadId(uploadId)
+                .user(user)
+                .fileName("movie.mp4")
+                .contentType("video/mp4")
+                .totalSize(totalSize)
+                .chunkSize(4L)
+                .partPath(tempDir.resolve(uploadId + ".part").toString())
+                .createdAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build();
+    }
+}
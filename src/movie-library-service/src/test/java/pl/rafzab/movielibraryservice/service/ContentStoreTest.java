@@ -0,0 +1,188 @@
+package pl.rafzab.movielibraryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import pl.rafzab.movielibraryservice.repository.StoredContentRepository;
+import pl.rafzab.movielibraryservice.repository.StoredContentRow;
+import pl.rafzab.movielibraryservice.service.file.ContentStore;
+import pl.rafzab.movielibraryservice.service.file.FileStorageService;
+import pl.rafzab.movielibraryservice.service.file.StoredFile;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.LocalStorageProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.StorageProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.StripedLocalStorageBackend;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ContentStore Tests")
+class ContentStoreTest {
+    private static final String CHECKSUM = "ab12cd34";
+    private static final String OBJECT_KEY = "objects/ab/12/" + CHECKSUM;
+
+    @TempDir
+    Path tempDir;
+    @Mock
+    private StoredContentRepository storedContentRepository;
+    @Mock
+    private FileStorageService fileStorageService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ContentStore contentStore;
+
+    @BeforeEach
+    void setUp() {
+        LocalStorageProperties localStorageProperties = new LocalStorageProperties();
+        localStorageProperties.setVolumes(List.of(tempDir.toString()));
+        localStorageProperties.setMinFreeSpaceBytes(0L);
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.setFanOutLevels(2);
+        StripedLocalStorageBackend storageBackend = new StripedLocalStorageBackend(
+                localStorageProperties, new UploadProperties(), new SimpleMeterRegistry());
+        contentStore = new ContentStore(storedContentRepository, storageBackend, fileStorageService, storageProperties,
+                transactionManager);
+    }
+
+    @Nested
+    @DisplayName("Store Tests")
+    class StoreTests {
+
+        @Test
+        @DisplayName("Should move new content into its fan-out directory")
+        void shouldMoveNewContentIntoFanOutDirectory() throws IOException {
+            // given
+            Path staged = Files.writeString(tempDir.resolve("123_movie.mp4"), "content");
+            Path objectPath = tempDir.resolve(OBJECT_KEY).toAbsolutePath();
+            when(storedContentRepository.addReference(CHECKSUM, objectPath.toString(), 7L))
+                    .thenReturn(new StoredContentRow(objectPath.toString(), 1));
+
+            // when
+            StoredFile stored = contentStore.store(new StoredFile(staged.toString(), "movie.mp4", 7L, CHECKSUM));
+
+            // then
+            assertThat(stored).isEqualTo(new StoredFile(objectPath.toString(), "movie.mp4", 7L, CHECKSUM));
+            assertThat(objectPath).hasContent("content");
+            assertThat(staged).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("Should drop staged file and keep the registered path when content is already stored")
+        void shouldDropStagedFileWhenContentAlreadyStored() throws IOException {
+            // given
+            Path objectPath = tempDir.resolve("objects").resolve("ab").resolve(CHECKSUM).toAbsolutePath();
+            Files.createDirectories(objectPath.getParent());
+            Files.writeString(objectPath, "content");
+            Path staged = Files.writeString(tempDir.resolve("456_copy.mp4"), "content");
+            when(storedContentRepository.addReference(anyString(), anyString(), anyLong()))
+                    .thenReturn(new StoredContentRow(objectPath.toString(), 2));
+
+            // when
+            StoredFile stored = contentStore.store(new StoredFile(staged.toString(), "copy.mp4", 7L, CHECKSUM));
+
+            // then
+            assertThat(stored.filePath()).isEqualTo(objectPath.toString());
+            assertThat(stored.fileName()).isEqualTo("copy.mp4");
+            assertThat(staged).doesNotExist();
+            assertThat(objectPath).hasContent("content");
+            assertThat(tempDir.resolve(OBJECT_KEY)).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("Should restore content whose file is missing despite existing references")
+        void shouldRestoreMissingContent() throws IOException {
+            // given
+            Path staged = Files.writeString(tempDir.resolve("789_movie.mp4"), "content");
+            Path objectPath = tempDir.resolve(OBJECT_KEY).toAbsolutePath();
+            when(storedContentRepository.addReference(anyString(), anyString(), anyLong()))
+                    .thenReturn(new StoredContentRow(objectPath.toString(), 3));
+
+            // when
+            StoredFile stored = contentStore.store(new StoredFile(staged.toString(), "movie.mp4", 7L, CHECKSUM));
+
+            // then
+            assertThat(Path.of(stored.filePath())).hasContent("content");
+            assertThat(staged).doesNotExist();
+        }
+    }
+
+    @Nested
+    @DisplayName("Release Tests")
+    class ReleaseTests {
+
+        @BeforeEach
+        void setUp() {
+            TransactionSynchronizationManager.initSynchronization();
+        }
+
+        @AfterEach
+        void tearDown() {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        @Test
+        @DisplayName("Should delete content after commit when last reference is released")
+        void shouldDeleteContentAfterCommitWhenLastReferenceReleased() {
+            // given
+            when(storedContentRepository.removeReference(CHECKSUM)).thenReturn(1);
+            when(storedContentRepository.lockUnreferenced(CHECKSUM)).thenReturn(Optional.of("/objects/ab/" + CHECKSUM));
+
+            // when
+            contentStore.release(CHECKSUM, "/objects/ab/" + CHECKSUM);
+
+            // then
+            verifyNoInteractions(fileStorageService);
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            verify(fileStorageService).deleteQuietly("/objects/ab/" + CHECKSUM);
+            verify(storedContentRepository).deleteUnreferenced(CHECKSUM);
+        }
+
+        @Test
+        @DisplayName("Should keep content still referenced at cleanup time")
+        void shouldKeepContentReferencedAgain() {
+            // given
+            when(storedContentRepository.removeReference(CHECKSUM)).thenReturn(1);
+            when(storedContentRepository.lockUnreferenced(CHECKSUM)).thenReturn(Optional.empty());
+
+            // when
+            contentStore.release(CHECKSUM, "/objects/ab/" + CHECKSUM);
+            TransactionSynchronizationUtils.triggerAfterCommit();
+
+            // then
+            verifyNoInteractions(fileStorageService);
+            verify(storedContentRepository, never()).deleteUnreferenced(anyString());
+        }
+
+        @Test
+        @DisplayName("Should delete legacy file after commit")
+        void shouldDeleteLegacyFileAfterCommit() {
+            // when
+            contentStore.release(null, "/uploads/123_old.mp4");
+            TransactionSynchronizationUtils.triggerAfterCommit();
+
+            // then
+            verify(fileStorageService).deleteQuietly("/uploads/123_old.mp4");
+            verifyNoInteractions(storedContentRepository);
+        }
+    }
+}
@@ -1,20 +1,26 @@
 package pl.rafzab.movielibraryservice.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.Resource;
 import org.springframework.mock.web.MockMultipartFile;
+import pl.rafzab.movielibraryservice.exception.BadRequestException;
 import pl.rafzab.movielibraryservice.exception.NotFoundException;
 import pl.rafzab.movielibraryservice.service.file.FileStorageService;
+import pl.rafzab.movielibraryservice.service.file.StoredFile;
 import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.LocalStorageProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.StripedLocalStorageBackend;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -22,7 +28,10 @@ import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.stream.IntStream;
 
@@ -38,12 +47,16 @@ class FileStorageServiceTest {
     Path tempDir;
     @Mock
     private UploadProperties uploadProperties;
-    @InjectMocks
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
     private FileStorageService fileStorageService;
 
     @BeforeEach
     void setUp() {
         when(uploadProperties.getDirectory()).thenReturn(tempDir.toString());
+        LocalStorageProperties localStorageProperties = new LocalStorageProperties();
+        localStorageProperties.setMinFreeSpaceBytes(0L);
+        fileStorageService = new FileStorageService(
+                new StripedLocalStorageBackend(localStorageProperties, uploadProperties, meterRegistry), meterRegistry);
     }
 
     @Nested
@@ -62,7 +75,7 @@ class FileStorageServiceTest {
             );
 
             // When
-            String result = fileStorageService.trySaveFile(mockFile);
+            String result = fileStorageService.trySaveFile(mockFile).filePath();
 
             // Then
             assertThat(result).isNotNull();
@@ -91,7 +104,7 @@ class FileStorageServiceTest {
             );
 
             // When
-            String result = fileStorageService.trySaveFile(mockFile);
+            String result = fileStorageService.trySaveFile(mockFile).filePath();
 
             // Then
             assertThat(result).isNotNull();
@@ -111,9 +124,9 @@ class FileStorageServiceTest {
             );
 
             // When
-            String result1 = fileStorageService.trySaveFile(mockFile1);
+            String result1 = fileStorageService.trySaveFile(mockFile1).filePath();
             Thread.sleep(10); // Ensure different timestamp
-            String result2 = fileStorageService.trySaveFile(mockFile2);
+            String result2 = fileStorageService.trySaveFile(mockFile2).filePath();
 
             // Then
             assertThat(result1).isNotEqualTo(result2);
@@ -137,7 +150,7 @@ class FileStorageServiceTest {
             );
 
             // When
-            String result = fileStorageService.trySaveFile(mockFile);
+            String result = fileStorageService.trySaveFile(mockFile).filePath();
 
             // Then
             assertThat(result).isNotNull();
@@ -157,7 +170,7 @@ class FileStorageServiceTest {
 
             // When & Then
             testFiles.forEach(file -> {
-                String result = fileStorageService.trySaveFile(file);
+                String result = fileStorageService.trySaveFile(file).filePath();
                 assertThat(result).isNotNull();
                 assertThat(result).contains(file.getOriginalFilename());
                 assertThat(Files.exists(Paths.get(result))).isTrue();
@@ -176,7 +189,7 @@ class FileStorageServiceTest {
             );
 
             // When
-            String result = fileStorageService.trySaveFile(mockFile);
+            String result = fileStorageService.trySaveFile(mockFile).filePath();
 
             // Then
             assertThat(result).isNotNull();
@@ -196,7 +209,7 @@ class FileStorageServiceTest {
             );
 
             // When
-            String result = fileStorageService.trySaveFile(mockFile);
+            String result = fileStorageService.trySaveFile(mockFile).filePath();
 
             // Then
             assertThat(result).isNotNull();
@@ -221,7 +234,7 @@ class FileStorageServiceTest {
             );
 
             // When
-            String result = fileStorageService.trySaveFile(mockFile);
+            String result = fileStorageService.trySaveFile(mockFile).filePath();
 
             // Then
             assertThat(result).isNotNull();
@@ -232,8 +245,56 @@ class FileStorageServiceTest {
     }
 
     @Nested
-    @DisplayName("loadFileByAbsolutePath Tests")
-    class LoadFileByAbsolutePathTests {
+    @DisplayName("trySaveStream Tests")
+    class TrySaveStreamTests {
+
+        @Test
+        @DisplayName("It should stream the file and compute size and checksum")
+        void shouldStreamFileAndComputeChecksum() throws IOException {
+            // Given
+            byte[] content = "streamed movie content".getBytes();
+
+            // When
+            StoredFile result = fileStorageService.trySaveStream("stream.mp4", new ByteArrayInputStream(content), 1000L);
+
+            // Then
+            assertThat(result.filePath()).contains("stream.mp4");
+            assertThat(result.size()).isEqualTo(content.length);
+            assertThat(result.checksum()).isEqualTo(sha256(content));
+            assertThat(Files.readAllBytes(Paths.get(result.filePath()))).isEqualTo(content);
+            try (var files = Files.list(tempDir)) {
+                assertThat(files.noneMatch(path -> path.toString().endsWith(".part"))).isTrue();
+            }
+        }
+
+        @Test
+        @DisplayName("It should reject a stream exceeding the size limit and remove the partial file")
+        void shouldRejectTooLargeStream() throws IOException {
+            // Given
+            byte[] content = new byte[2048];
+
+            // When & Then
+            assertThrows(
+                    BadRequestException.class,
+                    () -> fileStorageService.trySaveStream("big.mp4", new ByteArrayInputStream(content), 1024L)
+            );
+            try (var files = Files.list(tempDir)) {
+                assertThat(files.count()).isEqualTo(0L);
+            }
+        }
+
+        private String sha256(byte[] content) {
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("loadFile Tests")
+    class LoadFileTests {
 
         @BeforeEach
         void setUp() {
@@ -249,7 +310,7 @@ class FileStorageServiceTest {
             String absolutePath = testFile.toAbsolutePath().toString();
 
             // When
-            Resource result = fileStorageService.loadFileByAbsolutePath(absolutePath);
+            Resource result = fileStorageService.loadFile(absolutePath);
 
             // Then
             assertThat(result).isNotNull();
@@ -273,7 +334,7 @@ class FileStorageServiceTest {
             // When & Then
             NotFoundException exception = assertThrows(
                     NotFoundException.class,
-                    () -> fileStorageService.loadFileByAbsolutePath(nonExistentPath)
+                    () -> fileStorageService.loadFile(nonExistentPath)
             );
 
             assertThat(exception.getMessage())
@@ -289,7 +350,7 @@ class FileStorageServiceTest {
             String absolutePath = testFile.toAbsolutePath().toString();
 
             // When
-            Resource result = fileStorageService.loadFileByAbsolutePath(absolutePath);
+            Resource result = fileStorageService.loadFile(absolutePath);
 
             // Then
             assertThat(result).isNotNull();
@@ -311,7 +372,7 @@ class FileStorageServiceTest {
 
             // When & Then
             pathVariants.forEach(path -> {
-                Resource result = fileStorageService.loadFileByAbsolutePath(path);
+                Resource result = fileStorageService.loadFile(path);
                 assertThat(result).isNotNull();
                 assertThat(result.exists()).isTrue();
             });
@@ -326,7 +387,7 @@ class FileStorageServiceTest {
             String absolutePath = emptyFile.toAbsolutePath().toString();
 
             // When
-            Resource result = fileStorageService.loadFileByAbsolutePath(absolutePath);
+            Resource result = fileStorageService.loadFile(absolutePath);
 
             // Then
             assertThat(result).isNotNull();
@@ -351,10 +412,10 @@ class FileStorageServiceTest {
             );
 
             // When - Save file
-            String savedPath = fileStorageService.trySaveFile(originalFile);
+            String savedPath = fileStorageService.trySaveFile(originalFile).filePath();
 
             // And - Load file
-            Resource loadedFile = fileStorageService.loadFileByAbsolutePath(savedPath);
+            Resource loadedFile = fileStorageService.loadFile(savedPath);
 
             // Then
             assertThat(loadedFile).isNotNull();
@@ -382,14 +443,14 @@ class FileStorageServiceTest {
 
             // When
             List<String> savedPaths = files.stream()
-                    .map(fileStorageService::trySaveFile)
+                    .map(file -> fileStorageService.trySaveFile(file).filePath())
                     .toList();
 
             // Then
             assertThat(savedPaths.stream().distinct().count()).isEqualTo(5); // All unique
 
             savedPaths.forEach(path -> {
-                Resource resource = fileStorageService.loadFileByAbsolutePath(path);
+                Resource resource = fileStorageService.loadFile(path);
                 assertThat(resource.exists()).isTrue();
             });
         }
@@ -405,10 +466,10 @@ class FileStorageServiceTest {
             // Given
             MockMultipartFile mockFile = mock(MockMultipartFile.class);
             when(mockFile.getOriginalFilename()).thenReturn(null);
-            doNothing().when(mockFile).transferTo(any(Path.class));
+            when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
 
             // When
-            String result = fileStorageService.trySaveFile(mockFile);
+            String result = fileStorageService.trySaveFile(mockFile).filePath();
 
             // Then
             assertThat(result).isNotNull();
@@ -429,7 +490,7 @@ class FileStorageServiceTest {
             // When & Then
             RuntimeException exception = assertThrows(
                     RuntimeException.class,
-                    () -> fileStorageService.trySaveFile(mockFile)
+                    () -> fileStorageService.trySaveFile(mockFile).filePath()
             );
 
             Throwable cause = exception.getCause();
@@ -452,7 +513,7 @@ class FileStorageServiceTest {
             );
 
             // When
-            String result = fileStorageService.trySaveFile(mockFile);
+            String result = fileStorageService.trySaveFile(mockFile).filePath();
 
             // Then
             assertThat(result).isNotNull();
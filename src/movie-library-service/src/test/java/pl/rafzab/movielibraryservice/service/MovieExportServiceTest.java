@@ -0,0 +1,149 @@
+package pl.rafzab.movielibraryservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.enums.ExportFormat;
+import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
+import pl.rafzab.movielibraryservice.repository.MovieListingRow;
+import pl.rafzab.movielibraryservice.repository.MovieRepository;
+import pl.rafzab.movielibraryservice.service.movie.MovieExportProperties;
+import pl.rafzab.movielibraryservice.service.movie.MovieExportService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MovieExportService Tests")
+class MovieExportServiceTest {
+    private static final int FETCH_SIZE = 500;
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MovieExportService movieExportService;
+    private User user;
+    private AtomicBoolean streamClosed;
+
+    @BeforeEach
+    void setUp() {
+        var exportProperties = new MovieExportProperties();
+        exportProperties.setFetchSize(FETCH_SIZE);
+        meterRegistry = new SimpleMeterRegistry();
+        movieExportService = new MovieExportService(movieRepository, exportProperties, new ObjectMapper(), meterRegistry);
+        user = new User();
+        user.setUserId(1L);
+        streamClosed = new AtomicBoolean();
+    }
+
+    @Nested
+    @DisplayName("NDJSON Tests")
+    class NdjsonTests {
+
+        @Test
+        @DisplayName("Should write one JSON object per movie and close the cursor")
+        void shouldWriteOneObjectPerLine() throws IOException {
+            // given
+            givenRows(new MovieListingRow(1L, "Inception", "Nolan", 2010, 90, RankingStatus.DONE, 300L),
+                    new MovieListingRow(2L, "Heat", "Mann", 1995, 0, RankingStatus.PENDING, 100L));
+            var output = new ByteArrayOutputStream();
+
+            // when
+            long exported = movieExportService.exportMovies(user, ExportFormat.NDJSON, MovieFieldSort.ALL,
+                    Sort.Direction.DESC, output, false);
+
+            // then
+            assertThat(exported).isEqualTo(2);
+            assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo(
+                    "{\"movieId\":1,\"title\":\"Inception\",\"director\":\"Nolan\",\"yearOfProduction\":2010," +
+                            "\"ranking\":90,\"rankingStatus\":\"DONE\",\"size\":300}\n" +
+                            "{\"movieId\":2,\"title\":\"Heat\",\"director\":\"Mann\",\"yearOfProduction\":1995," +
+                            "\"ranking\":0,\"rankingStatus\":\"PENDING\",\"size\":100}\n");
+            assertThat(streamClosed).isTrue();
+            assertThat(meterRegistry.get("movie.export.rows").tag("format", "NDJSON").counter().count()).isEqualTo(2.0);
+        }
+
+        @Test
+        @DisplayName("Should compress the output when gzip is requested")
+        void shouldCompressOutput() throws IOException {
+            // given
+            givenRows(new MovieListingRow(1L, "Inception", "Nolan", 2010, 90, RankingStatus.DONE, 300L));
+            var output = new ByteArrayOutputStream();
+
+            // when
+            movieExportService.exportMovies(user, ExportFormat.NDJSON, MovieFieldSort.ALL, Sort.Direction.DESC, output, true);
+
+            // then
+            try (var input = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+                assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8)).startsWith("{\"movieId\":1,").endsWith("}\n");
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("CSV Tests")
+    class CsvTests {
+
+        @Test
+        @DisplayName("Should write a header and quote text containing separators, quotes and line breaks")
+        void shouldWriteQuotedRecords() throws IOException {
+            // given
+            givenRows(new MovieListingRow(1L, "Crouching Tiger, Hidden Dragon", "Ang \"Lee\"", 2000, 80, RankingStatus.DONE, 300L),
+                    new MovieListingRow(2L, "Two\nLines", "Someone", 1999, 0, RankingStatus.FAILED, 100L));
+            var output = new ByteArrayOutputStream();
+
+            // when
+            long exported = movieExportService.exportMovies(user, ExportFormat.CSV, MovieFieldSort.ALL,
+                    Sort.Direction.DESC, output, false);
+
+            // then
+            assertThat(exported).isEqualTo(2);
+            assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo(
+                    "movieId,title,director,yearOfProduction,ranking,rankingStatus,size\r\n" +
+                            "1,\"Crouching Tiger, Hidden Dragon\",\"Ang \"\"Lee\"\"\",2000,80,DONE,300\r\n" +
+                            "2,\"Two\nLines\",Someone,1999,0,FAILED,100\r\n");
+        }
+
+        @Test
+        @DisplayName("Should write only the header for an empty library")
+        void shouldWriteHeaderForEmptyLibrary() throws IOException {
+            // given
+            givenRows();
+            var output = new ByteArrayOutputStream();
+
+            // when
+            long exported = movieExportService.exportMovies(user, ExportFormat.CSV, MovieFieldSort.RANKING,
+                    Sort.Direction.ASC, output, false);
+
+            // then
+            assertThat(exported).isZero();
+            assertThat(output.toString(StandardCharsets.UTF_8))
+                    .isEqualTo("movieId,title,director,yearOfProduction,ranking,rankingStatus,size\r\n");
+        }
+    }
+
+    private void givenRows(MovieListingRow... rows) {
+        when(movieRepository.streamListingRows(eq(user), any(MovieFieldSort.class), any(Sort.Direction.class), eq(FETCH_SIZE)))
+                .thenReturn(Stream.of(rows).onClose(() -> streamClosed.set(true)));
+    }
+}
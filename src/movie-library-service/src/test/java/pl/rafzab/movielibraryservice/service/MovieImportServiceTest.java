@@ -0,0 +1,261 @@
+package pl.rafzab.movielibraryservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import pl.rafzab.movielibraryservice.dto.response.MovieImportResultDTO;
+import pl.rafzab.movielibraryservice.entity.User;
+import pl.rafzab.movielibraryservice.enums.ImportStatus;
+import pl.rafzab.movielibraryservice.exception.NotFoundException;
+import pl.rafzab.movielibraryservice.service.file.StoredFile;
+import pl.rafzab.movielibraryservice.service.movie.MovieImportProperties;
+import pl.rafzab.movielibraryservice.service.movie.MovieImportService;
+import pl.rafzab.movielibraryservice.service.movie.MovieProperties;
+import pl.rafzab.movielibraryservice.service.movie.MovieService;
+import pl.rafzab.movielibraryservice.service.ranking.RankingService;
+import pl.rafzab.movielibraryservice.service.upload.ChunkedUploadService;
+import pl.rafzab.movielibraryservice.service.upload.CompletedUpload;
+import pl.rafzab.movielibraryservice.service.upload.StreamedMovieUpload;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MovieImportService Tests")
+class MovieImportServiceTest {
+    private static final long SMALL_FILE_SIZE = 200L;
+    private static final UUID FIRST_UPLOAD = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND_UPLOAD = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final UUID THIRD_UPLOAD = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+    @Mock
+    private ChunkedUploadService chunkedUploadService;
+    @Mock
+    private MovieService movieService;
+    @Mock
+    private RankingService rankingService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpleMeterRegistry meterRegistry;
+    private MovieImportService movieImportService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MovieProperties movieProperties = new MovieProperties();
+        movieProperties.setSmallFileSize(SMALL_FILE_SIZE);
+        MovieImportProperties importProperties = new MovieImportProperties();
+        importProperties.setParallelism(2);
+        importProperties.setBatchSize(2);
+        importProperties.setMaxLineLength(200);
+        meterRegistry = new SimpleMeterRegistry();
+        movieImportService = new MovieImportService(chunkedUploadService, movieService, rankingService, movieProperties,
+                importProperties, objectMapper, Validation.buildDefaultValidatorFactory().getValidator(),
+                mock(PlatformTransactionManager.class), meterRegistry);
+        user = new User();
+        user.setUserId(1L);
+    }
+
+    @Nested
+    @DisplayName("Batch Tests")
+    class BatchTests {
+
+        @Test
+        @DisplayName("Should save the manifest in batches and report every line in order")
+        void shouldSaveManifestInBatches() throws IOException {
+            // given
+            when(chunkedUploadService.completeFile(eq(user), any(UUID.class)))
+                    .thenAnswer(invocation -> storedFile(invocation.getArgument(1), 100L));
+            when(chunkedUploadService.claim(eq(user), any(CompletedUpload.class))).thenReturn(true);
+            when(movieService.saveMovies(eq(user), anyList(), anyMap()))
+                    .thenReturn(List.of(10L, 11L))
+                    .thenReturn(List.of(12L));
+
+            // when
+            List<MovieImportResultDTO> results = importManifest(
+                    item("First", FIRST_UPLOAD),
+                    "",
+                    item("Second", SECOND_UPLOAD),
+                    item("Third", THIRD_UPLOAD));
+
+            // then
+            assertThat(results).containsExactly(
+                    MovieImportResultDTO.imported(1, FIRST_UPLOAD, 10L),
+                    MovieImportResultDTO.imported(3, SECOND_UPLOAD, 11L),
+                    MovieImportResultDTO.imported(4, THIRD_UPLOAD, 12L));
+            verify(movieService, times(2)).saveMovies(eq(user), anyList(), anyMap());
+            verifyNoInteractions(rankingService);
+            assertThat(meterRegistry.get("movie.import.items").tag("result", "imported").counter().count()).isEqualTo(3.0);
+        }
+
+        @Test
+        @DisplayName("Should look up each distinct title of large files once per batch")
+        void shouldLookUpDistinctTitlesOnce() throws IOException {
+            // given
+            when(chunkedUploadService.completeFile(eq(user), any(UUID.class)))
+                    .thenAnswer(invocation -> storedFile(invocation.getArgument(1), 500L));
+            when(rankingService.findRanking("Inception")).thenReturn(Optional.of(90));
+            when(chunkedUploadService.claim(eq(user), any(CompletedUpload.class))).thenReturn(true);
+            when(movieService.saveMovies(eq(user), anyList(), anyMap())).thenReturn(List.of(10L, 11L));
+
+            // when
+            importManifest(item("Inception", FIRST_UPLOAD), item(" inception ", SECOND_UPLOAD));
+
+            // then
+            verify(rankingService, times(1)).findRanking(any());
+            verify(movieService).saveMovies(eq(user), anyList(), eq(Map.of("inception", 90)));
+        }
+
+        @Test
+        @DisplayName("Should report every saved item of a batch as failed when the batch cannot be saved")
+        void shouldFailWholeBatchWhenSaveFails() throws IOException {
+            // given
+            when(chunkedUploadService.completeFile(eq(user), any(UUID.class)))
+                    .thenAnswer(invocation -> storedFile(invocation.getArgument(1), 100L));
+            when(chunkedUploadService.claim(eq(user), any(CompletedUpload.class))).thenReturn(true);
+            when(movieService.saveMovies(eq(user), anyList(), anyMap())).thenThrow(new IllegalStateException("db down"));
+
+            // when
+            List<MovieImportResultDTO> results = importManifest(item("First", FIRST_UPLOAD), item("Second", SECOND_UPLOAD));
+
+            // then
+            assertThat(results).extracting(MovieImportResultDTO::status).containsOnly(ImportStatus.FAILED);
+            assertThat(results).extracting(MovieImportResultDTO::error).containsOnly("Movie could not be saved");
+        }
+
+        @Test
+        @DisplayName("Should report an item whose session was claimed by another request and save the rest")
+        void shouldSkipUnclaimedUpload() throws IOException {
+            // given
+            when(chunkedUploadService.completeFile(eq(user), any(UUID.class)))
+                    .thenAnswer(invocation -> storedFile(invocation.getArgument(1), 100L));
+            when(chunkedUploadService.claim(eq(user), any(CompletedUpload.class)))
+                    .thenAnswer(invocation -> !invocation.<CompletedUpload>getArgument(1).uploadId().equals(FIRST_UPLOAD));
+            when(movieService.saveMovies(eq(user), anyList(), anyMap())).thenReturn(List.of(11L));
+
+            // when
+            List<MovieImportResultDTO> results = importManifest(item("First", FIRST_UPLOAD), item("Second", SECOND_UPLOAD));
+
+            // then
+            assertThat(results).containsExactly(
+                    MovieImportResultDTO.failed(1, FIRST_UPLOAD, "Upload session not found"),
+                    MovieImportResultDTO.imported(2, SECOND_UPLOAD, 11L));
+            verify(movieService).saveMovies(eq(user), argThat((List<StreamedMovieUpload> uploads) -> uploads.size() == 1), anyMap());
+        }
+    }
+
+    @Nested
+    @DisplayName("Invalid Item Tests")
+    class InvalidItemTests {
+
+        @Test
+        @DisplayName("Should report invalid lines and import the remaining ones")
+        void shouldReportInvalidLines() throws IOException {
+            // given
+            when(chunkedUploadService.completeFile(user, FIRST_UPLOAD)).thenReturn(storedFile(FIRST_UPLOAD, 100L));
+            when(chunkedUploadService.claim(eq(user), any(CompletedUpload.class))).thenReturn(true);
+            when(chunkedUploadService.completeFile(user, THIRD_UPLOAD))
+                    .thenThrow(new NotFoundException("Upload session not found"));
+            when(movieService.saveMovies(eq(user), anyList(), anyMap())).thenReturn(List.of(10L));
+
+            // when
+            List<MovieImportResultDTO> results = importManifest(
+                    item("First", FIRST_UPLOAD),
+                    "{not json",
+                    "{\"title\":\"\",\"director\":\"D\",\"yearOfProduction\":2020,\"uploadId\":\"" + SECOND_UPLOAD + "\"}",
+                    item("Again", FIRST_UPLOAD),
+                    item("Third", THIRD_UPLOAD));
+
+            // then
+            assertThat(results).containsExactly(
+                    MovieImportResultDTO.imported(1, FIRST_UPLOAD, 10L),
+                    MovieImportResultDTO.failed(2, null, "Malformed manifest line"),
+                    MovieImportResultDTO.failed(3, SECOND_UPLOAD, "title must not be blank"),
+                    MovieImportResultDTO.failed(4, FIRST_UPLOAD, "Upload is referenced by an earlier line"),
+                    MovieImportResultDTO.failed(5, THIRD_UPLOAD, "Upload session not found"));
+            verify(movieService).saveMovies(eq(user), argThat((List<StreamedMovieUpload> uploads) -> uploads.size() == 1), anyMap());
+            assertThat(meterRegistry.get("movie.import.items").tag("result", "failed").counter().count()).isEqualTo(4.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Manifest Line Tests")
+    class ManifestLineTests {
+
+        @Test
+        @DisplayName("Should fail a line over the length limit without buffering it and import the next one")
+        void shouldFailTooLongLine() throws IOException {
+            // given
+            when(chunkedUploadService.completeFile(user, SECOND_UPLOAD)).thenReturn(storedFile(SECOND_UPLOAD, 100L));
+            when(chunkedUploadService.claim(eq(user), any(CompletedUpload.class))).thenReturn(true);
+            when(movieService.saveMovies(eq(user), anyList(), anyMap())).thenReturn(List.of(11L));
+
+            // when
+            List<MovieImportResultDTO> results = importManifest(
+                    item("x".repeat(10_000), FIRST_UPLOAD),
+                    item("Second", SECOND_UPLOAD) + "\r");
+
+            // then
+            assertThat(results).containsExactly(
+                    MovieImportResultDTO.failed(1, null, "Manifest line too long"),
+                    MovieImportResultDTO.imported(2, SECOND_UPLOAD, 11L));
+            verify(chunkedUploadService, never()).completeFile(user, FIRST_UPLOAD);
+        }
+
+        @Test
+        @DisplayName("Should fail a too long last line without a line break")
+        void shouldFailTooLongLastLine() throws IOException {
+            // when
+            List<MovieImportResultDTO> results = importManifest("{\"title\":\"" + "x".repeat(10_000));
+
+            // then
+            assertThat(results).containsExactly(MovieImportResultDTO.failed(1, null, "Manifest line too long"));
+            verifyNoInteractions(chunkedUploadService, movieService);
+        }
+    }
+
+    private List<MovieImportResultDTO> importManifest(String... lines) throws IOException {
+        var manifest = new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        var output = new ByteArrayOutputStream();
+        movieImportService.importMovies(user, manifest, output);
+        return output.toString(StandardCharsets.UTF_8).lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, MovieImportResultDTO.class);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+    }
+
+    private String item(String title, UUID uploadId) {
+        return "{\"title\":\"" + title + "\",\"director\":\"D\",\"yearOfProduction\":2020,\"uploadId\":\"" + uploadId + "\"}";
+    }
+
+    private CompletedUpload storedFile(UUID uploadId, long size) {
+        return new CompletedUpload(uploadId, "/uploads/" + uploadId + ".part",
+                new StoredFile("/uploads/" + uploadId, uploadId + ".mp4", size, uploadId.toString().replace("-", "")));
+    }
+}
@@ -0,0 +1,235 @@
+package pl.rafzab.movielibraryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
+import pl.rafzab.movielibraryservice.dto.response.MovieListDTO;
+import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
+import pl.rafzab.movielibraryservice.repository.LibraryVersion;
+import pl.rafzab.movielibraryservice.service.movie.LibraryChangedEvent;
+import pl.rafzab.movielibraryservice.service.movie.ListingQuery;
+import pl.rafzab.movielibraryservice.service.movie.MovieListingCache;
+import pl.rafzab.movielibraryservice.service.movie.MovieListingCacheProperties;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MovieListingCache Tests")
+class MovieListingCacheTest {
+    private static final ListingQuery FIRST_PAGE = ListingQuery.offset(0, 20, MovieFieldSort.ALL, Sort.Direction.DESC);
+
+    private SimpleMeterRegistry meterRegistry;
+    private MovieListingCacheProperties properties;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new MovieListingCacheProperties();
+        properties.setEnabled(true);
+        properties.setMaxEntries(100L);
+        properties.setMaxWeightBytes(1_048_576L);
+        properties.setExpireAfterAccess(Duration.ofMinutes(1));
+        properties.setReconnectDelay(Duration.ofSeconds(1));
+        loads = new AtomicInteger();
+    }
+
+    @Nested
+    @DisplayName("Enabled Cache Tests")
+    class EnabledCacheTests {
+        private MovieListingCache cache;
+
+        @BeforeEach
+        void setUp() {
+            cache = new MovieListingCache(properties, meterRegistry);
+        }
+
+        @Test
+        @DisplayName("Should serve a repeated page of an unchanged library from the cache")
+        void shouldServeRepeatedPage() {
+            // given
+            var library = library(1L, 3L);
+
+            // when
+            var first = cache.get(library, FIRST_PAGE, loader());
+            var second = cache.get(library, FIRST_PAGE, loader());
+
+            // then
+            assertThat(second).isSameAs(first);
+            assertThat(loads).hasValue(1);
+            assertThat(meterRegistry.get("cache.gets").tag("cache", "movie.listing").tag("result", "hit")
+                    .functionCounter().count()).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("Should load again once the library version changes")
+        void shouldMissOnNewVersion() {
+            // given
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+
+            // when
+            cache.get(library(1L, 4L), FIRST_PAGE, loader());
+
+            // then
+            assertThat(loads).hasValue(2);
+        }
+
+        @Test
+        @DisplayName("Should keep other pages and sort orders apart")
+        void shouldKeyByQuery() {
+            // given
+            var library = library(1L, 3L);
+            cache.get(library, FIRST_PAGE, loader());
+
+            // when
+            cache.get(library, ListingQuery.offset(1, 20, MovieFieldSort.ALL, Sort.Direction.DESC), loader());
+            cache.get(library, ListingQuery.offset(0, 20, MovieFieldSort.RANKING, Sort.Direction.DESC), loader());
+            cache.get(library, ListingQuery.cursor(null, 20, MovieFieldSort.ALL, Sort.Direction.DESC, false), loader());
+
+            // then
+            assertThat(loads).hasValue(4);
+        }
+
+        @Test
+        @DisplayName("Should evict only the pages of the changed library")
+        void shouldEvictOnlyChangedUser() {
+            // given
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+            cache.get(library(2L, 7L), FIRST_PAGE, loader());
+
+            // when
+            cache.evictUser(1L);
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+            cache.get(library(2L, 7L), FIRST_PAGE, loader());
+
+            // then
+            assertThat(loads).hasValue(3);
+        }
+
+        @Test
+        @DisplayName("Should evict the pages of every cached version of the library")
+        void shouldEvictAllVersionsOfUser() {
+            // given
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+            cache.get(library(1L, 4L), FIRST_PAGE, loader());
+            cache.get(library(1L, 4L), ListingQuery.offset(1, 20, MovieFieldSort.ALL, Sort.Direction.DESC), loader());
+
+            // when
+            cache.evictUser(1L);
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+            cache.get(library(1L, 4L), FIRST_PAGE, loader());
+
+            // then
+            assertThat(loads).hasValue(5);
+        }
+
+        @Test
+        @DisplayName("Should evict a page cached again after an earlier eviction")
+        void shouldEvictPageCachedAgain() {
+            // given
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+            cache.evictUser(1L);
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+
+            // when
+            cache.evictUser(1L);
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+
+            // then
+            assertThat(loads).hasValue(3);
+        }
+
+        @Test
+        @DisplayName("Should evict every user on evictAll and cache pages again afterwards")
+        void shouldCacheAgainAfterEvictAll() {
+            // given
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+            cache.evictAll();
+
+            // when
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+
+            // then
+            assertThat(loads).hasValue(2);
+        }
+
+        @Test
+        @DisplayName("Should evict the pages of the library named by a change event")
+        void shouldEvictOnLibraryChanged() {
+            // given
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+
+            // when
+            cache.onLibraryChanged(new LibraryChangedEvent(1L));
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+
+            // then
+            assertThat(loads).hasValue(2);
+        }
+
+        @Test
+        @DisplayName("Should drop every page on evictAll")
+        void shouldEvictAll() {
+            // given
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+            cache.get(library(2L, 7L), FIRST_PAGE, loader());
+
+            // when
+            cache.evictAll();
+            cache.get(library(1L, 3L), FIRST_PAGE, loader());
+            cache.get(library(2L, 7L), FIRST_PAGE, loader());
+
+            // then
+            assertThat(loads).hasValue(4);
+        }
+    }
+
+    @Nested
+    @DisplayName("Disabled Cache Tests")
+    class DisabledCacheTests {
+
+        @Test
+        @DisplayName("Should load every request and register no cache meters")
+        void shouldBypassCache() {
+            // given
+            properties.setEnabled(false);
+            var cache = new MovieListingCache(properties, meterRegistry);
+            var library = library(1L, 3L);
+
+            // when
+            cache.get(library, FIRST_PAGE, loader());
+            cache.get(library, FIRST_PAGE, loader());
+            cache.evictUser(1L);
+            cache.evictAll();
+
+            // then
+            assertThat(loads).hasValue(2);
+            assertThat(meterRegistry.find("cache.gets").meters()).isEmpty();
+        }
+    }
+
+    private Supplier<MovieListDTO> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return MovieListDTO.builder()
+                    .currentPage(0).limit(20).totalItems(1L).totalPages(1)
+                    .movies(List.of(new MovieDTO(1L, "Inception", "Nolan", 2010, 90, RankingStatus.DONE)))
+                    .build();
+        };
+    }
+
+    private static LibraryVersion library(Long userId, Long version) {
+        return new LibraryVersion(userId, version, Instant.parse("2024-05-01T10:15:30Z"));
+    }
+}
@@ -1,32 +1,55 @@
 package pl.rafzab.movielibraryservice.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.*;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.mock.web.MockMultipartFile;
-import pl.rafzab.movielibraryservice.client.DigiKatClient;
-import pl.rafzab.movielibraryservice.client.DigiKatMovieData;
+import pl.rafzab.movielibraryservice.dto.request.MovieMetadataDTO;
 import pl.rafzab.movielibraryservice.dto.request.MovieModificationDTO;
+import pl.rafzab.movielibraryservice.dto.request.MovieSearchDTO;
+import pl.rafzab.movielibraryservice.dto.response.MovieDTO;
 import pl.rafzab.movielibraryservice.dto.response.MovieListDTO;
 import pl.rafzab.movielibraryservice.entity.Movie;
 import pl.rafzab.movielibraryservice.entity.User;
 import pl.rafzab.movielibraryservice.enums.MovieFieldSort;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
+import pl.rafzab.movielibraryservice.exception.BadRequestException;
 import pl.rafzab.movielibraryservice.exception.NotFoundException;
+import pl.rafzab.movielibraryservice.repository.LibraryVersion;
+import pl.rafzab.movielibraryservice.repository.MovieListingRow;
 import pl.rafzab.movielibraryservice.repository.MovieRepository;
+import pl.rafzab.movielibraryservice.repository.MovieSearchRepository;
+import pl.rafzab.movielibraryservice.repository.MovieSearchResult;
+import pl.rafzab.movielibraryservice.repository.UserRepository;
+import pl.rafzab.movielibraryservice.service.file.ContentStore;
 import pl.rafzab.movielibraryservice.service.file.FileStorageService;
+import pl.rafzab.movielibraryservice.service.file.StoredFile;
+import pl.rafzab.movielibraryservice.service.movie.LibraryChangedEvent;
+import pl.rafzab.movielibraryservice.service.movie.MovieDownload;
 import pl.rafzab.movielibraryservice.service.movie.MovieProperties;
 import pl.rafzab.movielibraryservice.service.movie.MovieService;
+import pl.rafzab.movielibraryservice.service.ranking.MovieRankingRequestedEvent;
+import pl.rafzab.movielibraryservice.service.upload.StreamedMovieUpload;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -35,15 +58,27 @@ class MovieServiceTest {
     @Mock
     private MovieRepository movieRepository;
 
+    @Mock
+    private MovieSearchRepository movieSearchRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
     @Mock
     private FileStorageService fileStorageService;
 
     @Mock
-    private DigiKatClient digiKatClient;
+    private ContentStore contentStore;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @Mock
     private MovieProperties movieProperties;
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private MovieService movieService;
 
@@ -56,17 +91,18 @@ class MovieServiceTest {
         user.setUserId(1L);
         user.setEmail("testuser");
         user.setPassword("password");
+        when(movieProperties.getMaxPageLimit()).thenReturn(100);
     }
 
     @Test
     void findUserMovies_ShouldReturnPagedList() {
         // Given
-        Movie m1 = Movie.builder().movieId(1L).user(user).title("A").director("D").yearOfProduction(2000).size(50L).build();
-        Movie m2 = Movie.builder().movieId(2L).user(user).title("B").director("E").yearOfProduction(2001).size(60L).build();
-        Page<Movie> page = new PageImpl<>(List.of(m1, m2),
+        MovieDTO m1 = new MovieDTO(1L, "A", "D", 2000, 100, RankingStatus.DONE);
+        MovieDTO m2 = new MovieDTO(2L, "B", "E", 2001, 100, RankingStatus.DONE);
+        Page<MovieDTO> page = new PageImpl<>(List.of(m1, m2),
                 PageRequest.of(0, 2, Sort.by(Direction.ASC, "size")), 2);
 
-        when(movieRepository.findAllByUser(eq(user), any(Pageable.class))).thenReturn(page);
+        when(movieRepository.findMovieDTOsByUser(eq(user), any(Pageable.class))).thenReturn(page);
 
         // When
         MovieListDTO result = movieService.findUserMovies(user, 0, 2, MovieFieldSort.SIZE, Direction.ASC);
@@ -78,19 +114,130 @@ class MovieServiceTest {
         assertEquals(1, result.getTotalPages());
         assertEquals(2, result.getMovies().size());
         assertEquals("A", result.getMovies().get(0).title());
-        verify(movieRepository).findAllByUser(eq(user), any(Pageable.class));
+        verify(movieRepository).findMovieDTOsByUser(eq(user), eq(PageRequest.of(0, 2, Sort.by(Direction.ASC, "size"))));
+        assertEquals(1, meterRegistry.get("movie.listing.query").tag("paging", "offset").timer().count());
+        assertEquals(2.0, meterRegistry.get("movie.listing.page.size").tag("paging", "offset").summary().totalAmount());
+    }
+
+    @Test
+    void findUserMoviesByCursor_ShouldReturnRowsWithCursorThatContinuesAfterLastMovie() {
+        // Given
+        MovieListingRow r1 = new MovieListingRow(7L, "A", "D", 2000, 300, RankingStatus.DONE, 900L);
+        MovieListingRow r2 = new MovieListingRow(3L, "B", "D", 2000, 250, RankingStatus.DONE, 800L);
+        MovieListingRow r3 = new MovieListingRow(9L, "C", "D", 2000, 250, RankingStatus.DONE, 700L);
+        when(movieRepository.findListingRows(user, MovieFieldSort.SIZE, Direction.DESC, Map.of(), 3))
+                .thenReturn(List.of(r1, r2, r3));
+
+        // When
+        MovieListDTO first = movieService.findUserMoviesByCursor(user, null, 2, MovieFieldSort.SIZE, Direction.DESC, false);
+
+        // Then
+        assertEquals(2, first.getLimit());
+        assertEquals(List.of(7L, 3L), first.getMovies().stream().map(MovieDTO::movieId).toList());
+        assertNull(first.getTotalItems());
+        assertNotNull(first.getNextCursor());
+        verify(movieRepository, never()).countByUser(any());
+
+        // Given - the cursor keeps the sort, request parameters are ignored
+        when(movieRepository.findListingRows(user, MovieFieldSort.SIZE, Direction.DESC, Map.of("size", 800L, "movieId", 3L), 3))
+                .thenReturn(List.of(r3));
+        when(movieRepository.countByUser(user)).thenReturn(3L);
+
+        // When
+        MovieListDTO second = movieService.findUserMoviesByCursor(user, first.getNextCursor(), 2, MovieFieldSort.RANKING, Direction.ASC, true);
+
+        // Then
+        assertEquals(1, second.getMovies().size());
+        assertNull(second.getNextCursor());
+        assertEquals(3L, second.getTotalItems());
+        assertEquals(2, second.getTotalPages());
+    }
+
+    @Test
+    void findUserMoviesByCursor_ShouldRejectInvalidCursor() {
+        assertThrows(BadRequestException.class, () ->
+                movieService.findUserMoviesByCursor(user, "not-a-cursor", 2, MovieFieldSort.SIZE, Direction.DESC, true));
+        assertThrows(BadRequestException.class, () ->
+                movieService.findUserMoviesByCursor(user, "UkFOS0lORztERVNDO3NpemU9MQ", 2, MovieFieldSort.SIZE, Direction.DESC, true));
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    void findUserMoviesByCursor_ShouldRejectLimitOutsideBounds() {
+        for (int limit : new int[]{0, -1, 101}) {
+            BadRequestException ex = assertThrows(BadRequestException.class, () ->
+                    movieService.findUserMoviesByCursor(user, null, limit, MovieFieldSort.SIZE, Direction.DESC, true));
+            assertEquals("Limit must be between 1 and 100", ex.getMessage());
+        }
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    void findUserMovies_ShouldRejectNegativePageAndLimitAboveMaximum() {
+        assertThrows(BadRequestException.class, () ->
+                movieService.findUserMovies(user, -1, 20, MovieFieldSort.SIZE, Direction.DESC));
+        assertThrows(BadRequestException.class, () ->
+                movieService.findUserMovies(user, 0, 101, MovieFieldSort.SIZE, Direction.DESC));
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    void searchMovies_ShouldMatchLastWordAsPrefixAndPage() {
+        // Given
+        MovieSearchDTO search = new MovieSearchDTO("Star  Wa", 1970, 1990, 100, null);
+        MovieDTO m1 = new MovieDTO(4L, "Star Wars", "Lucas", 1977, 250, RankingStatus.DONE);
+        when(movieSearchRepository.search(1L, search, "star & wa:*", 10, 5))
+                .thenReturn(new MovieSearchResult(List.of(m1), 11L));
+
+        // When
+        MovieListDTO result = movieService.searchMovies(user, search, 2, 5);
+
+        // Then
+        assertEquals(2, result.getCurrentPage());
+        assertEquals(1, result.getLimit());
+        assertEquals(11, result.getTotalItems());
+        assertEquals(3, result.getTotalPages());
+        assertEquals(List.of(m1), result.getMovies());
+        assertEquals(1, meterRegistry.get("movie.search.query").timer().count());
+    }
+
+    @Test
+    void searchMovies_ShouldDropTextSearchOperatorsFromQuery() {
+        // Given
+        MovieSearchDTO search = new MovieSearchDTO("Amélie & (Jeunet)!:*", null, null, null, null);
+        when(movieSearchRepository.search(eq(1L), eq(search), any(), eq(0), eq(20)))
+                .thenReturn(new MovieSearchResult(List.of(), 0L));
+
+        // When
+        MovieListDTO result = movieService.searchMovies(user, search, 0, 20);
+
+        // Then
+        verify(movieSearchRepository).search(1L, search, "amélie & jeunet:*", 0, 20);
+        assertEquals(0, result.getTotalPages());
+    }
+
+    @Test
+    void searchMovies_ShouldRejectQueryWithoutWords() {
+        MovieSearchDTO search = new MovieSearchDTO("&& !!", null, null, null, null);
+
+        assertThrows(BadRequestException.class, () -> movieService.searchMovies(user, search, 0, 20));
+        verifyNoInteractions(movieSearchRepository);
     }
 
     @Test
     void saveMovie_ShouldUploadFileCalculateRankingAndSave() {
         MockMultipartFile file = new MockMultipartFile("file", "movie.mp4", "video/mp4", new byte[120]);
         MovieModificationDTO dto = new MovieModificationDTO(file, "T", "D", 2022);
-        when(fileStorageService.trySaveFile(any())).thenReturn("/path/movie.mp4");
+        StoredFile stagedFile = new StoredFile("/path/123_movie.mp4", "movie.mp4", 120L, "abc123");
+        when(fileStorageService.trySaveFile(any())).thenReturn(stagedFile);
+        when(contentStore.store(stagedFile)).thenReturn(new StoredFile("/objects/ab/abc123", "movie.mp4", 120L, "abc123"));
         when(movieProperties.getSmallFileSize()).thenReturn(200L);
 
         doAnswer(invocation -> {
             Movie saved = invocation.getArgument(0);
-            assertEquals("/path/movie.mp4", saved.getFilePath());
+            assertEquals("/objects/ab/abc123", saved.getFilePath());
+            assertEquals("movie.mp4", saved.getFileName());
+            assertEquals("abc123", saved.getChecksum());
             assertEquals(100, saved.getRanking());
             return null;
         }).when(movieRepository).save(any(Movie.class));
@@ -100,8 +247,70 @@ class MovieServiceTest {
 
         // Then
         verify(fileStorageService).trySaveFile(eq(file));
+        verify(contentStore).store(stagedFile);
         verify(movieRepository).save(any(Movie.class));
-        verifyNoInteractions(digiKatClient);
+        verify(eventPublisher).publishEvent(new LibraryChangedEvent(user.getUserId()));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void saveMovie_ShouldSaveStreamedUploadWithChecksum() {
+        StoredFile stagedFile = new StoredFile("/path/123_streamed.mp4", "streamed.mp4", 120L, "abc123");
+        StreamedMovieUpload upload = new StreamedMovieUpload(new MovieMetadataDTO("T", "D", 2022), stagedFile);
+        when(contentStore.store(stagedFile)).thenReturn(new StoredFile("/objects/ab/abc123", "streamed.mp4", 120L, "abc123"));
+        when(movieProperties.getSmallFileSize()).thenReturn(200L);
+
+        movieService.saveMovie(user, upload);
+
+        verify(movieRepository).save(argThat(saved ->
+                "/objects/ab/abc123".equals(saved.getFilePath())
+                        && "streamed.mp4".equals(saved.getFileName())
+                        && saved.getSize() == 120L
+                        && "abc123".equals(saved.getChecksum())
+                        && saved.getRanking() == 100));
+        verify(eventPublisher).publishEvent(new LibraryChangedEvent(user.getUserId()));
+        verifyNoMoreInteractions(eventPublisher);
+        verifyNoInteractions(fileStorageService);
+    }
+
+    @Test
+    void saveMovies_ShouldStoreContentsInChecksumOrderAndApplyKnownRankings() {
+        StoredFile first = new StoredFile("/path/1_first.mp4", "first.mp4", 500L, "bbb");
+        StoredFile second = new StoredFile("/path/2_second.mp4", "second.mp4", 500L, "aaa");
+        StoredFile third = new StoredFile("/path/3_third.mp4", "third.mp4", 120L, "ccc");
+        when(contentStore.store(any(StoredFile.class))).thenAnswer(invocation -> {
+            StoredFile staged = invocation.getArgument(0);
+            return new StoredFile("/objects/" + staged.checksum(), staged.fileName(), staged.size(), staged.checksum());
+        });
+        when(movieProperties.getSmallFileSize()).thenReturn(200L);
+        when(movieRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Movie> movies = invocation.getArgument(0);
+            for (int index = 0; index < movies.size(); index++) {
+                movies.get(index).setMovieId(10L + index);
+            }
+            return movies;
+        });
+
+        List<Long> movieIds = movieService.saveMovies(user, List.of(
+                new StreamedMovieUpload(new MovieMetadataDTO("Known", "D", 2020), first),
+                new StreamedMovieUpload(new MovieMetadataDTO("Unknown", "D", 2021), second),
+                new StreamedMovieUpload(new MovieMetadataDTO("Small", "D", 2022), third)
+        ), Map.of("known", 80));
+
+        assertEquals(List.of(10L, 11L, 12L), movieIds);
+        var storeOrder = inOrder(contentStore);
+        storeOrder.verify(contentStore).store(second);
+        storeOrder.verify(contentStore).store(first);
+        storeOrder.verify(contentStore).store(third);
+        verify(movieRepository).saveAll(argThat((List<Movie> movies) ->
+                movies.get(0).getRanking() == 80 && movies.get(0).getRankingStatus() == RankingStatus.DONE
+                        && "/objects/bbb".equals(movies.get(0).getFilePath())
+                        && movies.get(1).getRankingStatus() == RankingStatus.PENDING
+                        && movies.get(2).getRanking() == 100 && movies.get(2).getRankingStatus() == RankingStatus.DONE));
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof MovieRankingRequestedEvent requested && requested.movieId() == 11L));
+        verify(eventPublisher).publishEvent(new LibraryChangedEvent(user.getUserId()));
+        verifyNoMoreInteractions(eventPublisher);
     }
 
     @Test
@@ -120,7 +329,7 @@ class MovieServiceTest {
         // Given
         Movie existing = Movie.builder()
                 .movieId(5L).user(user).title("Old").director("X").yearOfProduction(2000).size(500L).filePath("/old")
-                .ranking(0).build();
+                .checksum("old123").ranking(0).build();
         when(movieRepository.findByMovieIdAndUser(5L, user)).thenReturn(Optional.of(existing));
 
         MockMultipartFile file = new MockMultipartFile(
@@ -130,12 +339,11 @@ class MovieServiceTest {
                 file, "New", "Y", 2023
         );
 
-        when(fileStorageService.trySaveFile(any())).thenReturn("/new");
+        StoredFile stagedFile = new StoredFile("/path/123_new.mp4", "new.mp4", 500L, "new123");
+        when(fileStorageService.trySaveFile(any())).thenReturn(stagedFile);
+        when(contentStore.store(stagedFile)).thenReturn(new StoredFile("/new", "new.mp4", 500L, "new123"));
         when(movieProperties.getSmallFileSize()).thenReturn(100L);
 
-        DigiKatMovieData digiData = new DigiKatMovieData("title", 1, List.of("netflix"), "wybitny", "");
-        when(digiKatClient.getMovieData("New")).thenReturn(digiData);
-
         when(movieRepository.save(any(Movie.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
@@ -147,25 +355,64 @@ class MovieServiceTest {
         assertEquals(2023, existing.getYearOfProduction());
         assertEquals(500L, existing.getSize());
         assertEquals("/new", existing.getFilePath());
-        // ranking = 100 (size>100) +200 -50 +100 =250
-        assertEquals(250, existing.getRanking());
+        assertEquals("new123", existing.getChecksum());
+        verify(contentStore).release("old123", "/old");
+        // size above the small file limit -> previous ranking kept until the async calculation finishes
+        assertEquals(0, existing.getRanking());
+        assertEquals(RankingStatus.PENDING, existing.getRankingStatus());
+        assertNotNull(existing.getRankingRequestedAt());
 
-        verify(digiKatClient).getMovieData("New");
         verify(movieRepository).save(existing);
+        verify(eventPublisher).publishEvent(new MovieRankingRequestedEvent(5L, existing.getRankingRequestedAt()));
+        verify(eventPublisher).publishEvent(new LibraryChangedEvent(user.getUserId()));
     }
 
 
     @Test
-    void downloadMovie_ShouldLoadResource() {
-        Movie existing = Movie.builder().movieId(7L).user(user).filePath("/film.mp4").build();
+    void downloadMovie_ShouldLoadResourceTaggedByChecksum() {
+        Movie existing = Movie.builder().movieId(7L).user(user).filePath("/film.mp4").fileName("film.mp4")
+                .checksum("abc123").build();
+        when(movieRepository.findByMovieIdAndUser(7L, user)).thenReturn(Optional.of(existing));
+        Resource resource = mock(Resource.class);
+        when(fileStorageService.loadFile("/film.mp4", "film.mp4")).thenReturn(resource);
+
+        MovieDownload result = movieService.downloadMovie(user, 7L);
+
+        assertSame(resource, result.file());
+        assertEquals("\"abc123\"", result.entityTag());
+        verify(fileStorageService).loadFile("/film.mp4", "film.mp4");
+    }
+
+    @Test
+    void downloadMovie_ShouldTagFileWithoutChecksumBySizeAndModificationTime() throws IOException {
+        Movie existing = Movie.builder().movieId(7L).user(user).filePath("/film.mp4").fileName("film.mp4").build();
         when(movieRepository.findByMovieIdAndUser(7L, user)).thenReturn(Optional.of(existing));
         Resource resource = mock(Resource.class);
-        when(fileStorageService.loadFileByAbsolutePath("/film.mp4")).thenReturn(resource);
+        when(resource.contentLength()).thenReturn(255L);
+        when(resource.lastModified()).thenReturn(4096L);
+        when(fileStorageService.loadFile("/film.mp4", "film.mp4")).thenReturn(resource);
 
-        Resource result = movieService.downloadMovie(user, 7L);
+        MovieDownload result = movieService.downloadMovie(user, 7L);
+
+        assertEquals("\"ff-1000\"", result.entityTag());
+    }
+
+    @Test
+    void findLibraryVersion_ShouldReturnVersionOfUser() {
+        LibraryVersion version = new LibraryVersion(1L, 5L, Instant.parse("2024-05-01T10:15:30Z"));
+        when(userRepository.findLibraryVersion(1L)).thenReturn(Optional.of(version));
+
+        LibraryVersion result = movieService.findLibraryVersion(user);
+
+        assertEquals(version, result);
+        assertEquals("W/\"1-5\"", result.entityTag());
+    }
+
+    @Test
+    void findLibraryVersion_ShouldThrowWhenUserMissing() {
+        when(userRepository.findLibraryVersion(1L)).thenReturn(Optional.empty());
 
-        assertSame(resource, result);
-        verify(fileStorageService).loadFileByAbsolutePath("/film.mp4");
+        assertThrows(NotFoundException.class, () -> movieService.findLibraryVersion(user));
     }
 
 }
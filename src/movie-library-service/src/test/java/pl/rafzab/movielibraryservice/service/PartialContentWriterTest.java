@@ -0,0 +1,476 @@
+package pl.rafzab.movielibraryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import pl.rafzab.movielibraryservice.service.file.PartialContentWriter;
+import pl.rafzab.movielibraryservice.service.file.storage.RangedResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PartialContentWriter Tests")
+class PartialContentWriterTest {
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PartialContentWriter writer;
+    private Resource resource;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        writer = new PartialContentWriter(meterRegistry);
+        Path file = tempDir.resolve("movie.mp4");
+        Files.writeString(file, CONTENT);
+        resource = new FileSystemResource(file);
+        request = new MockHttpServletRequest("GET", "/api/v1/movies/1/download");
+        response = new MockHttpServletResponse();
+    }
+
+    @Nested
+    @DisplayName("Full content")
+    class FullContentTests {
+
+        @Test
+        @DisplayName("It should return the whole file when no range is requested")
+        void shouldReturnWholeFile() throws IOException {
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+            assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).isEqualTo("attachment; filename=\"movie.mp4\"");
+            assertThat(response.getContentType()).isEqualTo("video/mp4");
+            assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+            assertThat(meterRegistry.get("movie.download.bytes").tag("type", "full").summary().totalAmount())
+                    .isEqualTo(CONTENT.length());
+        }
+
+        @Test
+        @DisplayName("It should ignore a malformed range header")
+        void shouldIgnoreMalformedRange() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=abc");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        }
+
+        @Test
+        @DisplayName("It should not write a body for HEAD requests")
+        void shouldNotWriteBodyForHead() throws IOException {
+            // Given
+            request.setMethod("HEAD");
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-4");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(response.getContentLengthLong()).isEqualTo(5);
+            assertThat(response.getContentAsByteArray()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Single range")
+    class SingleRangeTests {
+
+        @Test
+        @DisplayName("It should return the requested range")
+        void shouldReturnRequestedRange() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 5-9/20");
+            assertThat(response.getContentLengthLong()).isEqualTo(5);
+            assertThat(response.getContentAsString()).isEqualTo("56789");
+        }
+
+        @Test
+        @DisplayName("It should support suffix and open-ended ranges")
+        void shouldSupportSuffixRange() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 17-19/20");
+            assertThat(response.getContentAsString()).isEqualTo("hij");
+        }
+
+        @Test
+        @DisplayName("It should serve ranges from non-file resources")
+        void shouldServeRangeFromStreamResource() throws IOException {
+            // Given
+            Resource bytes = new ByteArrayResource(CONTENT.getBytes(StandardCharsets.US_ASCII)) {
+                @Override
+                public String getFilename() {
+                    return "movie.mp4";
+                }
+            };
+            request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+
+            // When
+            writer.write(bytes, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(response.getContentAsString()).isEqualTo("abcdefghij");
+        }
+
+        @Test
+        @DisplayName("It should read only the requested bytes of a ranged resource")
+        void shouldReadOnlyRequestedBytesOfRangedResource() throws IOException {
+            // Given
+            List<String> reads = new ArrayList<>();
+            Resource ranged = new RangedByteArrayResource(CONTENT.getBytes(StandardCharsets.US_ASCII), reads);
+            request.addHeader(HttpHeaders.RANGE, "bytes=2-4");
+
+            // When
+            writer.write(ranged, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(response.getContentAsString()).isEqualTo("234");
+            assertThat(reads).containsExactly("2+3");
+        }
+
+        @Test
+        @DisplayName("It should answer 416 when no range is satisfiable")
+        void shouldRejectUnsatisfiableRange() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=50-60");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(416);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */20");
+        }
+    }
+
+    @Nested
+    @DisplayName("Conditional requests")
+    class ConditionalRequestTests {
+
+        @Test
+        @DisplayName("It should answer 304 without a body when If-None-Match matches the entity tag")
+        void shouldAnswerNotModifiedWhenEtagMatches() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"v0\", \"v1\"");
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+
+            // When
+            writer.write(resource, "\"v1\"", request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(304);
+            assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"v1\"");
+            assertThat(response.getContentAsByteArray()).isEmpty();
+            assertThat(meterRegistry.find("movie.download.bytes").summary()).isNull();
+        }
+
+        @Test
+        @DisplayName("It should answer 304 when the file was not modified since the given date")
+        void shouldAnswerNotModifiedWhenNotModifiedSince() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, resource.lastModified());
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(304);
+            assertThat(response.getContentAsByteArray()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("It should return the whole file when If-None-Match does not match")
+        void shouldReturnWholeFileWhenEtagDiffers() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"v0\"");
+            request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, resource.lastModified());
+
+            // When
+            writer.write(resource, "\"v1\"", request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        }
+
+        @Test
+        @DisplayName("It should report the modification time of ranged resources")
+        void shouldReportLastModifiedOfRangedResource() throws IOException {
+            // Given
+            Resource ranged = new RangedByteArrayResource(CONTENT.getBytes(StandardCharsets.US_ASCII), new ArrayList<>()) {
+                @Override
+                public long lastModified() {
+                    return 1_714_558_530_000L;
+                }
+            };
+
+            // When
+            writer.write(ranged, null, request, response);
+
+            // Then
+            assertThat(response.getDateHeader(HttpHeaders.LAST_MODIFIED)).isEqualTo(1_714_558_530_000L);
+        }
+    }
+
+    @Nested
+    @DisplayName("If-Range")
+    class IfRangeTests {
+
+        @Test
+        @DisplayName("It should return the range when If-Range matches the entity tag")
+        void shouldReturnRangeWhenEtagMatches() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+            request.addHeader(HttpHeaders.IF_RANGE, "\"v1\"");
+
+            // When
+            writer.write(resource, "\"v1\"", request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(response.getContentAsString()).isEqualTo("01");
+        }
+
+        @Test
+        @DisplayName("It should return the whole file when If-Range does not match")
+        void shouldReturnWholeFileWhenIfRangeStale() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+            request.addHeader(HttpHeaders.IF_RANGE, "Wed, 21 Oct 2015 07:28:00 GMT");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        }
+
+        @Test
+        @DisplayName("It should return the range when If-Range matches Last-Modified")
+        void shouldReturnRangeWhenDateMatches() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+            request.addHeader(HttpHeaders.IF_RANGE, resource.lastModified());
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+        }
+    }
+
+    @Nested
+    @DisplayName("Sendfile")
+    class SendfileTests {
+        private static final int LARGE_LENGTH = 64 * 1024;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            Path file = tempDir.resolve("large.mp4");
+            Files.write(file, new byte[LARGE_LENGTH]);
+            resource = new FileSystemResource(file);
+            request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        }
+
+        @Test
+        @DisplayName("It should hand a whole file to the connector without writing the body")
+        void shouldSendWholeFile() throws IOException {
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentLengthLong()).isEqualTo(LARGE_LENGTH);
+            assertThat(response.getContentAsByteArray()).isEmpty();
+            assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename"))
+                    .isEqualTo(resource.getFile().getCanonicalPath());
+            assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(0L);
+            assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo((long) LARGE_LENGTH);
+            assertThat(meterRegistry.get("movie.download.bytes").tag("type", "full").summary().totalAmount())
+                    .isEqualTo(LARGE_LENGTH);
+        }
+
+        @Test
+        @DisplayName("It should hand a single range to the connector with an exclusive end")
+        void shouldSendSingleRange() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=1000-");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(response.getContentAsByteArray()).isEmpty();
+            assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(1000L);
+            assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo((long) LARGE_LENGTH);
+        }
+
+        @Test
+        @DisplayName("It should copy multipart responses itself")
+        void shouldCopyMultipartResponse() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-99,60000-60099");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+            assertThat(response.getContentLengthLong()).isEqualTo(response.getContentAsByteArray().length);
+        }
+
+        @Test
+        @DisplayName("It should copy small files itself")
+        void shouldCopySmallFile() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-99");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+            assertThat(response.getContentAsByteArray()).hasSize(100);
+        }
+    }
+
+    @Nested
+    @DisplayName("Multiple ranges")
+    class MultipleRangesTests {
+
+        @Test
+        @DisplayName("It should return multipart/byteranges with every requested range")
+        void shouldReturnMultipartByteranges() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-1,10-11");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+            String body = response.getContentAsString();
+            assertThat(body).contains("Content-Range: bytes 0-1/20\r\n\r\n01");
+            assertThat(body).contains("Content-Range: bytes 10-11/20\r\n\r\nab");
+            assertThat(response.getContentLengthLong()).isEqualTo(response.getContentAsByteArray().length);
+        }
+
+        @Test
+        @DisplayName("It should merge overlapping and adjacent ranges into ordered parts")
+        void shouldCoalesceOverlappingRanges() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=10-11,0-3,2-5,6-7");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+            String body = response.getContentAsString();
+            assertThat(body).contains("Content-Range: bytes 0-7/20\r\n\r\n01234567");
+            assertThat(body.indexOf("bytes 0-7/20")).isLessThan(body.indexOf("bytes 10-11/20"));
+            assertThat(body).doesNotContain("bytes 2-5/20");
+        }
+
+        @Test
+        @DisplayName("It should answer with a single part when the ranges merge into one")
+        void shouldAnswerSinglePartWhenRangesMerge() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-4,3-9");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(206);
+            assertThat(response.getContentType()).isEqualTo("video/mp4");
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-9/20");
+            assertThat(response.getContentAsString()).isEqualTo("0123456789");
+        }
+
+        @Test
+        @DisplayName("It should send the whole file once when the ranges ask for more than its length")
+        void shouldSendWholeFileForRepeatedRanges() throws IOException {
+            // Given
+            request.addHeader(HttpHeaders.RANGE, "bytes=0-,0-,0-,0-");
+
+            // When
+            writer.write(resource, null, request, response);
+
+            // Then
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        }
+    }
+
+    private static class RangedByteArrayResource extends ByteArrayResource implements RangedResource {
+        private final List<String> reads;
+
+        RangedByteArrayResource(byte[] content, List<String> reads) {
+            super(content);
+            this.reads = reads;
+        }
+
+        @Override
+        public InputStream getInputStream(long start, long count) {
+            reads.add(start + "+" + count);
+            return new ByteArrayInputStream(getByteArray(), (int) start, (int) count);
+        }
+
+        @Override
+        public String getFilename() {
+            return "movie.mp4";
+        }
+    }
+}
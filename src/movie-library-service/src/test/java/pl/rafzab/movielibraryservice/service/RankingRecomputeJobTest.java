@@ -0,0 +1,160 @@
+package pl.rafzab.movielibraryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.rafzab.movielibraryservice.client.DigiKatClient;
+import pl.rafzab.movielibraryservice.client.DigiKatMovieData;
+import pl.rafzab.movielibraryservice.exception.DigiKatNotFoundException;
+import pl.rafzab.movielibraryservice.exception.DigiKatUnavailableException;
+import pl.rafzab.movielibraryservice.repository.MovieRankingBatchRepository;
+import pl.rafzab.movielibraryservice.repository.MovieRankingBatchRepository.RankingCandidate;
+import pl.rafzab.movielibraryservice.repository.MovieRankingBatchRepository.RankingUpdate;
+import pl.rafzab.movielibraryservice.service.movie.MovieProperties;
+import pl.rafzab.movielibraryservice.service.ranking.RankingRecomputeJob;
+import pl.rafzab.movielibraryservice.service.ranking.RankingRecomputeProperties;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RankingRecomputeJob Tests")
+class RankingRecomputeJobTest {
+
+    private static final String JOB_NAME = "ranking-recompute";
+    private static final long SMALL_FILE_SIZE = 200L;
+
+    @Mock
+    private MovieRankingBatchRepository batchRepository;
+    @Mock
+    private DigiKatClient digiKatClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RankingRecomputeJob job;
+
+    @BeforeEach
+    void setUp() {
+        RankingRecomputeProperties properties = new RankingRecomputeProperties();
+        properties.setPageSize(3);
+        properties.setParallelism(2);
+        MovieProperties movieProperties = new MovieProperties();
+        movieProperties.setSmallFileSize(SMALL_FILE_SIZE);
+        meterRegistry = new SimpleMeterRegistry();
+        job = new RankingRecomputeJob(batchRepository, digiKatClient, properties, movieProperties, meterRegistry);
+    }
+
+    private void lockAcquired() {
+        when(batchRepository.runExclusively(eq(JOB_NAME), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+    }
+
+    private DigiKatMovieData polishOnNetflix() {
+        return new DigiKatMovieData("t", 1, List.of("netflix"), "dobry", "");
+    }
+
+    @Test
+    @DisplayName("Should process all pages, look up each title once per run and clear checkpoint")
+    void shouldRecomputeAllPages() {
+        // given
+        lockAcquired();
+        when(batchRepository.findCheckpoint(JOB_NAME)).thenReturn(Optional.empty());
+        when(batchRepository.findRankingCandidates(0L, SMALL_FILE_SIZE, 3)).thenReturn(List.of(
+                new RankingCandidate(1L, "Inception"),
+                new RankingCandidate(2L, " inception"),
+                new RankingCandidate(5L, "Avatar")));
+        when(batchRepository.findRankingCandidates(5L, SMALL_FILE_SIZE, 3)).thenReturn(List.of(
+                new RankingCandidate(8L, "Avatar")));
+        when(batchRepository.findRankingCandidates(8L, SMALL_FILE_SIZE, 3)).thenReturn(List.of());
+        when(digiKatClient.getMovieData(anyString())).thenReturn(polishOnNetflix());
+
+        // when
+        job.recomputeRankings();
+
+        // then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<RankingUpdate>> updates = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository, times(2)).updateRankings(updates.capture());
+        assertThat(updates.getAllValues().get(0)).containsExactly(
+                new RankingUpdate(1L, 150), new RankingUpdate(2L, 150), new RankingUpdate(5L, 150));
+        assertThat(updates.getAllValues().get(1)).containsExactly(new RankingUpdate(8L, 150));
+
+        verify(digiKatClient, times(1)).getMovieData("Inception");
+        verify(digiKatClient, times(1)).getMovieData("Avatar");
+        verify(batchRepository).saveCheckpoint(JOB_NAME, 5L);
+        verify(batchRepository).saveCheckpoint(JOB_NAME, 8L);
+        verify(batchRepository).deleteCheckpoint(JOB_NAME);
+        assertThat(meterRegistry.get("ranking.recompute.movies").tag("result", "updated").counter().count()).isEqualTo(4.0);
+        assertThat(meterRegistry.get("ranking.recompute.last.movie.id").gauge().value()).isEqualTo(8.0);
+    }
+
+    @Test
+    @DisplayName("Should resume after checkpoint and skip titles that cannot be ranked")
+    void shouldResumeFromCheckpoint() {
+        // given
+        lockAcquired();
+        when(batchRepository.findCheckpoint(JOB_NAME)).thenReturn(Optional.of(40L));
+        when(batchRepository.findRankingCandidates(40L, SMALL_FILE_SIZE, 3)).thenReturn(List.of(
+                new RankingCandidate(41L, "Unknown"),
+                new RankingCandidate(42L, "Avatar")));
+        when(batchRepository.findRankingCandidates(42L, SMALL_FILE_SIZE, 3)).thenReturn(List.of());
+        when(digiKatClient.getMovieData("Unknown")).thenThrow(new DigiKatNotFoundException("Movie not found in DigiKat"));
+        when(digiKatClient.getMovieData("Avatar")).thenReturn(polishOnNetflix());
+
+        // when
+        job.recomputeRankings();
+
+        // then
+        verify(batchRepository).updateRankings(List.of(new RankingUpdate(42L, 150)));
+        verify(batchRepository).saveCheckpoint(JOB_NAME, 42L);
+        verify(batchRepository).deleteCheckpoint(JOB_NAME);
+        assertThat(meterRegistry.get("ranking.recompute.movies").tag("result", "failed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should pause and keep checkpoint when DigiKat is unavailable")
+    void shouldPauseWhenDigiKatUnavailable() {
+        // given
+        lockAcquired();
+        when(batchRepository.findCheckpoint(JOB_NAME)).thenReturn(Optional.of(10L));
+        when(batchRepository.findRankingCandidates(10L, SMALL_FILE_SIZE, 3)).thenReturn(List.of(
+                new RankingCandidate(11L, "Avatar")));
+        when(digiKatClient.getMovieData("Avatar")).thenThrow(new DigiKatUnavailableException("DigiKat is unavailable"));
+
+        // when
+        job.recomputeRankings();
+
+        // then
+        verify(batchRepository, never()).updateRankings(anyList());
+        verify(batchRepository, never()).saveCheckpoint(eq(JOB_NAME), anyLong());
+        verify(batchRepository, never()).deleteCheckpoint(JOB_NAME);
+    }
+
+    @Test
+    @DisplayName("Should not run while another instance holds the job lock")
+    void shouldSkipWhenLockIsHeld() {
+        // given
+        when(batchRepository.runExclusively(eq(JOB_NAME), any())).thenReturn(false);
+
+        // when
+        job.recomputeRankings();
+
+        // then
+        verify(batchRepository, never()).findCheckpoint(JOB_NAME);
+        verifyNoInteractions(digiKatClient);
+    }
+}
@@ -0,0 +1,238 @@
+package pl.rafzab.movielibraryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import pl.rafzab.movielibraryservice.client.DigiKatMovieData;
+import pl.rafzab.movielibraryservice.client.DigiKatMovieDataCache;
+import pl.rafzab.movielibraryservice.entity.Movie;
+import pl.rafzab.movielibraryservice.enums.RankingFallbackPolicy;
+import pl.rafzab.movielibraryservice.enums.RankingStatus;
+import pl.rafzab.movielibraryservice.exception.DigiKatClientException;
+import pl.rafzab.movielibraryservice.exception.DigiKatNotFoundException;
+import pl.rafzab.movielibraryservice.exception.DigiKatServerException;
+import pl.rafzab.movielibraryservice.exception.DigiKatUnavailableException;
+import pl.rafzab.movielibraryservice.repository.MovieRepository;
+import pl.rafzab.movielibraryservice.service.ranking.MovieRankingRequestedEvent;
+import pl.rafzab.movielibraryservice.service.ranking.RankingProperties;
+import pl.rafzab.movielibraryservice.service.ranking.RankingService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RankingService Tests")
+class RankingServiceTest {
+
+    private static final Instant REQUESTED_AT = Instant.parse("2025-01-01T10:00:00Z");
+
+    @Mock
+    private MovieRepository movieRepository;
+    @Mock
+    private DigiKatMovieDataCache digiKatMovieDataCache;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private RankingProperties rankingProperties;
+    private RankingService rankingService;
+
+    @BeforeEach
+    void setUp() {
+        rankingProperties = new RankingProperties();
+        rankingProperties.setMaxAttempts(3);
+        rankingProperties.setRetryBackoff(Duration.ZERO);
+        rankingProperties.setStaleAfter(Duration.ofMinutes(10));
+        rankingProperties.setSweepBatchSize(50);
+        rankingProperties.setFallbackPolicy(RankingFallbackPolicy.DEFER);
+        rankingProperties.setFallbackRanking(10);
+        rankingService = new RankingService(movieRepository, digiKatMovieDataCache, rankingProperties, eventPublisher, new SimpleMeterRegistry());
+    }
+
+    private Movie pendingMovie(Instant requestedAt) {
+        return Movie.builder()
+                .movieId(1L)
+                .title("Title")
+                .ranking(0)
+                .rankingStatus(RankingStatus.PENDING)
+                .rankingRequestedAt(requestedAt)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("rankMovie")
+    class RankMovieTests {
+
+        @Test
+        @DisplayName("Should calculate ranking from DigiKat data and store it")
+        void shouldCalculateAndStoreRanking() {
+            // given
+            when(movieRepository.findById(1L)).thenReturn(Optional.of(pendingMovie(REQUESTED_AT)));
+            when(digiKatMovieDataCache.getMovieData("Title"))
+                    .thenReturn(new DigiKatMovieData("Title", 1, List.of("netflix"), "wybitny", ""));
+
+            // when
+            rankingService.rankMovie(1L, REQUESTED_AT);
+
+            // then - 200 (polish) - 50 (netflix) + 100 (outstanding)
+            verify(movieRepository).updateRanking(1L, REQUESTED_AT, 250, RankingStatus.DONE);
+        }
+
+        @Test
+        @DisplayName("Should retry failed DigiKat calls")
+        void shouldRetryFailedCalls() {
+            // given
+            when(movieRepository.findById(1L)).thenReturn(Optional.of(pendingMovie(REQUESTED_AT)));
+            when(digiKatMovieDataCache.getMovieData("Title"))
+                    .thenThrow(new DigiKatClientException("DigiKat API communication error"))
+                    .thenReturn(new DigiKatMovieData("Title", 2, List.of(), "dobry", ""));
+
+            // when
+            rankingService.rankMovie(1L, REQUESTED_AT);
+
+            // then
+            verify(digiKatMovieDataCache, times(2)).getMovieData("Title");
+            verify(movieRepository).updateRanking(1L, REQUESTED_AT, 0, RankingStatus.DONE);
+        }
+
+        @Test
+        @DisplayName("Should mark ranking as failed after all attempts")
+        void shouldMarkFailedAfterAllAttempts() {
+            // given
+            when(movieRepository.findById(1L)).thenReturn(Optional.of(pendingMovie(REQUESTED_AT)));
+            when(digiKatMovieDataCache.getMovieData("Title")).thenThrow(new DigiKatClientException("DigiKat API communication error"));
+
+            // when
+            rankingService.rankMovie(1L, REQUESTED_AT);
+
+            // then
+            verify(digiKatMovieDataCache, times(3)).getMovieData("Title");
+            verify(movieRepository).updateRankingStatus(1L, REQUESTED_AT, RankingStatus.FAILED);
+            verify(movieRepository, never()).updateRanking(any(), any(), anyInt(), any());
+        }
+
+        @Test
+        @DisplayName("Should leave server errors retried by the client to the stale sweep")
+        void shouldNotRetryServerErrors() {
+            // given
+            when(movieRepository.findById(1L)).thenReturn(Optional.of(pendingMovie(REQUESTED_AT)));
+            when(digiKatMovieDataCache.getMovieData("Title")).thenThrow(new DigiKatServerException("Server error"));
+
+            // when
+            rankingService.rankMovie(1L, REQUESTED_AT);
+
+            // then
+            verify(digiKatMovieDataCache, times(1)).getMovieData("Title");
+            verify(movieRepository, never()).updateRankingStatus(any(), any(), any());
+            verify(movieRepository, never()).updateRanking(any(), any(), anyInt(), any());
+        }
+
+        @Test
+        @DisplayName("Should not retry titles unknown to DigiKat")
+        void shouldNotRetryUnknownTitle() {
+            // given
+            when(movieRepository.findById(1L)).thenReturn(Optional.of(pendingMovie(REQUESTED_AT)));
+            when(digiKatMovieDataCache.getMovieData("Title")).thenThrow(new DigiKatNotFoundException("Not found"));
+
+            // when
+            rankingService.rankMovie(1L, REQUESTED_AT);
+
+            // then
+            verify(digiKatMovieDataCache, times(1)).getMovieData("Title");
+            verify(movieRepository).updateRankingStatus(1L, REQUESTED_AT, RankingStatus.FAILED);
+        }
+
+        @Test
+        @DisplayName("Should leave ranking pending when DigiKat is unavailable and policy is DEFER")
+        void shouldDeferWhenDigiKatUnavailable() {
+            // given
+            when(movieRepository.findById(1L)).thenReturn(Optional.of(pendingMovie(REQUESTED_AT)));
+            when(digiKatMovieDataCache.getMovieData("Title")).thenThrow(new DigiKatUnavailableException("DigiKat is unavailable"));
+
+            // when
+            rankingService.rankMovie(1L, REQUESTED_AT);
+
+            // then
+            verify(digiKatMovieDataCache, times(1)).getMovieData("Title");
+            verify(movieRepository, never()).updateRanking(any(), any(), anyInt(), any());
+            verify(movieRepository, never()).updateRankingStatus(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should store fallback ranking when DigiKat is unavailable and policy is FIXED")
+        void shouldStoreFallbackRankingWhenDigiKatUnavailable() {
+            // given
+            rankingProperties.setFallbackPolicy(RankingFallbackPolicy.FIXED);
+            when(movieRepository.findById(1L)).thenReturn(Optional.of(pendingMovie(REQUESTED_AT)));
+            when(digiKatMovieDataCache.getMovieData("Title")).thenThrow(new DigiKatUnavailableException("DigiKat is unavailable"));
+
+            // when
+            rankingService.rankMovie(1L, REQUESTED_AT);
+
+            // then
+            verify(movieRepository).updateRanking(1L, REQUESTED_AT, 10, RankingStatus.FAILED);
+        }
+
+        @Test
+        @DisplayName("Should skip outdated ranking request")
+        void shouldSkipOutdatedRequest() {
+            // given
+            when(movieRepository.findById(1L)).thenReturn(Optional.of(pendingMovie(REQUESTED_AT.plusSeconds(5))));
+
+            // when
+            rankingService.rankMovie(1L, REQUESTED_AT);
+
+            // then
+            verifyNoInteractions(digiKatMovieDataCache);
+            verify(movieRepository, never()).updateRanking(any(), any(), anyInt(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("resubmitStaleRankings")
+    class ResubmitStaleRankingsTests {
+
+        @Test
+        @DisplayName("Should renew and republish stale pending requests")
+        void shouldRepublishStaleRequests() {
+            // given
+            when(movieRepository.findByRankingStatusAndRankingRequestedAtBefore(eq(RankingStatus.PENDING), any(), eq(Limit.of(50))))
+                    .thenReturn(List.of(pendingMovie(REQUESTED_AT)));
+            when(movieRepository.renewRankingRequest(eq(1L), eq(REQUESTED_AT), any())).thenReturn(1);
+
+            // when
+            rankingService.resubmitStaleRankings();
+
+            // then
+            verify(eventPublisher).publishEvent(any(MovieRankingRequestedEvent.class));
+        }
+
+        @Test
+        @DisplayName("Should not republish request renewed concurrently")
+        void shouldNotRepublishWhenRenewFails() {
+            // given
+            when(movieRepository.findByRankingStatusAndRankingRequestedAtBefore(eq(RankingStatus.PENDING), any(), any()))
+                    .thenReturn(List.of(pendingMovie(REQUESTED_AT)));
+            when(movieRepository.renewRankingRequest(eq(1L), eq(REQUESTED_AT), any())).thenReturn(0);
+
+            // when
+            rankingService.resubmitStaleRankings();
+
+            // then
+            verifyNoInteractions(eventPublisher);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package pl.rafzab.movielibraryservice.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.RangedResource;
+import pl.rafzab.movielibraryservice.service.file.storage.S3StorageBackend;
+import pl.rafzab.movielibraryservice.service.file.storage.S3StorageProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.StorageBackend;
+import pl.rafzab.movielibraryservice.service.file.storage.StorageConfiguration;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs the backend with the real S3 client against an in-memory stand-in of an S3-compatible store
+ */
+@DisplayName("S3StorageBackend Tests")
+class S3StorageBackendTest {
+    private static final String KEY = "objects/ab/cd/abcd";
+
+    @TempDir
+    Path tempDir;
+
+    private FakeS3Server s3Server;
+    private S3Client s3Client;
+    private S3StorageBackend storageBackend;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        s3Server = new FakeS3Server();
+        S3StorageProperties s3StorageProperties = new S3StorageProperties();
+        s3StorageProperties.setEndpoint(s3Server.endpoint());
+        s3StorageProperties.setRegion("us-east-1");
+        s3StorageProperties.setBucket("movies");
+        s3StorageProperties.setKeyPrefix("test/");
+        s3StorageProperties.setAccessKey("access");
+        s3StorageProperties.setSecretKey("secret");
+        s3StorageProperties.setPathStyleAccess(true);
+        s3Client = new StorageConfiguration().storageS3Client(s3StorageProperties);
+
+        UploadProperties uploadProperties = new UploadProperties();
+        uploadProperties.setDirectory(tempDir.toString());
+        storageBackend = new S3StorageBackend(s3Client, s3StorageProperties, uploadProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Client.close();
+        s3Server.stop();
+    }
+
+    @Nested
+    @DisplayName("Object Tests")
+    class ObjectTests {
+
+        @Test
+        @DisplayName("Should upload a staged file and remove it locally")
+        void shouldUploadStagedFile() throws IOException {
+            // given
+            Path staged = stage("content");
+
+            // when
+            String locator = storageBackend.locate(KEY, staged);
+            storageBackend.put(locator, staged);
+
+            // then
+            assertThat(locator).isEqualTo("s3://movies/test/" + KEY);
+            assertThat(s3Server.objects).containsKey("/movies/test/" + KEY);
+            assertThat(new String(s3Server.objects.get("/movies/test/" + KEY), StandardCharsets.UTF_8)).isEqualTo("content");
+            assertThat(staged).doesNotExist();
+            assertThat(storageBackend.exists(locator)).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should load an object with its length and file name")
+        void shouldLoadObject() throws IOException {
+            // given
+            Path staged = stage("0123456789");
+            String locator = storageBackend.locate(KEY, staged);
+            storageBackend.put(locator, staged);
+
+            // when
+            Resource resource = storageBackend.load(locator, "movie.mp4");
+
+            // then
+            assertThat(resource.contentLength()).isEqualTo(10);
+            assertThat(resource.getFilename()).isEqualTo("movie.mp4");
+            assertThat(resource.getContentAsByteArray()).isEqualTo("0123456789".getBytes());
+        }
+
+        @Test
+        @DisplayName("Should read only the requested range")
+        void shouldReadOnlyRequestedRange() throws IOException {
+            // given
+            Path staged = stage("0123456789");
+            String locator = storageBackend.locate(KEY, staged);
+            storageBackend.put(locator, staged);
+            RangedResource resource = (RangedResource) storageBackend.load(locator, null);
+
+            // when
+            byte[] range;
+            try (InputStream in = resource.getInputStream(3, 4)) {
+                range = in.readAllBytes();
+            }
+
+            // then
+            assertThat(new String(range, StandardCharsets.UTF_8)).isEqualTo("3456");
+            assertThat(s3Server.lastRange).isEqualTo("bytes=3-6");
+            assertThat(resource.getFilename()).isEqualTo("abcd");
+        }
+
+        @Test
+        @DisplayName("Should delete an object")
+        void shouldDeleteObject() throws IOException {
+            // given
+            Path staged = stage("content");
+            String locator = storageBackend.locate(KEY, staged);
+            storageBackend.put(locator, staged);
+
+            // when
+            storageBackend.delete(locator);
+
+            // then
+            assertThat(storageBackend.exists(locator)).isFalse();
+            assertThrows(NoSuchFileException.class, () -> storageBackend.load(locator, null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Local File Tests")
+    class LocalFileTests {
+
+        @Test
+        @DisplayName("Should stage uploads in the upload directory")
+        void shouldStageInUploadDirectory() throws IOException {
+            // when
+            try (StorageBackend.Staging staging = storageBackend.stage(10)) {
+
+                // then
+                assertThat(staging.directory()).isEqualTo(tempDir);
+            }
+        }
+
+        @Test
+        @DisplayName("Should still serve and delete files stored before the store was configured")
+        void shouldServeLocalFiles() throws IOException {
+            // given
+            Path legacyFile = Files.writeString(tempDir.resolve("123_old.mp4"), "old");
+
+            // when
+            Resource resource = storageBackend.load(legacyFile.toString(), null);
+
+            // then
+            assertThat(resource.getContentAsByteArray()).isEqualTo("old".getBytes());
+            storageBackend.delete(legacyFile.toString());
+            assertThat(storageBackend.exists(legacyFile.toString())).isFalse();
+            assertThat(s3Server.objects).isEmpty();
+        }
+    }
+
+    private Path stage(String content) throws IOException {
+        return Files.writeString(tempDir.resolve(System.nanoTime() + "_movie.mp4"), content);
+    }
+
+    /**
+     * Path-style PUT, HEAD, GET (with a single range) and DELETE of objects, request signatures are not checked
+     */
+    private static class FakeS3Server {
+        private final HttpServer server;
+        private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        private volatile String lastRange;
+
+        FakeS3Server() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this::handle);
+            server.start();
+        }
+
+        String endpoint() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                String path = exchange.getRequestURI().getPath();
+                byte[] object = objects.get(path);
+                switch (exchange.getRequestMethod()) {
+                    case "PUT" -> {
+                        objects.put(path, readBody(exchange));
+                        exchange.getResponseHeaders().set("ETag", "\"etag\"");
+                        exchange.sendResponseHeaders(200, -1);
+                    }
+                    case "HEAD" -> {
+                        if (object == null) {
+                            exchange.sendResponseHeaders(404, -1);
+                            return;
+                        }
+                        exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.length));
+                        exchange.getResponseHeaders().set("Last-Modified", "Tue, 01 Sep 2026 10:00:00 GMT");
+                        exchange.sendResponseHeaders(200, -1);
+                    }
+                    case "GET" -> {
+                        if (object == null) {
+                            byte[] error = "<Error><Code>NoSuchKey</Code></Error>".getBytes(StandardCharsets.UTF_8);
+                            exchange.sendResponseHeaders(404, error.length);
+                            exchange.getResponseBody().write(error);
+                            return;
+                        }
+                        lastRange = exchange.getRequestHeaders().getFirst("Range");
+                        byte[] body = object;
+                        int status = 200;
+                        if (lastRange != null) {
+                            String[] bounds = lastRange.substring("bytes=".length()).split("-");
+                            int start = Integer.parseInt(bounds[0]);
+                            int end = Integer.parseInt(bounds[1]);
+                            body = Arrays.copyOfRange(object, start, end + 1);
+                            status = 206;
+                            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + object.length);
+                        }
+                        exchange.sendResponseHeaders(status, body.length);
+                        exchange.getResponseBody().write(body);
+                    }
+                    case "DELETE" -> {
+                        objects.remove(path);
+                        exchange.sendResponseHeaders(204, -1);
+                    }
+                    default -> exchange.sendResponseHeaders(405, -1);
+                }
+            }
+        }
+
+        /**
+         * Plain bodies as well as aws-chunked ones, which the client uses when it signs the payload over HTTP
+         */
+        private byte[] readBody(HttpExchange exchange) throws IOException {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String contentSha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+            if (contentSha256 == null || !contentSha256.startsWith("STREAMING-")) {
+                return body;
+            }
+            var decoded = new ByteArrayOutputStream();
+            int position = 0;
+            while (position < body.length) {
+                int lineEnd = indexOfCrlf(body, position);
+                String header = new String(body, position, lineEnd - position, StandardCharsets.US_ASCII);
+                int size = Integer.parseInt(header.split(";")[0], 16);
+                if (size == 0) {
+                    break;
+                }
+                decoded.write(body, lineEnd + 2, size);
+                position = lineEnd + 2 + size + 2;
+            }
+            return decoded.toByteArray();
+        }
+
+        private int indexOfCrlf(byte[] body, int from) {
+            for (int i = from; i < body.length - 1; i++) {
+                if (body[i] == '\r' && body[i + 1] == '\n') {
+                    return i;
+                }
+            }
+            return body.length;
+        }
+    }
+}
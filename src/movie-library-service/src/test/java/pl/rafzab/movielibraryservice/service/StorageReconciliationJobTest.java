@@ -0,0 +1,228 @@
+package pl.rafzab.movielibraryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import pl.rafzab.movielibraryservice.repository.StorageReconciliationRepository;
+import pl.rafzab.movielibraryservice.repository.StoredContentRepository;
+import pl.rafzab.movielibraryservice.repository.StoredContentRow;
+import pl.rafzab.movielibraryservice.service.file.ContentStore;
+import pl.rafzab.movielibraryservice.service.file.FileStorageService;
+import pl.rafzab.movielibraryservice.service.file.StorageReconciliationJob;
+import pl.rafzab.movielibraryservice.service.file.StorageReconciliationProperties;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.LocalStorageProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.StorageProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.StripedLocalStorageBackend;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StorageReconciliationJob Tests")
+class StorageReconciliationJobTest {
+    private static final String CHECKSUM = "a".repeat(64);
+
+    @TempDir
+    Path tempDir;
+    @Mock
+    private StorageReconciliationRepository reconciliationRepository;
+    @Mock
+    private StoredContentRepository storedContentRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private Path volume;
+    private StorageReconciliationProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private StorageReconciliationJob job;
+
+    @BeforeEach
+    void setUp() {
+        volume = tempDir.toAbsolutePath();
+        LocalStorageProperties localStorageProperties = new LocalStorageProperties();
+        localStorageProperties.setVolumes(List.of(volume.toString()));
+        localStorageProperties.setMinFreeSpaceBytes(0L);
+        StorageProperties storageProperties = new StorageProperties();
+        storageProperties.setFanOutLevels(1);
+        properties = new StorageReconciliationProperties();
+        properties.setGracePeriod(Duration.ofHours(24));
+        properties.setFetchSize(100);
+        meterRegistry = new SimpleMeterRegistry();
+
+        StripedLocalStorageBackend storageBackend = new StripedLocalStorageBackend(
+                localStorageProperties, new UploadProperties(), meterRegistry);
+        FileStorageService fileStorageService = new FileStorageService(storageBackend, meterRegistry);
+        ContentStore contentStore = new ContentStore(storedContentRepository, storageBackend, fileStorageService,
+                storageProperties, transactionManager);
+        job = new StorageReconciliationJob(storageBackend, reconciliationRepository, contentStore, fileStorageService,
+                properties, transactionManager, meterRegistry);
+    }
+
+    @Nested
+    @DisplayName("Orphaned File Tests")
+    class OrphanedFileTests {
+
+        @Test
+        @DisplayName("Should delete old orphans and keep referenced and recent files")
+        void shouldDeleteOldOrphansAndKeepReferencedAndRecentFiles() throws IOException {
+            // given
+            Path referenced = oldFile("123_movie.mp4", "movie");
+            Path orphan = oldFile("456_failed.mp4", "failed upload");
+            Path recent = Files.writeString(volume.resolve("789_uploading.mp4"), "uploading");
+            referencedPaths(referenced);
+
+            // when
+            job.reconcile();
+
+            // then
+            assertThat(referenced).exists();
+            assertThat(orphan).doesNotExist();
+            assertThat(recent).exists();
+            assertThat(meterRegistry.get("storage.reconciliation.orphans").tag("result", "deleted").counter().count())
+                    .isEqualTo(1.0);
+            assertThat(meterRegistry.get("storage.reconciliation.orphans").tag("result", "retained").counter().count())
+                    .isEqualTo(1.0);
+            assertThat(meterRegistry.get("storage.reconciliation.reclaimed").counter().count())
+                    .isEqualTo("failed upload".length());
+        }
+
+        @Test
+        @DisplayName("Should match references of files in subdirectories")
+        void shouldMatchReferencesInSubdirectories() throws IOException {
+            // given
+            Files.createDirectories(volume.resolve("a"));
+            Path nested = oldFile("a/b", "nested");
+            Path sibling = oldFile("a-c", "sibling");
+            referencedPaths(sibling, nested);
+
+            // when
+            job.reconcile();
+
+            // then
+            assertThat(nested).exists();
+            assertThat(sibling).exists();
+        }
+
+        @Test
+        @DisplayName("Should delete orphaned content under its content row lock")
+        void shouldDeleteOrphanedContentUnderRowLock() throws IOException {
+            // given
+            Files.createDirectories(volume.resolve("objects/aa"));
+            Path content = oldFile("objects/aa/" + CHECKSUM, "content");
+            referencedPaths();
+            when(storedContentRepository.lockOrRegisterUnreferenced(CHECKSUM, content.toString(), 7L))
+                    .thenReturn(new StoredContentRow(content.toString(), 0));
+
+            // when
+            job.reconcile();
+
+            // then
+            assertThat(content).doesNotExist();
+            verify(storedContentRepository).deleteUnreferenced(CHECKSUM, content.toString());
+        }
+
+        @Test
+        @DisplayName("Should keep content registered by a concurrent upload")
+        void shouldKeepContentRegisteredByConcurrentUpload() throws IOException {
+            // given
+            Files.createDirectories(volume.resolve("objects/aa"));
+            Path content = oldFile("objects/aa/" + CHECKSUM, "content");
+            referencedPaths();
+            when(storedContentRepository.lockOrRegisterUnreferenced(CHECKSUM, content.toString(), 7L))
+                    .thenReturn(new StoredContentRow(content.toString(), 1));
+
+            // when
+            job.reconcile();
+
+            // then
+            assertThat(content).exists();
+            verify(storedContentRepository, never()).deleteUnreferenced(anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("Should only count orphans in dry run")
+        void shouldOnlyCountOrphansInDryRun() throws IOException {
+            // given
+            properties.setDryRun(true);
+            Path orphan = oldFile("456_failed.mp4", "failed upload");
+            referencedPaths();
+
+            // when
+            job.reconcile();
+
+            // then
+            assertThat(orphan).exists();
+            assertThat(meterRegistry.get("storage.reconciliation.orphans").tag("result", "retained").counter().count())
+                    .isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("Should stop when referenced paths are not sorted")
+        void shouldStopWhenReferencedPathsAreNotSorted() throws IOException {
+            // given
+            Path first = oldFile("1_first.mp4", "first");
+            Path fourth = oldFile("4_fourth.mp4", "fourth");
+            referencedPaths(first, volume.resolve("3_third.mp4"), volume.resolve("2_second.mp4"));
+
+            // when & then
+            assertThrows(IllegalStateException.class, () -> job.reconcile());
+            assertThat(first).exists();
+            assertThat(fourth).exists();
+        }
+    }
+
+    @Nested
+    @DisplayName("Unreferenced Content Tests")
+    class UnreferencedContentTests {
+
+        @Test
+        @DisplayName("Should delete content rows left without references")
+        void shouldDeleteUnreferencedContent() throws IOException {
+            // given
+            Files.createDirectories(volume.resolve("objects/aa"));
+            Path content = Files.writeString(volume.resolve("objects/aa/" + CHECKSUM), "content");
+            when(reconciliationRepository.findUnreferencedChecksums()).thenReturn(List.of(CHECKSUM));
+            when(storedContentRepository.lockUnreferenced(CHECKSUM)).thenReturn(Optional.of(content.toString()));
+            referencedPaths();
+
+            // when
+            job.reconcile();
+
+            // then
+            assertThat(content).doesNotExist();
+            verify(storedContentRepository).deleteUnreferenced(CHECKSUM);
+        }
+    }
+
+    private Path oldFile(String name, String content) throws IOException {
+        Path file = Files.writeString(volume.resolve(name), content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        return file;
+    }
+
+    private void referencedPaths(Path... paths) {
+        when(reconciliationRepository.streamReferencedPaths(anyInt()))
+                .thenReturn(Stream.of(paths).map(Path::toString));
+    }
+}
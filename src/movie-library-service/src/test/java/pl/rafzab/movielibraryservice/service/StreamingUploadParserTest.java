@@ -0,0 +1,195 @@
+package pl.rafzab.movielibraryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import pl.rafzab.movielibraryservice.exception.BadRequestException;
+import pl.rafzab.movielibraryservice.service.file.FileStorageService;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.LocalStorageProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.StripedLocalStorageBackend;
+import pl.rafzab.movielibraryservice.service.upload.StreamedMovieUpload;
+import pl.rafzab.movielibraryservice.service.upload.StreamingUploadParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("StreamingUploadParser Tests")
+class StreamingUploadParserTest {
+    private static final String BOUNDARY = "----movie-boundary";
+
+    private static jakarta.validation.ValidatorFactory validatorFactory;
+
+    @TempDir
+    Path tempDir;
+
+    private StreamingUploadParser parser;
+
+    @BeforeAll
+    static void initValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        UploadProperties uploadProperties = new UploadProperties();
+        uploadProperties.setDirectory(tempDir.toString());
+        uploadProperties.setMaxFileSize(1024L);
+        Validator validator = validatorFactory.getValidator();
+        LocalStorageProperties localStorageProperties = new LocalStorageProperties();
+        localStorageProperties.setMinFreeSpaceBytes(0L);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FileStorageService fileStorageService = new FileStorageService(
+                new StripedLocalStorageBackend(localStorageProperties, uploadProperties, meterRegistry), meterRegistry);
+        parser = new StreamingUploadParser(fileStorageService, uploadProperties, validator);
+    }
+
+    @Test
+    @DisplayName("It should parse the fields and stream the file to storage")
+    void shouldParseFieldsAndStoreFile() throws IOException {
+        // Given
+        MockHttpServletRequest request = multipartRequest(new Multipart()
+                .field("title", "Rejs")
+                .field("director", "Marek Piwowski")
+                .field("yearOfProduction", "1970")
+                .file("video/mp4", "rejs.mp4", "movie bytes"));
+
+        // When
+        StreamedMovieUpload result = parser.parse(request);
+
+        // Then
+        assertThat(result.metadata().title()).isEqualTo("Rejs");
+        assertThat(result.metadata().director()).isEqualTo("Marek Piwowski");
+        assertThat(result.metadata().yearOfProduction()).isEqualTo(1970);
+        assertThat(result.file().size()).isEqualTo("movie bytes".length());
+        assertThat(result.file().checksum()).hasSize(64);
+        assertThat(Files.readString(Paths.get(result.file().filePath()))).isEqualTo("movie bytes");
+    }
+
+    @Test
+    @DisplayName("It should reject a non-video file without storing it")
+    void shouldRejectNonVideoFile() throws IOException {
+        // Given
+        MockHttpServletRequest request = multipartRequest(new Multipart()
+                .field("title", "Rejs")
+                .field("director", "Marek Piwowski")
+                .field("yearOfProduction", "1970")
+                .file("image/png", "cover.png", "png"));
+
+        // When & Then
+        assertThrows(BadRequestException.class, () -> parser.parse(request));
+        assertThat(isEmpty(tempDir)).isTrue();
+    }
+
+    @Test
+    @DisplayName("It should remove the stored file when metadata is invalid")
+    void shouldRemoveFileWhenMetadataInvalid() throws IOException {
+        // Given
+        MockHttpServletRequest request = multipartRequest(new Multipart()
+                .file("video/mp4", "rejs.mp4", "movie bytes")
+                .field("title", "")
+                .field("director", "Marek Piwowski")
+                .field("yearOfProduction", "1970"));
+
+        // When & Then
+        assertThrows(ConstraintViolationException.class, () -> parser.parse(request));
+        assertThat(isEmpty(tempDir)).isTrue();
+    }
+
+    @Test
+    @DisplayName("It should reject a request without a file")
+    void shouldRejectRequestWithoutFile() {
+        // Given
+        MockHttpServletRequest request = multipartRequest(new Multipart()
+                .field("title", "Rejs"));
+
+        // When & Then
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> parser.parse(request));
+        assertThat(exception.getMessage()).isEqualTo("File is required");
+    }
+
+    @Test
+    @DisplayName("It should reject a file exceeding the configured limit")
+    void shouldRejectTooLargeFile() throws IOException {
+        // Given
+        MockHttpServletRequest request = multipartRequest(new Multipart()
+                .field("title", "Rejs")
+                .file("video/mp4", "rejs.mp4", "x".repeat(2048)));
+
+        // When & Then
+        assertThrows(BadRequestException.class, () -> parser.parse(request));
+        assertThat(isEmpty(tempDir)).isTrue();
+    }
+
+    @Test
+    @DisplayName("It should reject a request that is not multipart")
+    void shouldRejectNonMultipartRequest() {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/movies/stream");
+        request.setContentType("application/json");
+
+        // When & Then
+        assertThrows(BadRequestException.class, () -> parser.parse(request));
+    }
+
+    private MockHttpServletRequest multipartRequest(Multipart multipart) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/movies/stream");
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        request.setContent(multipart.build());
+        return request;
+    }
+
+    private boolean isEmpty(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.findAny().isEmpty();
+        }
+    }
+
+    private static class Multipart {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        Multipart field(String name, String value) {
+            write("--" + BOUNDARY + "\r\n" +
+                    "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" +
+                    value + "\r\n");
+            return this;
+        }
+
+        Multipart file(String contentType, String filename, String content) {
+            write("--" + BOUNDARY + "\r\n" +
+                    "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n" +
+                    "Content-Type: " + contentType + "\r\n\r\n" +
+                    content + "\r\n");
+            return this;
+        }
+
+        byte[] build() {
+            write("--" + BOUNDARY + "--\r\n");
+            return body.toByteArray();
+        }
+
+        private void write(String value) {
+            body.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package pl.rafzab.movielibraryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import pl.rafzab.movielibraryservice.service.file.UploadProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.LocalStorageProperties;
+import pl.rafzab.movielibraryservice.service.file.storage.StorageBackend;
+import pl.rafzab.movielibraryservice.service.file.storage.StripedLocalStorageBackend;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("StripedLocalStorageBackend Tests")
+class StripedLocalStorageBackendTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path firstVolume;
+    private Path secondVolume;
+    private LocalStorageProperties localStorageProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private StripedLocalStorageBackend storageBackend;
+
+    @BeforeEach
+    void setUp() {
+        firstVolume = tempDir.resolve("disk1");
+        secondVolume = tempDir.resolve("disk2");
+        localStorageProperties = new LocalStorageProperties();
+        localStorageProperties.setVolumes(List.of(firstVolume.toString(), secondVolume.toString()));
+        localStorageProperties.setMinFreeSpaceBytes(0L);
+        meterRegistry = new SimpleMeterRegistry();
+        storageBackend = new StripedLocalStorageBackend(localStorageProperties, new UploadProperties(), meterRegistry);
+    }
+
+    @Nested
+    @DisplayName("Placement Tests")
+    class PlacementTests {
+
+        @Test
+        @DisplayName("Should stage concurrent uploads on different volumes")
+        void shouldStageConcurrentUploadsOnDifferentVolumes() throws IOException {
+            // when
+            try (StorageBackend.Staging first = storageBackend.stage(10);
+                 StorageBackend.Staging second = storageBackend.stage(10)) {
+
+                // then
+                assertThat(List.of(first.directory(), second.directory()))
+                        .containsExactlyInAnyOrder(firstVolume, secondVolume);
+                assertThat(meterRegistry.get("storage.volume.active.writes").tag("volume", firstVolume.toString())
+                        .gauge().value()).isEqualTo(1.0);
+            }
+            assertThat(meterRegistry.get("storage.volume.active.writes").tag("volume", firstVolume.toString())
+                    .gauge().value()).isEqualTo(0.0);
+        }
+
+        @Test
+        @DisplayName("Should reject uploads when no volume has enough free space")
+        void shouldRejectUploadsWhenNoVolumeHasSpace() {
+            // given
+            localStorageProperties.setMinFreeSpaceBytes(Long.MAX_VALUE / 2);
+
+            // when & then
+            IOException exception = assertThrows(IOException.class, () -> storageBackend.stage(10));
+            assertThat(exception.getMessage()).startsWith("No storage volume has");
+        }
+
+        @Test
+        @DisplayName("Should fall back to the upload directory without configured volumes")
+        void shouldFallBackToUploadDirectory() throws IOException {
+            // given
+            UploadProperties uploadProperties = new UploadProperties();
+            uploadProperties.setDirectory(tempDir.resolve("uploads").toString());
+            localStorageProperties.setVolumes(List.of());
+            storageBackend = new StripedLocalStorageBackend(localStorageProperties, uploadProperties, meterRegistry);
+
+            // when
+            try (StorageBackend.Staging staging = storageBackend.stage(-1)) {
+
+                // then
+                assertThat(staging.directory()).isEqualTo(tempDir.resolve("uploads"));
+                assertThat(staging.directory()).isDirectory();
+            }
+        }
+
+        @Test
+        @DisplayName("Should keep a stored file on the volume it was staged on")
+        void shouldKeepFileOnStagingVolume() throws IOException {
+            // given
+            Files.createDirectories(secondVolume);
+            Path staged = Files.writeString(secondVolume.resolve("1_movie.mp4"), "content");
+
+            // when
+            String locator = storageBackend.locate("objects/ab/cd/abcd", staged);
+
+            // then
+            assertThat(locator).isEqualTo(secondVolume.resolve("objects/ab/cd/abcd").toString());
+        }
+
+        @Test
+        @DisplayName("Should place a file staged outside the volumes on a volume")
+        void shouldPlaceFileStagedOutsideVolumes() throws IOException {
+            // given
+            Path staged = Files.writeString(tempDir.resolve("1_movie.mp4"), "content");
+
+            // when
+            String locator = storageBackend.locate("objects/ab/cd/abcd", staged);
+
+            // then
+            assertThat(List.of(firstVolume.resolve("objects/ab/cd/abcd").toString(),
+                    secondVolume.resolve("objects/ab/cd/abcd").toString())).contains(locator);
+        }
+    }
+
+    @Nested
+    @DisplayName("File Tests")
+    class FileTests {
+
+        @Test
+        @DisplayName("Should put, load and delete a file")
+        void shouldPutLoadAndDeleteFile() throws IOException {
+            // given
+            Files.createDirectories(firstVolume);
+            Path staged = Files.writeString(firstVolume.resolve("1_movie.mp4"), "content");
+            String locator = storageBackend.locate("objects/ab/cd/abcd", staged);
+
+            // when
+            storageBackend.put(locator, staged);
+            Resource resource = storageBackend.load(locator, "movie.mp4");
+
+            // then
+            assertThat(staged).doesNotExist();
+            assertThat(storageBackend.exists(locator)).isTrue();
+            assertThat(resource.getFilename()).isEqualTo("movie.mp4");
+            assertThat(resource.getContentAsByteArray()).isEqualTo("content".getBytes());
+
+            storageBackend.delete(locator);
+            assertThat(storageBackend.exists(locator)).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should report a missing file")
+        void shouldReportMissingFile() {
+            // given
+            String locator = firstVolume.resolve("objects/ab/cd/missing").toString();
+
+            // when & then
+            assertThrows(NoSuchFileException.class, () -> storageBackend.load(locator, null));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+-- Movie listing index benchmark.
+--
+-- Run against a scratch copy of the movie_library schema (after the Flyway migrations),
+-- never against production data:
+--   createdb -O movielibraryservice movie_library_bench
+--   (start the service once against it, or run the Flyway migrations)
+--   psql -U movielibraryservice -d movie_library_bench -f movie_listing_indexes.sql
+--
+-- Dataset: 1 000 users with 3 000 movies each plus one heavy user with 2 000 000 movies (5 000 000 rows).
+-- Expected plans: "Index Only Scan [Backward] using idx_movies_user_*" with "Heap Fetches: 0"
+-- and no Sort node, for every MovieFieldSort option and both directions.
+
+\timing on
+\set heavy_user 1000000
+
+BEGIN;
+
+INSERT INTO users (user_id, email, password)
+SELECT id, 'bench-' || id || '@example.com', 'not-a-password'
+FROM generate_series(1000001, 1001000) AS id
+UNION ALL
+SELECT :heavy_user, 'bench-heavy@example.com', 'not-a-password'
+ON CONFLICT DO NOTHING;
+
+INSERT INTO movies (user_id, title, director, year_of_production, ranking, size, file_path, ranking_status)
+SELECT 1000001 + (n % 1000),
+       'Movie ' || n,
+       'Director ' || (n % 5000),
+       1950 + (n % 75),
+       (ARRAY [-50, 0, 100, 150, 200, 250, 300])[1 + (n % 7)],
+       (random() * 1073741824)::BIGINT,
+       '/bench/' || n,
+       'DONE'
+FROM generate_series(1, 3000000) AS n;
+
+INSERT INTO movies (user_id, title, director, year_of_production, ranking, size, file_path, ranking_status)
+SELECT :heavy_user,
+       'Heavy movie ' || n,
+       'Director ' || (n % 5000),
+       1950 + (n % 75),
+       (ARRAY [-50, 0, 100, 150, 200, 250, 300])[1 + (n % 7)],
+       (random() * 1073741824)::BIGINT,
+       '/bench/heavy/' || n,
+       'DONE'
+FROM generate_series(1, 2000000) AS n;
+
+COMMIT;
+
+-- Index-only scans need an up to date visibility map.
+VACUUM (ANALYZE) movies;
+
+-- Sort ALL, DESC (default listing), first page
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT movie_id, title, director, year_of_production, ranking, ranking_status
+FROM movies
+WHERE user_id = :heavy_user
+ORDER BY ranking DESC, size DESC, movie_id DESC
+LIMIT 20;
+
+-- Sort RANKING, ASC
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT movie_id, title, director, year_of_production, ranking, ranking_status
+FROM movies
+WHERE user_id = :heavy_user
+ORDER BY ranking, movie_id
+LIMIT 20;
+
+-- Sort SIZE, DESC
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT movie_id, title, director, year_of_production, ranking, ranking_status
+FROM movies
+WHERE user_id = :heavy_user
+ORDER BY size DESC, movie_id DESC
+LIMIT 20;
+
+-- Deep OFFSET page: cost grows with the offset even with the index
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT movie_id, title, director, year_of_production, ranking, ranking_status
+FROM movies
+WHERE user_id = :heavy_user
+ORDER BY size DESC, movie_id DESC
+OFFSET 1000000 LIMIT 20;
+
+-- Same depth with keyset continuation: constant cost.
+-- The statements below are the ones Hibernate generates for MovieListingRepositoryImpl.findListingRows
+-- (copied from the SQL log), prepared so they are planned with bind parameters like the JDBC driver does.
+SELECT ranking AS cursor_ranking, size AS cursor_size, movie_id AS cursor_movie_id
+FROM movies
+WHERE user_id = :heavy_user
+ORDER BY ranking DESC, size DESC, movie_id DESC
+OFFSET 999999 LIMIT 1 \gset all_
+
+SELECT size AS cursor_size, movie_id AS cursor_movie_id
+FROM movies
+WHERE user_id = :heavy_user
+ORDER BY size DESC, movie_id DESC
+OFFSET 999999 LIMIT 1 \gset size_
+
+-- Sort ALL, DESC, continued
+PREPARE keyset_all_desc(BIGINT, INTEGER, BIGINT, BIGINT, INTEGER) AS
+select m1_0.movie_id,m1_0.title,m1_0.director,m1_0.year_of_production,m1_0.ranking,m1_0.ranking_status,m1_0.size
+from movies m1_0
+where m1_0.user_id=$1 and (m1_0.ranking,m1_0.size,m1_0.movie_id)<($2,$3,$4)
+order by 5 desc,7 desc,1 desc fetch first $5 rows only;
+
+EXPLAIN (ANALYZE, BUFFERS)
+EXECUTE keyset_all_desc(:heavy_user, :all_cursor_ranking, :all_cursor_size, :all_cursor_movie_id, 21);
+
+-- Sort SIZE, DESC, continued
+PREPARE keyset_size_desc(BIGINT, BIGINT, BIGINT, INTEGER) AS
+select m1_0.movie_id,m1_0.title,m1_0.director,m1_0.year_of_production,m1_0.ranking,m1_0.ranking_status,m1_0.size
+from movies m1_0
+where m1_0.user_id=$1 and (m1_0.size,m1_0.movie_id)<($2,$3)
+order by 7 desc,1 desc fetch first $4 rows only;
+
+EXPLAIN (ANALYZE, BUFFERS)
+EXECUTE keyset_size_desc(:heavy_user, :size_cursor_size, :size_cursor_movie_id, 21);
+
+-- For comparison, the nested OR form the application sent before: the index is only used for user_id,
+-- the predicate is a filter and the number of rows removed by it grows with the depth.
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT movie_id, title, director, year_of_production, ranking, ranking_status, size
+FROM movies
+WHERE user_id = :heavy_user
+  AND (size < :size_cursor_size OR (size = :size_cursor_size AND movie_id < :size_cursor_movie_id))
+ORDER BY size DESC, movie_id DESC
+LIMIT 21;
+
+DEALLOCATE keyset_all_desc;
+DEALLOCATE keyset_size_desc;
+
+-- Count for totalItems
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*)
+FROM movies
+WHERE user_id = :heavy_user;
+
+-- Single movie of a user (primary key lookup)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT *
+FROM movies
+WHERE movie_id = 42
+  AND user_id = 1000043;
+
+-- Cleanup:
+-- DELETE FROM users WHERE email LIKE 'bench-%@example.com';
@@ -0,0 +1,97 @@
+-- Movie search benchmark.
+--
+-- Run against a scratch copy of the movie_library schema (after the Flyway migrations),
+-- never against production data:
+--   createdb -O movielibraryservice movie_library_bench
+--   (start the service once against it, or run the Flyway migrations)
+--   psql -U movielibraryservice -d movie_library_bench -f movie_search.sql
+--
+-- Dataset: 1 000 users with 3 000 movies each plus one heavy user with 500 000 movies with varied titles.
+-- Expected plans: "BitmapOr" over idx_movies_user_search_vector, idx_movies_user_title_trgm and
+-- idx_movies_user_director_trgm with user_id in every index condition, and no Seq Scan.
+-- Selective queries stay well under 50 ms; words found in most of a library have to rank every match.
+
+\timing on
+\set heavy_user 1000000
+
+BEGIN;
+
+INSERT INTO users (user_id, email, password)
+SELECT id, 'bench-' || id || '@example.com', 'not-a-password'
+FROM generate_series(1000001, 1001000) AS id
+UNION ALL
+SELECT :heavy_user, 'bench-heavy@example.com', 'not-a-password'
+ON CONFLICT DO NOTHING;
+
+INSERT INTO movies (user_id, title, director, year_of_production, ranking, size, file_path, ranking_status)
+SELECT 1000001 + (n % 1000),
+       'Movie ' || md5(n::TEXT),
+       'Director ' || (n % 5000),
+       1950 + (n % 75),
+       (ARRAY [-50, 0, 100, 150, 200, 250, 300])[1 + (n % 7)],
+       (random() * 1073741824)::BIGINT,
+       '/bench/' || n,
+       'DONE'
+FROM generate_series(1, 3000000) AS n;
+
+INSERT INTO movies (user_id, title, director, year_of_production, ranking, size, file_path, ranking_status)
+SELECT :heavy_user,
+       (ARRAY ['Star', 'Night', 'Return', 'Lost', 'Dark', 'Silent', 'Last', 'Red'])[1 + (n % 8)] || ' ' ||
+       (ARRAY ['Wars', 'City', 'River', 'Empire', 'Garden', 'Road', 'Winter', 'Island'])[1 + (n / 8 % 8)] || ' ' ||
+       substr(md5(n::TEXT), 1, 8),
+       'Director ' || substr(md5((n % 20000)::TEXT), 1, 10),
+       1950 + (n % 75),
+       (ARRAY [-50, 0, 100, 150, 200, 250, 300])[1 + (n % 7)],
+       (random() * 1073741824)::BIGINT,
+       '/bench/heavy/' || n,
+       'DONE'
+FROM generate_series(1, 500000) AS n;
+
+COMMIT;
+
+VACUUM (ANALYZE) movies;
+
+-- Typeahead of a title fragment of a single movie: "<hash prefix>"
+SELECT substr(md5('4242'), 1, 6) AS fragment \gset
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT movie_id, title, director, year_of_production, ranking, ranking_status, count(*) OVER () AS total
+FROM movies, to_tsquery('simple', :'fragment' || ':*') AS text_query
+WHERE user_id = :heavy_user
+  AND ((setweight(to_tsvector('simple', title), 'A') || setweight(to_tsvector('simple', director), 'B')) @@ text_query
+    OR :'fragment' <% title OR :'fragment' <% director)
+ORDER BY ts_rank(setweight(to_tsvector('simple', title), 'A') || setweight(to_tsvector('simple', director), 'B'), text_query)
+             + greatest(word_similarity(:'fragment', title), word_similarity(:'fragment', director)) DESC,
+         ranking DESC, movie_id DESC
+LIMIT 20;
+
+-- Two words with a ranking filter: "star wa" matches 1/64 of the library
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT movie_id, title, director, year_of_production, ranking, ranking_status, count(*) OVER () AS total
+FROM movies, to_tsquery('simple', 'star & wa:*') AS text_query
+WHERE user_id = :heavy_user
+  AND ((setweight(to_tsvector('simple', title), 'A') || setweight(to_tsvector('simple', director), 'B')) @@ text_query
+    OR 'star wa' <% title OR 'star wa' <% director)
+  AND ranking >= 200
+ORDER BY ts_rank(setweight(to_tsvector('simple', title), 'A') || setweight(to_tsvector('simple', director), 'B'), text_query)
+             + greatest(word_similarity('star wa', title), word_similarity('star wa', director)) DESC,
+         ranking DESC, movie_id DESC
+LIMIT 20;
+
+-- Misspelled director, found by trigram similarity only
+SELECT 'Director ' || substr(md5('1234'), 1, 9) || 'x' AS misspelled,
+       'director & ' || substr(md5('1234'), 1, 9) || 'x:*' AS misspelled_query \gset
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT movie_id, title, director, year_of_production, ranking, ranking_status, count(*) OVER () AS total
+FROM movies, to_tsquery('simple', :'misspelled_query') AS text_query
+WHERE user_id = :heavy_user
+  AND ((setweight(to_tsvector('simple', title), 'A') || setweight(to_tsvector('simple', director), 'B')) @@ text_query
+    OR :'misspelled' <% title OR :'misspelled' <% director)
+ORDER BY ts_rank(setweight(to_tsvector('simple', title), 'A') || setweight(to_tsvector('simple', director), 'B'), text_query)
+             + greatest(word_similarity(:'misspelled', title), word_similarity(:'misspelled', director)) DESC,
+         ranking DESC, movie_id DESC
+LIMIT 20;
+
+-- Cleanup:
+-- DELETE FROM users WHERE email LIKE 'bench-%@example.com';